@@ -0,0 +1,91 @@
+package auth.infrastructure.config;
+
+import com.example.demo.application.service.TokenEpochRegistry;
+import com.example.demo.infrastructure.config.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación de JWT por petición: caché de claims frente a verificar la
+ * firma y parsear el token cada vez. Varios hilos a la vez, como en el
+ * filtro de autenticación, para medir también la contención de la caché.
+ *
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="JwtClaimsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class JwtClaimsBenchmark {
+
+    private static final String SECRETO = "claveDePruebaSuficientementeLargaParaFirmarConHS256";
+
+    // Tokens distintos en uso: una sesión o todo un turno de tablets y meseros
+    @Param({"1", "500"})
+    private int tokens;
+
+    private JwtTokenProvider jwtTokenProvider;
+    private JwtParser jwtParser;
+    private String[] emitidos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtTokenProvider = new JwtTokenProvider(new TokenEpochRegistry());
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtTokenProvider, "maxEntradas", 10_000);
+        jwtTokenProvider.iniciar();
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRETO.getBytes()))
+                .build();
+
+        emitidos = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            User usuario = new User("mesero" + i + "@restaurante.com", "secreta",
+                    List.of(new SimpleGrantedAuthority("ROLE_MESERO")));
+            emitidos[i] = jwtTokenProvider.generateToken(
+                    new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities()), "U" + i);
+        }
+    }
+
+    private String cualquiera() {
+        return emitidos[ThreadLocalRandom.current().nextInt(emitidos.length)];
+    }
+
+    @Benchmark
+    public Optional<JwtTokenProvider.TokenClaims> conCache() {
+        return jwtTokenProvider.parseClaims(cualquiera());
+    }
+
+    @Benchmark
+    public Claims sinCache() {
+        return jwtParser.parseClaimsJws(cualquiera()).getBody();
+    }
+}
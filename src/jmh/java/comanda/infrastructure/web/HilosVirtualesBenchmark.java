@@ -0,0 +1,134 @@
+package comanda.infrastructure.web;
+
+import com.example.demo.infrastructure.web.filter.ConcurrencyLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga de los dos modos de hilos: una ráfaga de peticiones /api
+ * atendida por un pool de 200 hilos de plataforma (el de Tomcat por defecto)
+ * o por un hilo virtual por petición, con ConcurrencyLimitFilter configurado
+ * como en cada modo. Cada petición simula la consulta JDBC ocupando una de
+ * las 10 conexiones de Hikari y después trabajo sin base de datos (E/S de la
+ * respuesta). Mide el tiempo de la ráfaga completa y cuenta las respuestas 503.
+ *
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="HilosVirtualesBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HilosVirtualesBenchmark {
+
+    private static final int HILOS_TOMCAT = 200;
+    private static final int CONEXIONES_HIKARI = 10;
+
+    @Param({"false", "true"})
+    private boolean hilosVirtuales;
+
+    @Param({"1000"})
+    private int peticiones;
+
+    @Param({"2"})
+    private long consultaMs;
+
+    @Param({"5"})
+    private long restoMs;
+
+    private ExecutorService executor;
+    private ConcurrencyLimitFilter filter;
+    private Semaphore conexiones;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = hilosVirtuales
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(HILOS_TOMCAT);
+        filter = new ConcurrencyLimitFilter(new ObjectMapper().findAndRegisterModules());
+        // Sin concurrencia.api.max-peticiones: el valor por defecto de cada modo
+        ReflectionTestUtils.setField(filter, "hilosVirtuales", hilosVirtuales);
+        ReflectionTestUtils.setField(filter, "esperaMs", 5000L);
+        filter.iniciar();
+        conexiones = new Semaphore(CONEXIONES_HIKARI, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Respuestas de la ráfaga por código; JMH las informa junto al tiempo.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Respuestas {
+        public long correctas;
+        public long rechazadas;
+    }
+
+    @Benchmark
+    public void rafaga(Respuestas respuestas) throws Exception {
+        List<Future<Integer>> enCurso = new ArrayList<>(peticiones);
+        for (int i = 0; i < peticiones; i++) {
+            enCurso.add(executor.submit(this::atender));
+        }
+        for (Future<Integer> respuesta : enCurso) {
+            if (respuesta.get() == 503) {
+                respuestas.rechazadas++;
+            } else {
+                respuestas.correctas++;
+            }
+        }
+    }
+
+    private int atender() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/comandas");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, controlador());
+        return response.getStatus();
+    }
+
+    private FilterChain controlador() {
+        return (req, res) -> {
+            try {
+                conexiones.acquire();
+                try {
+                    Thread.sleep(consultaMs);
+                } finally {
+                    conexiones.release();
+                }
+                Thread.sleep(restoMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package producto.application.service;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.application.service.ProductoService;
+import com.example.demo.application.service.StockLedger;
+import com.example.demo.domain.entity.Categoria;
+import com.example.demo.domain.entity.Producto;
+import com.example.demo.infrastructure.persistence.repository.CategoriaRepository;
+import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Líneas de comanda por segundo descontando stock: libro de stock en memoria
+ * (inventario.stock-ledger.enabled=true) frente al UPDATE condicional síncrono
+ * por línea. Levanta la aplicación sobre H2 y llama a ProductoService.reducirStock
+ * desde varios hilos contra unos pocos productos calientes, que es donde las
+ * filas bloqueadas de producto limitan al camino síncrono.
+ *
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="StockLedgerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class StockLedgerBenchmark {
+
+    private static final int STOCK_INICIAL = Integer.MAX_VALUE / 2;
+
+    @Param({"false", "true"})
+    private boolean ledger;
+
+    // Productos distintos en la ráfaga: la bebida de la casa o una carta corta
+    @Param({"1", "8"})
+    private int calientes;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+    private Integer[] productos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contexto = new SpringApplicationBuilder(DemoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:stock-ledger;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.example.demo=WARN",
+                        "inventario.stock-ledger.enabled=" + ledger)
+                .run();
+        productoService = contexto.getBean(ProductoService.class);
+
+        Categoria categoria = new Categoria();
+        categoria.setNombre("Benchmark");
+        categoria = contexto.getBean(CategoriaRepository.class).save(categoria);
+
+        ProductoRepository productoRepository = contexto.getBean(ProductoRepository.class);
+        productos = new Integer[calientes];
+        for (int i = 0; i < calientes; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto caliente " + i);
+            producto.setCategoria(categoria);
+            producto.setPrecio(new BigDecimal("5.00"));
+            producto.setStock(STOCK_INICIAL);
+            producto.setEstado(true);
+            productos[i] = productoRepository.save(producto).getIdProducto();
+        }
+        // Los productos se crean después de ApplicationReadyEvent: se recarga el libro
+        contexto.getBean(StockLedger.class).cargar();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void reducirStock() {
+        productoService.reducirStock(productos[ThreadLocalRandom.current().nextInt(productos.length)], 1);
+    }
+}
@@ -5,14 +5,16 @@ import com.example.demo.domain.entity.Usuario;
 import com.example.demo.infrastructure.web.dto.LoginDTO;
 import com.example.demo.infrastructure.web.dto.RegisterDTO;
 import com.example.demo.infrastructure.web.dto.JwtResponseDTO;
-import com.example.demo.infrastructure.persistence.repository.RolRepository;
 import com.example.demo.infrastructure.persistence.repository.UsuarioRepository;
 import com.example.demo.infrastructure.config.JwtTokenProvider;
+import com.example.demo.shared.constants.RolConstants;
 import com.example.demo.shared.exception.BadRequestException;
+import com.example.demo.shared.exception.InvalidRefreshTokenException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,9 +26,10 @@ public class AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final UsuarioRepository usuarioRepository;
-    private final RolRepository rolRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
+    private final RefreshTokenService refreshTokenService;
 
     public JwtResponseDTO login(LoginDTO loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
@@ -37,13 +40,7 @@ public class AuthService {
         Usuario usuario = usuarioRepository.findByEmail(loginRequest.getEmail())
                 .orElseThrow(() -> new BadRequestException("Usuario no encontrado"));
 
-        String token = jwtTokenProvider.generateToken(authentication);
-
-        return JwtResponseDTO.builder()
-                .token(token)
-                .email(usuario.getEmail())
-                .nombre(usuario.getNombre())
-                .build();
+        return abrirSesion(authentication, usuario);
     }
 
     public JwtResponseDTO register(RegisterDTO registerRequest) {
@@ -51,7 +48,7 @@ public class AuthService {
             throw new BadRequestException("El email ya está registrado");
         }
 
-        Rol rol = rolRepository.findById(1) // Rol por defecto: Usuario
+        Rol rol = referenceDataRegistry.findRol(RolConstants.REGISTRO_POR_DEFECTO_ID)
                 .orElseThrow(() -> new BadRequestException("Rol no encontrado"));
 
         Usuario usuario = Usuario.builder()
@@ -68,10 +65,38 @@ public class AuthService {
                         registerRequest.getEmail(),
                         registerRequest.getPassword()));
 
-        String token = jwtTokenProvider.generateToken(authentication);
+        return abrirSesion(authentication, usuario);
+    }
+
+    /**
+     * Nuevo access token a partir de un token de refresco, sin contraseña ni
+     * consultas al usuario: email, ID y rol salen del índice de sesiones.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public JwtResponseDTO refresh(String refreshToken) {
+        RefreshTokenService.Rotacion rotacion = refreshTokenService.rotar(refreshToken);
+        RefreshTokenService.Sesion sesion = rotacion.sesion();
+
+        return JwtResponseDTO.builder()
+                .token(jwtTokenProvider.generateToken(sesion.email(), sesion.idUsuario(), sesion.rol()))
+                .expiresIn(jwtTokenProvider.getExpirationInSeconds())
+                .refreshToken(rotacion.token())
+                .email(sesion.email())
+                .build();
+    }
+
+    public void logout(String refreshToken) {
+        refreshTokenService.revocar(refreshToken);
+    }
+
+    private JwtResponseDTO abrirSesion(Authentication authentication, Usuario usuario) {
+        String token = jwtTokenProvider.generateToken(authentication, usuario.getIdUsuario());
+        String rol = JwtTokenProvider.getRol((UserDetails) authentication.getPrincipal());
 
         return JwtResponseDTO.builder()
                 .token(token)
+                .expiresIn(jwtTokenProvider.getExpirationInSeconds())
+                .refreshToken(refreshTokenService.emitir(usuario.getIdUsuario(), usuario.getEmail(), rol))
                 .email(usuario.getEmail())
                 .nombre(usuario.getNombre())
                 .build();
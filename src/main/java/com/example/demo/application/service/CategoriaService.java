@@ -20,6 +20,7 @@ public class CategoriaService {
 
     private final CategoriaRepository categoriaRepository;
     private final CategoriaMapper categoriaMapper;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
     /**
      * Obtener todas las categorías
@@ -27,7 +28,7 @@ public class CategoriaService {
     @Transactional(readOnly = true)
     public List<CategoriaDTO> findAll() {
         log.info("Obteniendo todas las categorías");
-        List<Categoria> categorias = categoriaRepository.findAll();
+        List<Categoria> categorias = referenceDataRegistry.categorias();
         log.info("Se encontraron {} categorías", categorias.size());
         return categoriaMapper.toDtoList(categorias);
     }
@@ -46,7 +47,7 @@ public class CategoriaService {
             throw new IllegalArgumentException("El ID de la categoría debe ser un número positivo");
         }
 
-        Categoria categoria = categoriaRepository.findById(id)
+        Categoria categoria = referenceDataRegistry.findCategoria(id)
                 .orElseThrow(() -> {
                     log.error("Categoría no encontrada con ID: {}", id);
                     return new ResourceNotFoundException("Categoría no encontrada con ID: " + id);
@@ -90,6 +91,7 @@ public class CategoriaService {
 
         Categoria categoria = categoriaMapper.toEntity(categoriaDTO);
         Categoria categoriaSaved = categoriaRepository.save(categoria);
+        referenceDataRegistry.invalidarCategorias();
 
         log.info("Categoría creada exitosamente con ID: {}", categoriaSaved.getIdCategoria());
         return categoriaMapper.toDto(categoriaSaved);
@@ -143,6 +145,7 @@ public class CategoriaService {
         // Actualizar solo el nombre (normalizado)
         categoriaExistente.setNombre(nombreNormalizado);
         Categoria categoriaUpdated = categoriaRepository.save(categoriaExistente);
+        referenceDataRegistry.invalidarCategorias();
 
         log.info("Categoría actualizada exitosamente: {}", categoriaUpdated.getNombre());
         return categoriaMapper.toDto(categoriaUpdated);
@@ -180,6 +183,7 @@ public class CategoriaService {
         }
 
         categoriaRepository.deleteById(id);
+        referenceDataRegistry.invalidarCategorias();
         log.info("Categoría eliminada exitosamente: {}", categoria.getNombre());
     }
 
@@ -196,7 +200,7 @@ public class CategoriaService {
             throw new IllegalArgumentException("El nombre de búsqueda no puede estar vacío");
         }
 
-        Categoria categoria = categoriaRepository.findByNombre(nombre.trim().toUpperCase())
+        Categoria categoria = referenceDataRegistry.findCategoriaByNombre(nombre)
                 .orElseThrow(() -> {
                     log.error("Categoría no encontrada con nombre: {}", nombre);
                     return new ResourceNotFoundException("Categoría no encontrada: " + nombre);
@@ -217,7 +221,7 @@ public class CategoriaService {
             return false;
         }
 
-        boolean exists = categoriaRepository.existsByNombre(nombre.trim().toUpperCase());
+        boolean exists = referenceDataRegistry.findCategoriaByNombre(nombre).isPresent();
         log.info("Categoría '{}' existe: {}", nombre, exists);
         return exists;
     }
@@ -0,0 +1,224 @@
+package com.example.demo.application.service;
+
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.entity.Comanda;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.example.demo.domain.mapper.ComandaMapper;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.shared.constants.EstadoConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tablero en memoria de las comandas activas (no pagadas).
+ * Se carga al arrancar y se mantiene al día con los ComandaCambiadaEvent
+ * publicados por ComandaService y DetalleComandaService, procesados después
+ * del commit. Las lecturas no bloquean y devuelven copias; las escrituras se
+ * serializan para que los índices por estado, mesa, mesero y cocinero sean
+ * coherentes entre sí.
+ * El cerrojo es un ReentrantLock y no un monitor: la escritura consulta la base
+ * de datos y, con hilos virtuales, esperar JDBC dentro de un synchronized
+ * fijaría el hilo virtual a su hilo portador.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ComandaBoard {
+
+    // Orden de listado: más reciente primero, igual que la paginación por keyset
+    public static final Comparator<ComandaDTO> ORDEN_RECIENTE = Comparator
+            .comparing(ComandaDTO::getFecha, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ComandaDTO::getIdComanda, Comparator.reverseOrder());
+
+    private final ComandaRepository comandaRepository;
+    private final ComandaMapper comandaMapper;
+
+    private final Map<Integer, ComandaDTO> comandas = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> porEstado = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> porMesa = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> porMesero = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> porCocinero = new ConcurrentHashMap<>();
+
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    private volatile boolean cargado = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargar() {
+        escritura.lock();
+        try {
+            List<Comanda> activas = comandaRepository
+                    .findConRelacionesByEstadoIdEstadoNot(EstadoConstants.COMANDA_PAGADA_ID);
+            if (!activas.isEmpty()) {
+                comandaRepository.findConDetallesByIdComandaIn(activas.stream().map(Comanda::getIdComanda).toList());
+            }
+
+            comandas.clear();
+            porEstado.clear();
+            porMesa.clear();
+            porMesero.clear();
+            porCocinero.clear();
+            for (Comanda comanda : activas) {
+                indexar(comandaMapper.toDto(comanda));
+            }
+            cargado = true;
+            log.info("Tablero de comandas cargado con {} comandas activas", comandas.size());
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Antes que los demás oyentes post-commit, para que lean el tablero ya actualizado
+    @Order(0)
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onComandaCambiada(ComandaCambiadaEvent event) {
+        refrescar(event.idComanda());
+    }
+
+    /**
+     * Recarga una comanda desde la base de datos y actualiza los índices.
+     * Si ya no existe o quedó pagada, se retira del tablero.
+     */
+    public void refrescar(Integer idComanda) {
+        escritura.lock();
+        try {
+            Optional<Comanda> comanda = comandaRepository.findConRelacionesByIdComanda(idComanda);
+            desindexar(idComanda);
+            if (comanda.isEmpty()
+                    || comanda.get().getEstado() == null
+                    || EstadoConstants.COMANDA_PAGADA_ID.equals(comanda.get().getEstado().getIdEstado())) {
+                return;
+            }
+            comandaRepository.findConDetallesByIdComandaIn(List.of(idComanda));
+            indexar(comandaMapper.toDto(comanda.get()));
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    /**
+     * Indica si las comandas con este estado están todas en el tablero.
+     */
+    public boolean cubreEstado(Integer idEstado) {
+        return cargado && !EstadoConstants.COMANDA_PAGADA_ID.equals(idEstado);
+    }
+
+    public Optional<ComandaDTO> get(Integer idComanda) {
+        return Optional.ofNullable(comandas.get(idComanda)).map(ComandaBoard::copia);
+    }
+
+    public List<ComandaDTO> activas() {
+        List<ComandaDTO> resultado = new ArrayList<>(comandas.size());
+        for (ComandaDTO dto : comandas.values()) {
+            resultado.add(copia(dto));
+        }
+        resultado.sort(ORDEN_RECIENTE);
+        return resultado;
+    }
+
+    public List<ComandaDTO> porEstado(Integer idEstado) {
+        return resolver(porEstado.get(idEstado));
+    }
+
+    public List<ComandaDTO> porMesa(Integer idMesa) {
+        return resolver(porMesa.get(idMesa));
+    }
+
+    public List<ComandaDTO> porMesero(String idMesero) {
+        return resolver(porMesero.get(idMesero));
+    }
+
+    public List<ComandaDTO> porCocinero(String idCocinero) {
+        return resolver(porCocinero.get(idCocinero));
+    }
+
+    private List<ComandaDTO> resolver(Set<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        List<ComandaDTO> resultado = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            ComandaDTO dto = comandas.get(id);
+            if (dto != null) {
+                resultado.add(copia(dto));
+            }
+        }
+        resultado.sort(ORDEN_RECIENTE);
+        return resultado;
+    }
+
+    /**
+     * Los DTO son mutables: quien los recibe (controladores, el diff de las
+     * notificaciones) trabaja sobre su propia copia y nunca sobre la del tablero.
+     */
+    private static ComandaDTO copia(ComandaDTO dto) {
+        List<DetalleComandaDTO> detalles = dto.getDetalles();
+        if (detalles == null) {
+            return dto.toBuilder().build();
+        }
+        List<DetalleComandaDTO> copiaDetalles = new ArrayList<>(detalles.size());
+        for (DetalleComandaDTO detalle : detalles) {
+            copiaDetalles.add(detalle.toBuilder().build());
+        }
+        return dto.toBuilder().detalles(copiaDetalles).build();
+    }
+
+    private void indexar(ComandaDTO dto) {
+        Integer id = dto.getIdComanda();
+        comandas.put(id, dto);
+        agregar(porEstado, dto.getEstadoId(), id);
+        agregar(porMesa, dto.getMesaId(), id);
+        agregar(porMesero, dto.getMeseroId(), id);
+        agregar(porCocinero, dto.getCocineroId(), id);
+    }
+
+    private void desindexar(Integer idComanda) {
+        ComandaDTO anterior = comandas.remove(idComanda);
+        if (anterior == null) {
+            return;
+        }
+        quitar(porEstado, anterior.getEstadoId(), idComanda);
+        quitar(porMesa, anterior.getMesaId(), idComanda);
+        quitar(porMesero, anterior.getMeseroId(), idComanda);
+        quitar(porCocinero, anterior.getCocineroId(), idComanda);
+    }
+
+    private static <K> void agregar(Map<K, Set<Integer>> indice, K clave, Integer idComanda) {
+        if (clave != null) {
+            indice.computeIfAbsent(clave, k -> ConcurrentHashMap.newKeySet()).add(idComanda);
+        }
+    }
+
+    private static <K> void quitar(Map<K, Set<Integer>> indice, K clave, Integer idComanda) {
+        if (clave == null) {
+            return;
+        }
+        indice.computeIfPresent(clave, (k, ids) -> {
+            ids.remove(idComanda);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
@@ -1,22 +1,513 @@
 package com.example.demo.application.service;
 
+import com.example.demo.domain.dto.CambiosComandaDTO;
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.ComandaNotificacionDTO;
+import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.entity.Categoria;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.example.demo.shared.constants.EstadoConstants;
+import com.example.demo.shared.constants.WebSocketConstants;
+import com.example.demo.shared.exception.ResourceNotFoundException;
+import com.example.demo.shared.util.ComandaDiffUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Notificaciones STOMP de cambios en comandas.
+ *
+ * Los ComandaCambiadaEvent se capturan después del commit y se encolan sin
+ * bloquear el hilo de la petición. Un hilo dedicado los envía agrupados: todos
+ * los cambios de una misma comanda dentro de notificaciones.comandas.ventana-ms
+ * se fusionan en un único mensaje, de modo que una ráfaga de líneas añadidas
+ * llega como una sola trama por suscriptor. El mensaje lleva solo la
+ * diferencia entre la última instantánea enviada y la actual del ComandaBoard
+ * (ver ComandaDiffUtil).
+ *
+ * Destinos: /topic/comandas recibe todo (administración y caja), cada
+ * estación /topic/cocina/{estacion} recibe las comandas con líneas de sus
+ * categorías (solo esas líneas) cuando cambian sus líneas, el estado o las
+ * asignaciones, y el mesero asignado recibe sus comandas en /user/queue/comandas.
+ * Cada estación lleva su propia versión por comanda, consecutiva en su topic.
+ *
+ * Cada mensaje lleva una secuencia global y queda en un historial circular de
+ * notificaciones.comandas.historial entradas, para que un cliente que se
+ * reconecta pida solo lo que se perdió (GET /api/comandas/cambios?desde=).
+ * Cada estación tiene además su propio historial con los mensajes de su topic
+ * (con sus versiones), que las tablets de cocina piden con &estacion=.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ComandaNotificationService {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final ComandaBoard comandaBoard;
+    private final ComandaService comandaService;
+    private final ReferenceDataRegistry referenceDataRegistry;
+
+    @Value("${notificaciones.comandas.ventana-ms:50}")
+    private long ventanaMs;
+
+    @Value("${notificaciones.comandas.capacidad:10000}")
+    private int capacidad;
+
+    @Value("${notificaciones.comandas.historial:2048}")
+    private int tamanoHistorial;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    // Cambios pendientes por comanda; la cola solo lleva cada ID una vez
+    private final Map<Integer, ComandaCambiadaEvent.Tipo> pendientes = new ConcurrentHashMap<>();
+    private BlockingQueue<Integer> cola;
+    private Thread despachador;
+
+    // Últimos mensajes publicados, indexados por secuencia módulo el tamaño del historial.
+    // ReentrantLock y no synchronized: cambiosDesde corre en hilos de petición, virtuales en ese modo
+    private final ReentrantLock historialLock = new ReentrantLock();
+    private ComandaNotificacionDTO[] historial;
+    private long primeraSecuencia;
+    private long ultimaSecuencia;
+    // Mensajes enviados a cada estación, protegidos por historialLock
+    private final Map<String, HistorialEstacion> historialPorEstacion = new HashMap<>();
+
+    // Última versión enviada de cada comanda; solo la usa el hilo despachador
+    private final Map<Integer, Seguimiento> notificadas = new HashMap<>();
+    // Lo mismo por estación de cocina: instantánea con solo sus líneas y versión propia. Solo la escribe
+    // el despachador, siempre con mapas nuevos que no vuelve a modificar; cambiosDesde la lee
+    private final Map<Integer, Map<String, Seguimiento>> notificadasPorEstacion = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public synchronized void iniciar() {
+        if (despachador != null) {
+            return;
+        }
+        cola = new ArrayBlockingQueue<>(capacidad);
+        historialLock.lock();
+        try {
+            historial = new ComandaNotificacionDTO[tamanoHistorial];
+            historialPorEstacion.clear();
+            // Arranca en el reloj (en microsegundos) para que la secuencia nunca
+            // retroceda tras un reinicio y un cliente no confunda mensajes viejos con nuevos
+            ultimaSecuencia = System.currentTimeMillis() * 1000;
+            primeraSecuencia = ultimaSecuencia + 1;
+        } finally {
+            historialLock.unlock();
+        }
+        // En modo virtual la espera en la cola y los envíos no retienen un hilo de plataforma
+        Thread.Builder hilo = hilosVirtuales ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        despachador = hilo
+                .name("comanda-notificaciones")
+                .start(this::despachar);
+    }
+
+    @PreDestroy
+    public synchronized void detener() {
+        if (despachador == null) {
+            return;
+        }
+        despachador.interrupt();
+        try {
+            despachador.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        despachador = null;
+    }
 
     // Enviar notificación general (a todos los clientes)
     public void notificarNuevaComanda(String mensaje) {
-        messagingTemplate.convertAndSend("/topic/comandas/nueva", mensaje);
+        messagingTemplate.convertAndSend(WebSocketConstants.TOPIC_COMANDAS_NUEVA, mensaje);
     }
 
     // Enviar notificación específica (por ejemplo, cambio de estado)
     public void notificarCambioEstado(String mensaje) {
-        messagingTemplate.convertAndSend("/topic/comandas/estado", mensaje);
+        messagingTemplate.convertAndSend(WebSocketConstants.TOPIC_COMANDAS_ESTADO, mensaje);
+    }
+
+    // Después del ComandaBoard, para que el despachador lea la comanda ya actualizada
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onComandaCambiada(ComandaCambiadaEvent event) {
+        encolar(event.idComanda(), event.tipo());
+    }
+
+    /**
+     * Registra un cambio sin bloquear. Si la comanda ya tenía un cambio
+     * pendiente, se fusiona con él y no se vuelve a encolar.
+     */
+    public void encolar(Integer idComanda, ComandaCambiadaEvent.Tipo tipo) {
+        boolean[] nuevo = {false};
+        pendientes.compute(idComanda, (id, actual) -> {
+            if (actual == null) {
+                nuevo[0] = true;
+                return tipo;
+            }
+            return actual.combinar(tipo);
+        });
+        if (nuevo[0] && !cola.offer(idComanda)) {
+            pendientes.remove(idComanda);
+            log.warn("Cola de notificaciones llena; se descarta el cambio de la comanda {}", idComanda);
+        }
+    }
+
+    private void despachar() {
+        long ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMs);
+        List<Integer> lote = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                lote.add(cola.take());
+                // La ventana empieza con el primer cambio; lo que llegue mientras tanto viaja en el mismo lote
+                long limite = System.nanoTime() + ventanaNanos;
+                long restante;
+                while ((restante = limite - System.nanoTime()) > 0) {
+                    Integer id = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (id == null) {
+                        break;
+                    }
+                    lote.add(id);
+                }
+                enviarLote(lote);
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            // Apagado: se envía lo que quede pendiente
+            cola.drainTo(lote);
+            enviarLote(lote);
+        }
+    }
+
+    private void enviarLote(List<Integer> lote) {
+        for (Integer idComanda : lote) {
+            ComandaCambiadaEvent.Tipo tipo = pendientes.remove(idComanda);
+            if (tipo == null) {
+                continue;
+            }
+            try {
+                enviar(idComanda, tipo);
+            } catch (RuntimeException ex) {
+                log.error("No se pudo notificar el cambio de la comanda {}: {}", idComanda, ex.getMessage());
+            }
+        }
+    }
+
+    private void enviar(Integer idComanda, ComandaCambiadaEvent.Tipo tipo) {
+        ComandaDTO actual = tipo == ComandaCambiadaEvent.Tipo.ELIMINADA ? null : instantanea(idComanda);
+        if (actual == null) {
+            tipo = ComandaCambiadaEvent.Tipo.ELIMINADA;
+        }
+
+        // Las comandas eliminadas o pagadas dejan de seguirse tras este último mensaje
+        Seguimiento previo = notificadas.get(idComanda);
+        ComandaDTO anterior = previo != null ? previo.comanda() : null;
+        long version = previo != null ? previo.version() + 1 : 1;
+        if (actual == null || EstadoConstants.COMANDA_PAGADA_ID.equals(actual.getEstadoId())) {
+            notificadas.remove(idComanda);
+        } else {
+            notificadas.put(idComanda, new Seguimiento(version, actual));
+        }
+
+        ComandaNotificacionDTO notificacion = ComandaDiffUtil.cambio(idComanda, version, tipo, anterior, actual);
+        long secuencia = registrar(notificacion);
+        boolean cambioEstado = actual == null || anterior == null
+                || !Objects.equals(anterior.getEstadoId(), actual.getEstadoId());
+
+        messagingTemplate.convertAndSend(WebSocketConstants.TOPIC_COMANDAS, notificacion);
+        if (tipo == ComandaCambiadaEvent.Tipo.CREADA) {
+            messagingTemplate.convertAndSend(WebSocketConstants.TOPIC_COMANDAS_NUEVA, notificacion);
+        } else if (cambioEstado) {
+            messagingTemplate.convertAndSend(WebSocketConstants.TOPIC_COMANDAS_ESTADO, notificacion);
+        }
+
+        // Mesero asignado y, si la comanda cambió de mesero, también el anterior
+        String meseroActual = actual != null ? actual.getMeseroId() : null;
+        String meseroAnterior = anterior != null ? anterior.getMeseroId() : null;
+        if (meseroActual != null) {
+            messagingTemplate.convertAndSendToUser(meseroActual, WebSocketConstants.QUEUE_COMANDAS, notificacion);
+        }
+        if (meseroAnterior != null && !meseroAnterior.equals(meseroActual)) {
+            messagingTemplate.convertAndSendToUser(meseroAnterior, WebSocketConstants.QUEUE_COMANDAS, notificacion);
+        }
+
+        notificarEstaciones(idComanda, tipo, actual, secuencia);
+    }
+
+    /**
+     * Cada estación recibe un mensaje cuando cambian sus líneas, el estado o
+     * las asignaciones de la comanda, calculado contra la última vista que se
+     * le envió. Los agregados (total, cantidadLineas) no cuentan: una línea de
+     * otra estación no genera tráfico aquí.
+     * Una estación que se queda sin líneas recibe la retirada y deja de
+     * seguir la comanda; si vuelve a tener líneas recibe la comanda completa.
+     */
+    private void notificarEstaciones(Integer idComanda, ComandaCambiadaEvent.Tipo tipo, ComandaDTO actual,
+            long secuencia) {
+        boolean seguir = actual != null && !EstadoConstants.COMANDA_PAGADA_ID.equals(actual.getEstadoId());
+        Map<String, Seguimiento> previas = notificadasPorEstacion.getOrDefault(idComanda, Map.of());
+        Map<String, List<DetalleComandaDTO>> lineasActuales = lineasPorEstacion(actual);
+        Set<String> estaciones = new LinkedHashSet<>(lineasActuales.keySet());
+        estaciones.addAll(previas.keySet());
+
+        Map<String, Seguimiento> siguientes = new HashMap<>();
+        for (String estacion : estaciones) {
+            Seguimiento previa = previas.get(estacion);
+            List<DetalleComandaDTO> ahora = lineasActuales.get(estacion);
+            ComandaDTO vistaAnterior = previa != null ? previa.comanda() : null;
+            ComandaDTO vista = actual != null ? actual.toBuilder().detalles(ahora != null ? ahora : List.of()).build()
+                    : null;
+            long version = previa != null ? previa.version() + 1 : 1;
+
+            ComandaNotificacionDTO paraEstacion =
+                    ComandaDiffUtil.cambio(idComanda, version, tipo, vistaAnterior, vista,
+                            ComandaDiffUtil.CAMPOS_ESTACION);
+            if (vistaAnterior != null && vista != null && sinCambios(paraEstacion)) {
+                siguientes.put(estacion, previa);
+                continue;
+            }
+            if (seguir && ahora != null) {
+                siguientes.put(estacion, new Seguimiento(version, vista));
+            }
+            paraEstacion.setSecuencia(secuencia);
+            registrarEnEstacion(estacion, paraEstacion);
+            messagingTemplate.convertAndSend(WebSocketConstants.TOPIC_COCINA + estacion, paraEstacion);
+        }
+
+        if (siguientes.isEmpty()) {
+            notificadasPorEstacion.remove(idComanda);
+        } else {
+            notificadasPorEstacion.put(idComanda, siguientes);
+        }
+    }
+
+    private static boolean sinCambios(ComandaNotificacionDTO cambio) {
+        return cambio.getComanda() == null
+                && (cambio.getCampos() == null || cambio.getCampos().isEmpty())
+                && (cambio.getLineas() == null || cambio.getLineas().isEmpty())
+                && (cambio.getLineasQuitadas() == null || cambio.getLineasQuitadas().isEmpty());
+    }
+
+    /**
+     * Cambios publicados después de la secuencia indicada. Si el cliente no
+     * indica secuencia, viene de otro arranque del servidor o se quedó atrás
+     * más de lo que guarda el historial, recibe todas las comandas activas.
+     * Los cambios son valores absolutos, así que aplicar alguno ya reflejado
+     * en la instantánea no altera el resultado.
+     */
+    public CambiosComandaDTO cambiosDesde(Long desde) {
+        long ultima;
+        List<ComandaNotificacionDTO> cambios = null;
+        historialLock.lock();
+        try {
+            ultima = ultimaSecuencia;
+            long primeraDisponible = Math.max(primeraSecuencia, ultima - historial.length + 1);
+            if (desde != null && desde >= primeraDisponible - 1 && desde <= ultima) {
+                cambios = new ArrayList<>((int) (ultima - desde));
+                for (long s = desde + 1; s <= ultima; s++) {
+                    cambios.add(historial[posicion(s)]);
+                }
+            }
+        } finally {
+            historialLock.unlock();
+        }
+
+        if (cambios != null) {
+            return CambiosComandaDTO.builder()
+                    .ultimaSecuencia(ultima)
+                    .completo(false)
+                    .cambios(cambios)
+                    .build();
+        }
+        // La secuencia se toma antes que la instantánea: como mucho se repiten cambios ya incluidos
+        return CambiosComandaDTO.builder()
+                .ultimaSecuencia(ultima)
+                .completo(true)
+                .comandas(comandaService.findComandasActivas())
+                .build();
+    }
+
+    /**
+     * Lo mismo para el topic de una estación: devuelve los mensajes que se le
+     * enviaron después de la secuencia indicada, con las versiones de la
+     * estación, de modo que la tablet sigue su cadena sin recargar. Si ya no
+     * están en el historial de la estación, la instantánea trae solo las
+     * comandas con líneas de la estación (solo esas líneas) y la versión de
+     * cada una en ella; los mensajes posteriores con versión igual o menor ya
+     * están reflejados y se ignoran.
+     */
+    public CambiosComandaDTO cambiosDesde(Long desde, String estacion) {
+        if (estacion == null || estacion.isBlank()) {
+            return cambiosDesde(desde);
+        }
+        long ultima;
+        List<ComandaNotificacionDTO> cambios = null;
+        historialLock.lock();
+        try {
+            ultima = ultimaSecuencia;
+            HistorialEstacion deEstacion = historialPorEstacion.get(estacion);
+            long descartadaHasta = deEstacion != null ? deEstacion.descartadaHasta : primeraSecuencia - 1;
+            if (desde != null && desde >= descartadaHasta && desde >= primeraSecuencia - 1 && desde <= ultima) {
+                cambios = new ArrayList<>();
+                if (deEstacion != null) {
+                    for (ComandaNotificacionDTO mensaje : deEstacion.mensajes) {
+                        if (mensaje.getSecuencia() > desde) {
+                            cambios.add(mensaje);
+                        }
+                    }
+                }
+            }
+        } finally {
+            historialLock.unlock();
+        }
+
+        if (cambios != null) {
+            return CambiosComandaDTO.builder()
+                    .ultimaSecuencia(ultima)
+                    .completo(false)
+                    .cambios(cambios)
+                    .build();
+        }
+        // Versiones antes que comandas: el contenido es igual o más nuevo que la vista de esa versión
+        Map<Integer, Long> versionesEnEstacion = new HashMap<>();
+        notificadasPorEstacion.forEach((idComanda, porEstacion) -> {
+            Seguimiento seguimiento = porEstacion.get(estacion);
+            if (seguimiento != null) {
+                versionesEnEstacion.put(idComanda, seguimiento.version());
+            }
+        });
+        List<ComandaDTO> comandas = new ArrayList<>();
+        Map<Integer, Long> versiones = new HashMap<>();
+        for (ComandaDTO comanda : comandaService.findComandasActivas()) {
+            List<DetalleComandaDTO> lineas = lineasPorEstacion(comanda).get(estacion);
+            if (lineas == null) {
+                continue;
+            }
+            comandas.add(comanda.toBuilder().detalles(lineas).build());
+            // Sin versión todavía: su próximo mensaje en el topic será la versión 1, con la comanda completa
+            versiones.put(comanda.getIdComanda(), versionesEnEstacion.getOrDefault(comanda.getIdComanda(), 0L));
+        }
+        return CambiosComandaDTO.builder()
+                .ultimaSecuencia(ultima)
+                .completo(true)
+                .comandas(comandas)
+                .versiones(versiones)
+                .build();
+    }
+
+    private long registrar(ComandaNotificacionDTO notificacion) {
+        historialLock.lock();
+        try {
+            long secuencia = ++ultimaSecuencia;
+            notificacion.setSecuencia(secuencia);
+            historial[posicion(secuencia)] = notificacion;
+            return secuencia;
+        } finally {
+            historialLock.unlock();
+        }
+    }
+
+    private void registrarEnEstacion(String estacion, ComandaNotificacionDTO notificacion) {
+        historialLock.lock();
+        try {
+            HistorialEstacion deEstacion = historialPorEstacion.computeIfAbsent(estacion,
+                    k -> new HistorialEstacion(primeraSecuencia - 1));
+            if (deEstacion.mensajes.size() == historial.length) {
+                deEstacion.descartadaHasta = deEstacion.mensajes.removeFirst().getSecuencia();
+            }
+            deEstacion.mensajes.addLast(notificacion);
+        } finally {
+            historialLock.unlock();
+        }
+    }
+
+    private int posicion(long secuencia) {
+        return (int) Math.floorMod(secuencia, (long) historial.length);
+    }
+
+    private Map<String, List<DetalleComandaDTO>> lineasPorEstacion(ComandaDTO comanda) {
+        if (comanda == null || comanda.getDetalles() == null) {
+            return Map.of();
+        }
+        Map<String, List<DetalleComandaDTO>> lineasPorEstacion = new HashMap<>();
+        for (DetalleComandaDTO detalle : comanda.getDetalles()) {
+            lineasPorEstacion.computeIfAbsent(estacion(detalle.getCategoriaId()), k -> new ArrayList<>())
+                    .add(detalle);
+        }
+        return lineasPorEstacion;
+    }
+
+    /**
+     * Estación de cocina de una categoría: su nombre en minúsculas, sin
+     * tildes y con guiones (p. ej. "Platos Fuertes" → platos-fuertes).
+     */
+    public String estacion(Integer idCategoria) {
+        return referenceDataRegistry.findCategoria(idCategoria)
+                .map(Categoria::getNombre)
+                .map(nombre -> Normalizer.normalize(nombre, Normalizer.Form.NFD)
+                        .replaceAll("\\p{M}", "")
+                        .toLowerCase(Locale.ROOT)
+                        .replaceAll("[^a-z0-9]+", "-")
+                        .replaceAll("(^-|-$)", ""))
+                .filter(nombre -> !nombre.isEmpty())
+                .orElse(WebSocketConstants.ESTACION_GENERAL);
+    }
+
+    /**
+     * Comanda actual desde el tablero; las pagadas ya no están en él y se leen
+     * de la base de datos. Devuelve null si la comanda ya no existe.
+     */
+    private ComandaDTO instantanea(Integer idComanda) {
+        return comandaBoard.get(idComanda).orElseGet(() -> {
+            try {
+                return comandaService.findById(idComanda);
+            } catch (ResourceNotFoundException ex) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Última instantánea enviada de una comanda: base para calcular el
+     * siguiente cambio.
+     */
+    private record Seguimiento(long version, ComandaDTO comanda) {
+    }
+
+    /**
+     * Últimos mensajes de una estación, en orden de secuencia, y la secuencia
+     * del más reciente que ya se descartó: quien la tenga puede seguir desde aquí.
+     */
+    private static final class HistorialEstacion {
+
+        private final ArrayDeque<ComandaNotificacionDTO> mensajes = new ArrayDeque<>();
+        private long descartadaHasta;
+
+        private HistorialEstacion(long descartadaHasta) {
+            this.descartadaHasta = descartadaHasta;
+        }
     }
 }
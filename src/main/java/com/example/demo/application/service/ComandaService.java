@@ -1,92 +1,157 @@
 package com.example.demo.application.service;
 
 import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.dto.PaginaCursorDTO;
 import com.example.demo.domain.entity.Comanda;
+import com.example.demo.domain.entity.DetalleComanda;
 import com.example.demo.domain.entity.Estado;
 import com.example.demo.domain.entity.Mesa;
+import com.example.demo.domain.entity.Producto;
 import com.example.demo.domain.entity.Usuario;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
 import com.example.demo.domain.mapper.ComandaMapper;
 import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
-import com.example.demo.infrastructure.persistence.repository.EstadoRepository;
+import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
 import com.example.demo.infrastructure.persistence.repository.MesaRepository;
+import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
 import com.example.demo.infrastructure.persistence.repository.UsuarioRepository;
+import com.example.demo.shared.constants.ApiConstants;
+import com.example.demo.shared.constants.EstadoConstants;
+import com.example.demo.shared.exception.BadRequestException;
+import com.example.demo.shared.exception.InsufficientStockException;
 import com.example.demo.shared.exception.ResourceNotFoundException;
+import com.example.demo.shared.util.CursorUtil;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class ComandaService {
 
+    // Tamaño máximo de la lista IN al cargar detalles
+    private static final int IN_CHUNK_SIZE = 1000;
+
     private final ComandaRepository comandaRepository;
     private final ComandaMapper comandaMapper;
     private final MesaRepository mesaRepository;
     private final UsuarioRepository usuarioRepository;
-    private final EstadoRepository estadoRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final ProductoRepository productoRepository;
+    private final DetalleComandaRepository detalleComandaRepository;
+    private final EntityManager entityManager;
+    private final ComandaBoard comandaBoard;
+    private final StockLedger stockLedger;
+    private final VentasDiariasService ventasDiariasService;
+    private final SalesTimeSeries salesTimeSeries;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ComandaDTO> findAll() {
-        List<Comanda> comandas = comandaRepository.findAll();
-        return comandaMapper.toDtoList(comandas);
+        List<Comanda> comandas = comandaRepository.findAllConRelaciones();
+        return toDtoListConDetalles(comandas);
     }
 
     @Transactional(readOnly = true)
     public ComandaDTO findById(Integer id) {
-        Comanda comanda = comandaRepository.findById(id)
+        Comanda comanda = comandaRepository.findConRelacionesByIdComanda(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Comanda no encontrada con ID: " + id));
+        comandaRepository.findConDetallesByIdComandaIn(List.of(id));
         return comandaMapper.toDto(comanda);
     }
 
     public ComandaDTO save(ComandaDTO comandaDTO) {
-        Comanda comanda = comandaMapper.toEntity(comandaDTO);
+        Comanda comanda = prepararComanda(comandaDTO);
+        Comanda savedComanda = comandaRepository.save(comanda);
+        salesTimeSeries.registrarComanda(savedComanda.getFecha(), 1);
+        eventPublisher.publishEvent(
+                new ComandaCambiadaEvent(savedComanda.getIdComanda(), ComandaCambiadaEvent.Tipo.CREADA));
+        return comandaMapper.toDto(savedComanda);
+    }
 
-        // Establecer fecha si no existe
-        if (comanda.getFecha() == null) {
-            comanda.setFecha(LocalDateTime.now());
+    /**
+     * Crea la comanda con todas sus líneas en una sola transacción.
+     * Los productos se cargan con un único findAllById, el stock se valida en
+     * memoria y los detalles se insertan con un batch JDBC.
+     */
+    public ComandaDTO saveConDetalles(ComandaDTO comandaDTO) {
+        List<DetalleComandaDTO> lineas = comandaDTO.getDetalles();
+        if (lineas == null || lineas.isEmpty()) {
+            throw new BadRequestException("La comanda debe incluir al menos un detalle");
         }
 
-        // Validar y establecer relaciones
-        if (comandaDTO.getMesaId() != null) {
-            Mesa mesa = mesaRepository.findById(comandaDTO.getMesaId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Mesa no encontrada con ID: " + comandaDTO.getMesaId()));
-            comanda.setMesa(mesa);
-        }
+        Map<Integer, Producto> productos = cargarProductos(lineas);
+        Comanda comanda = prepararComanda(comandaDTO);
 
-        if (comandaDTO.getMeseroId() != null) {
-            Usuario mesero = usuarioRepository.findById(comandaDTO.getMeseroId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Mesero no encontrado con ID: " + comandaDTO.getMeseroId()));
-            comanda.setMesero(mesero);
-        }
+        List<DetalleComanda> detalles = new ArrayList<>(lineas.size());
+        for (DetalleComandaDTO linea : lineas) {
+            Producto producto = productos.get(linea.getProductoId());
 
-        if (comandaDTO.getCocineroId() != null) {
-            Usuario cocinero = usuarioRepository.findById(comandaDTO.getCocineroId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Cocinero no encontrado con ID: " + comandaDTO.getCocineroId()));
-            comanda.setCocinero(cocinero);
-        }
+            if (!Boolean.TRUE.equals(producto.getEstado()))
+                throw new BadRequestException("El producto no está disponible");
+            if (linea.getCantidad() == null || linea.getCantidad() <= 0)
+                throw new BadRequestException("La cantidad debe ser mayor a 0");
+            if (linea.getCantidad() > 100)
+                throw new BadRequestException("La cantidad no puede exceder 100 unidades");
+            if (stockLedger.disponible(producto) < linea.getCantidad())
+                throw new InsufficientStockException("Stock insuficiente para '" + producto.getNombre() + "'");
 
-        if (comandaDTO.getEstadoId() != null) {
-            Estado estado = estadoRepository.findById(comandaDTO.getEstadoId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Estado no encontrado con ID: " + comandaDTO.getEstadoId()));
-            comanda.setEstado(estado);
-        } else {
-            // Estado por defecto: "Pendiente" (ID 1)
-            Estado estadoPendiente = estadoRepository.findById(1)
-                    .orElseThrow(() -> new ResourceNotFoundException("Estado 'Pendiente' no encontrado"));
-            comanda.setEstado(estadoPendiente);
+            BigDecimal precioUnitario = linea.getPrecioUnitario() != null
+                    && linea.getPrecioUnitario().compareTo(BigDecimal.ZERO) > 0
+                            ? linea.getPrecioUnitario()
+                            : producto.getPrecio();
+            if (precioUnitario == null)
+                throw new BadRequestException("El precio unitario no está definido");
+
+            // UPDATE condicional: si otra transacción consumió el stock, no se modifica ninguna fila
+            if (!stockLedger.descontar(producto.getIdProducto(), linea.getCantidad()))
+                throw new InsufficientStockException("Stock insuficiente para '" + producto.getNombre() + "'");
+
+            DetalleComanda detalle = new DetalleComanda();
+            detalle.setComanda(comanda);
+            detalle.setProducto(producto);
+            detalle.setCantidad(linea.getCantidad());
+            detalle.setPrecioUnitario(precioUnitario);
+            detalle.setSubtotal(precioUnitario.multiply(BigDecimal.valueOf(linea.getCantidad()))
+                    .setScale(2, RoundingMode.HALF_UP));
+            detalles.add(detalle);
         }
 
+        comanda.setTotal(detalles.stream()
+                .map(DetalleComanda::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        comanda.setCantidadLineas(detalles.size());
+
         Comanda savedComanda = comandaRepository.save(comanda);
+        detalleComandaRepository.insertarEnLote(detalles);
+        ventasDiariasService.registrar(detalles, 1);
+        salesTimeSeries.registrarComanda(savedComanda.getFecha(), 1);
+
+        // Recargar los detalles para obtener sus IDs; los productos ya están en el contexto de persistencia
+        savedComanda.getDetalles().addAll(detalleComandaRepository.findByComandaIdComanda(savedComanda.getIdComanda()));
+        eventPublisher.publishEvent(
+                new ComandaCambiadaEvent(savedComanda.getIdComanda(), ComandaCambiadaEvent.Tipo.CREADA));
         return comandaMapper.toDto(savedComanda);
     }
 
@@ -94,39 +159,30 @@ public class ComandaService {
         Comanda comanda = comandaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Comanda no encontrada con ID: " + id));
 
+        String meseroAnterior = comanda.getMesero() != null ? comanda.getMesero().getIdUsuario() : null;
+
         // Actualizar campos básicos
         comandaMapper.updateEntityFromDto(comandaDTO, comanda);
 
-        // Actualizar relaciones si se proporcionan
-        if (comandaDTO.getMesaId() != null) {
-            Mesa mesa = mesaRepository.findById(comandaDTO.getMesaId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Mesa no encontrada con ID: " + comandaDTO.getMesaId()));
-            comanda.setMesa(mesa);
-        }
+        // Actualizar solo las relaciones cuyo ID cambió; las demás no se consultan
+        asignarRelaciones(comanda,
+                siCambia(comandaDTO.getMesaId(), comanda.getMesa() != null ? comanda.getMesa().getIdMesa() : null),
+                siCambia(comandaDTO.getMeseroId(),
+                        comanda.getMesero() != null ? comanda.getMesero().getIdUsuario() : null),
+                siCambia(comandaDTO.getCocineroId(),
+                        comanda.getCocinero() != null ? comanda.getCocinero().getIdUsuario() : null),
+                siCambia(comandaDTO.getEstadoId(),
+                        comanda.getEstado() != null ? comanda.getEstado().getIdEstado() : null));
 
-        if (comandaDTO.getMeseroId() != null) {
-            Usuario mesero = usuarioRepository.findById(comandaDTO.getMeseroId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Mesero no encontrado con ID: " + comandaDTO.getMeseroId()));
-            comanda.setMesero(mesero);
-        }
-
-        if (comandaDTO.getCocineroId() != null) {
-            Usuario cocinero = usuarioRepository.findById(comandaDTO.getCocineroId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Cocinero no encontrado con ID: " + comandaDTO.getCocineroId()));
-            comanda.setCocinero(cocinero);
-        }
-
-        if (comandaDTO.getEstadoId() != null) {
-            Estado estado = estadoRepository.findById(comandaDTO.getEstadoId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Estado no encontrado con ID: " + comandaDTO.getEstadoId()));
-            comanda.setEstado(estado);
+        // Las ventas del día se atribuyen al mesero de la comanda: se trasladan al nuevo
+        if (meseroAnterior != null && comanda.getMesero() != null
+                && !meseroAnterior.equals(comanda.getMesero().getIdUsuario())) {
+            ventasDiariasService.cambiarMesero(comanda, meseroAnterior,
+                    detalleComandaRepository.findByComandaIdComanda(id));
         }
 
         Comanda updatedComanda = comandaRepository.save(comanda);
+        eventPublisher.publishEvent(new ComandaCambiadaEvent(id));
         return comandaMapper.toDto(updatedComanda);
     }
 
@@ -134,64 +190,293 @@ public class ComandaService {
         Comanda comanda = comandaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Comanda no encontrada con ID: " + id));
 
-        Estado estado = estadoRepository.findById(estadoId)
+        Estado estado = referenceDataRegistry.findEstado(estadoId)
                 .orElseThrow(() -> new ResourceNotFoundException("Estado no encontrado con ID: " + estadoId));
 
         comanda.setEstado(estado);
         Comanda updatedComanda = comandaRepository.save(comanda);
+        eventPublisher.publishEvent(new ComandaCambiadaEvent(id));
         return comandaMapper.toDto(updatedComanda);
     }
 
     public void deleteById(Integer id) {
-        if (!comandaRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Comanda no encontrada con ID: " + id);
-        }
+        Comanda comanda = comandaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Comanda no encontrada con ID: " + id));
+        ventasDiariasService.registrar(detalleComandaRepository.findByComandaIdComanda(id), -1);
+        salesTimeSeries.registrarComanda(comanda.getFecha(), -1);
         comandaRepository.deleteById(id);
+        eventPublisher.publishEvent(new ComandaCambiadaEvent(id, ComandaCambiadaEvent.Tipo.ELIMINADA));
     }
 
     // Métodos de búsqueda
+    /**
+     * Comandas abiertas de una mesa, servidas desde el tablero en memoria.
+     */
+    @Transactional(readOnly = true)
+    public List<ComandaDTO> findActivasByMesaId(Integer idMesa) {
+        if (comandaBoard.estaCargado()) {
+            return comandaBoard.porMesa(idMesa);
+        }
+        List<Comanda> comandas = comandaRepository.findConRelacionesByMesaIdMesa(idMesa).stream()
+                .filter(c -> c.getEstado() == null
+                        || !EstadoConstants.COMANDA_PAGADA_ID.equals(c.getEstado().getIdEstado()))
+                .toList();
+        return toDtoListConDetalles(comandas);
+    }
+
     @Transactional(readOnly = true)
     public List<ComandaDTO> findByMesaId(Integer idMesa) {
-        List<Comanda> comandas = comandaRepository.findByMesaIdMesa(idMesa);
-        return comandaMapper.toDtoList(comandas);
+        List<Comanda> comandas = comandaRepository.findConRelacionesByMesaIdMesa(idMesa);
+        return toDtoListConDetalles(comandas);
     }
 
     @Transactional(readOnly = true)
     public List<ComandaDTO> findByMeseroId(String idMesero) {
-        List<Comanda> comandas = comandaRepository.findByMeseroIdUsuario(idMesero);
-        return comandaMapper.toDtoList(comandas);
+        List<Comanda> comandas = comandaRepository.findConRelacionesByMeseroIdUsuario(idMesero);
+        return toDtoListConDetalles(comandas);
     }
 
     @Transactional(readOnly = true)
     public List<ComandaDTO> findByCocineroId(String idCocinero) {
-        List<Comanda> comandas = comandaRepository.findByCocineroIdUsuario(idCocinero);
-        return comandaMapper.toDtoList(comandas);
+        List<Comanda> comandas = comandaRepository.findConRelacionesByCocineroIdUsuario(idCocinero);
+        return toDtoListConDetalles(comandas);
     }
 
     @Transactional(readOnly = true)
     public List<ComandaDTO> findByEstadoId(Integer idEstado) {
-        List<Comanda> comandas = comandaRepository.findByEstadoIdEstado(idEstado);
-        return comandaMapper.toDtoList(comandas);
+        if (comandaBoard.cubreEstado(idEstado)) {
+            return comandaBoard.porEstado(idEstado);
+        }
+        List<Comanda> comandas = comandaRepository.findConRelacionesByEstadoIdEstado(idEstado);
+        return toDtoListConDetalles(comandas);
     }
 
     @Transactional(readOnly = true)
     public List<ComandaDTO> findByFechaBetween(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        List<Comanda> comandas = comandaRepository.findByFechaBetween(fechaInicio, fechaFin);
-        return comandaMapper.toDtoList(comandas);
+        List<Comanda> comandas = comandaRepository.findConRelacionesByFechaBetween(fechaInicio, fechaFin);
+        return toDtoListConDetalles(comandas);
+    }
+
+    /**
+     * Entrega cada comanda del rango al consumidor sin materializar la lista.
+     * Cada comanda se desvincula del contexto de persistencia tras procesarla,
+     * de modo que la memoria usada no crece con el número de filas.
+     */
+    @Transactional(readOnly = true)
+    public void exportarPorFecha(LocalDateTime fechaInicio, LocalDateTime fechaFin, Consumer<ComandaDTO> consumidor) {
+        try (Stream<Comanda> comandas = comandaRepository.streamByFechaBetween(fechaInicio, fechaFin)) {
+            comandas.forEach(comanda -> {
+                consumidor.accept(comandaMapper.toDto(comanda));
+                entityManager.detach(comanda);
+            });
+        }
+    }
+
+    // Métodos paginados por keyset (cursor opaco + límite)
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<ComandaDTO> findPagina(String cursor, Integer limit) {
+        CursorUtil.ComandaCursor posicion = CursorUtil.decodeComanda(cursor);
+        return paginar(limit, pageable -> comandaRepository.findPagina(
+                posicion.fecha(), posicion.idComanda(), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<ComandaDTO> findPaginaByEstadoId(Integer idEstado, String cursor, Integer limit) {
+        CursorUtil.ComandaCursor posicion = CursorUtil.decodeComanda(cursor);
+        if (comandaBoard.cubreEstado(idEstado)) {
+            return paginarEnMemoria(comandaBoard.porEstado(idEstado), posicion, limit);
+        }
+        return paginar(limit, pageable -> comandaRepository.findPaginaByEstado(
+                idEstado, posicion.fecha(), posicion.idComanda(), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<ComandaDTO> findPaginaByMeseroId(String idMesero, String cursor, Integer limit) {
+        CursorUtil.ComandaCursor posicion = CursorUtil.decodeComanda(cursor);
+        return paginar(limit, pageable -> comandaRepository.findPaginaByMesero(
+                idMesero, posicion.fecha(), posicion.idComanda(), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<ComandaDTO> findPaginaByFechaBetween(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+            String cursor, Integer limit) {
+        CursorUtil.ComandaCursor posicion = CursorUtil.decodeComanda(cursor);
+        return paginar(limit, pageable -> comandaRepository.findPaginaByFechaBetween(
+                fechaInicio, fechaFin, posicion.fecha(), posicion.idComanda(), pageable));
     }
 
     @Transactional(readOnly = true)
     public List<ComandaDTO> findComandasActivas() {
+        if (comandaBoard.estaCargado()) {
+            return comandaBoard.activas();
+        }
         // Comandas activas = todas excepto las que están en estado "Pagada" (ID 5)
-        List<Comanda> comandas = comandaRepository.findByEstadoIdEstadoNot(5);
-        return comandaMapper.toDtoList(comandas);
+        List<Comanda> comandas = comandaRepository.findConRelacionesByEstadoIdEstadoNot(
+                EstadoConstants.COMANDA_PAGADA_ID);
+        return toDtoListConDetalles(comandas);
     }
 
     @Transactional(readOnly = true)
     public List<ComandaDTO> findComandasHoy() {
         LocalDateTime inicioDia = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
         LocalDateTime finDia = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-        List<Comanda> comandas = comandaRepository.findByFechaBetween(inicioDia, finDia);
+        List<Comanda> comandas = comandaRepository.findConRelacionesByFechaBetween(inicioDia, finDia);
+        return toDtoListConDetalles(comandas);
+    }
+
+    /**
+     * Mapea las comandas cargando antes sus detalles y productos en bloques de
+     * IDs, de modo que el número de consultas no depende del número de comandas.
+     */
+    private List<ComandaDTO> toDtoListConDetalles(List<Comanda> comandas) {
+        for (int i = 0; i < comandas.size(); i += IN_CHUNK_SIZE) {
+            List<Integer> ids = comandas.subList(i, Math.min(i + IN_CHUNK_SIZE, comandas.size())).stream()
+                    .map(Comanda::getIdComanda)
+                    .toList();
+            comandaRepository.findConDetallesByIdComandaIn(ids);
+        }
         return comandaMapper.toDtoList(comandas);
     }
+
+    /**
+     * Pide una fila más que el límite para saber si existe página siguiente sin
+     * necesidad de un COUNT.
+     */
+    private PaginaCursorDTO<ComandaDTO> paginar(Integer limit, Function<Pageable, List<Comanda>> consulta) {
+        int tamano = normalizarLimite(limit);
+        List<Comanda> comandas = consulta.apply(PageRequest.ofSize(tamano + 1));
+
+        String nextCursor = null;
+        if (comandas.size() > tamano) {
+            comandas = comandas.subList(0, tamano);
+            Comanda ultima = comandas.get(tamano - 1);
+            nextCursor = CursorUtil.encode(ultima.getFecha(), ultima.getIdComanda());
+        }
+        return new PaginaCursorDTO<>(toDtoListConDetalles(comandas), nextCursor);
+    }
+
+    /**
+     * Aplica el mismo corte por keyset sobre una lista ya ordenada por
+     * ComandaBoard.ORDEN_RECIENTE, para que los cursores sean intercambiables.
+     */
+    private PaginaCursorDTO<ComandaDTO> paginarEnMemoria(List<ComandaDTO> ordenadas,
+            CursorUtil.ComandaCursor posicion, Integer limit) {
+        int tamano = normalizarLimite(limit);
+        List<ComandaDTO> pagina = ordenadas.stream()
+                .filter(c -> c.getFecha() != null && (c.getFecha().isBefore(posicion.fecha())
+                        || (c.getFecha().isEqual(posicion.fecha()) && c.getIdComanda() < posicion.idComanda())))
+                .limit(tamano + 1L)
+                .toList();
+
+        String nextCursor = null;
+        if (pagina.size() > tamano) {
+            pagina = pagina.subList(0, tamano);
+            ComandaDTO ultima = pagina.get(tamano - 1);
+            nextCursor = CursorUtil.encode(ultima.getFecha(), ultima.getIdComanda());
+        }
+        return new PaginaCursorDTO<>(pagina, nextCursor);
+    }
+
+    private int normalizarLimite(Integer limit) {
+        if (limit == null) {
+            return ApiConstants.DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > ApiConstants.MAX_PAGE_SIZE) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + ApiConstants.MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    private Comanda prepararComanda(ComandaDTO comandaDTO) {
+        Comanda comanda = comandaMapper.toEntity(comandaDTO);
+
+        // Establecer fecha si no existe
+        if (comanda.getFecha() == null) {
+            comanda.setFecha(LocalDateTime.now());
+        }
+
+        // Validar y establecer relaciones
+        asignarRelaciones(comanda, comandaDTO.getMesaId(), comandaDTO.getMeseroId(),
+                comandaDTO.getCocineroId(), comandaDTO.getEstadoId());
+
+        if (comandaDTO.getEstadoId() == null) {
+            // Estado por defecto: "Pendiente" (ID 1)
+            Estado estadoPendiente = referenceDataRegistry.findEstado(EstadoConstants.COMANDA_PENDIENTE_ID)
+                    .orElseThrow(() -> new ResourceNotFoundException("Estado 'Pendiente' no encontrado"));
+            comanda.setEstado(estadoPendiente);
+        }
+
+        return comanda;
+    }
+
+    /**
+     * Valida y asigna las relaciones con una consulta por tabla como máximo:
+     * la mesa por ID, mesero y cocinero juntos con un único findAllById y el
+     * estado desde el registro en memoria. Los IDs nulos se omiten.
+     */
+    private void asignarRelaciones(Comanda comanda, Integer mesaId, String meseroId, String cocineroId,
+            Integer estadoId) {
+        if (mesaId != null) {
+            Mesa mesa = mesaRepository.findById(mesaId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Mesa no encontrada con ID: " + mesaId));
+            comanda.setMesa(mesa);
+        }
+
+        if (meseroId != null || cocineroId != null) {
+            Set<String> ids = new HashSet<>();
+            if (meseroId != null)
+                ids.add(meseroId);
+            if (cocineroId != null)
+                ids.add(cocineroId);
+
+            Map<String, Usuario> usuarios = new HashMap<>();
+            for (Usuario usuario : usuarioRepository.findAllById(ids)) {
+                usuarios.put(usuario.getIdUsuario(), usuario);
+            }
+
+            if (meseroId != null) {
+                Usuario mesero = usuarios.get(meseroId);
+                if (mesero == null)
+                    throw new ResourceNotFoundException("Mesero no encontrado con ID: " + meseroId);
+                comanda.setMesero(mesero);
+            }
+            if (cocineroId != null) {
+                Usuario cocinero = usuarios.get(cocineroId);
+                if (cocinero == null)
+                    throw new ResourceNotFoundException("Cocinero no encontrado con ID: " + cocineroId);
+                comanda.setCocinero(cocinero);
+            }
+        }
+
+        if (estadoId != null) {
+            Estado estado = referenceDataRegistry.findEstado(estadoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Estado no encontrado con ID: " + estadoId));
+            comanda.setEstado(estado);
+        }
+    }
+
+    private static <T> T siCambia(T nuevo, T actual) {
+        return nuevo != null && !nuevo.equals(actual) ? nuevo : null;
+    }
+
+    private Map<Integer, Producto> cargarProductos(List<DetalleComandaDTO> lineas) {
+        Set<Integer> ids = new HashSet<>();
+        for (DetalleComandaDTO linea : lineas) {
+            if (linea.getProductoId() == null)
+                throw new BadRequestException("El ID del producto es obligatorio");
+            if (!ids.add(linea.getProductoId()))
+                throw new BadRequestException(
+                        "El producto con ID " + linea.getProductoId() + " está repetido en la comanda.");
+        }
+
+        Map<Integer, Producto> productos = new HashMap<>();
+        for (Producto producto : productoRepository.findAllById(ids)) {
+            productos.put(producto.getIdProducto(), producto);
+        }
+        for (Integer id : ids) {
+            if (!productos.containsKey(id))
+                throw new ResourceNotFoundException("Producto no encontrado con ID: " + id);
+        }
+        return productos;
+    }
 }
\ No newline at end of file
@@ -1,13 +1,36 @@
 package com.example.demo.application.service;
 
+import com.example.demo.domain.dto.MesaPlanoDTO;
+import com.example.demo.domain.entity.Estado;
 import com.example.demo.infrastructure.web.dto.EstadisticasDTO;
+import com.example.demo.infrastructure.web.dto.PlanoMesasDTO;
+import com.example.demo.infrastructure.web.dto.RankingVentasDTO;
+import com.example.demo.infrastructure.web.dto.SerieVentasDTO;
 import com.example.demo.infrastructure.persistence.repository.*;
+import com.example.demo.shared.constants.EstadoConstants;
+import com.example.demo.shared.exception.BadRequestException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Estadísticas del dashboard. Las ventas salen del acumulado ventas_diarias
+ * (una fila por día, producto y mesero) y los conteos de comandas de
+ * agregados SQL sobre los índices de comandas: ninguna llamada carga
+ * comandas en memoria. La jornada en curso y el plano de mesas se sirven de
+ * LiveSalesCounters y MesaStateIndex sin consultar la base de datos.
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -17,24 +40,145 @@ public class DashboardService {
     private final MesaRepository mesaRepository;
     private final ProductoRepository productoRepository;
     private final ComandaRepository comandaRepository;
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final LiveSalesCounters liveSalesCounters;
+    private final MesaStateIndex mesaStateIndex;
+    private final SalesTimeSeries salesTimeSeries;
+    private final RankingVentasService rankingVentasService;
 
     public EstadisticasDTO getEstadisticasGenerales() {
+        long totalComandas = comandaRepository.count();
+        VentaDiariaRepository.ResumenVentas ventas = ventaDiariaRepository.resumirTodo();
+
         return EstadisticasDTO.builder()
-                .totalComandas(comandaRepository.count())
+                .totalComandas(totalComandas)
                 .totalProductos(productoRepository.count())
                 .totalMesas(mesaRepository.count())
                 .totalUsuarios(usuarioRepository.count())
+                .productosVendidos(ventas.getCantidad())
+                .ventasTotales(ventas.getImporte())
+                .promedioVentas(promedio(ventas.getImporte(), totalComandas))
                 .build();
     }
 
+    // Sin transacción: no se pide conexión al pool para leer contadores en memoria
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EstadisticasDTO getEstadisticasHoy() {
-        LocalDateTime inicioDia = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime finDia = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
+        LiveSalesCounters.Resumen hoy = liveSalesCounters.resumen();
+        return EstadisticasDTO.builder()
+                .totalComandas(hoy.comandas())
+                .productosVendidos(hoy.unidades())
+                .ventasTotales(hoy.importe())
+                .promedioVentas(promedio(hoy.importe(), hoy.comandas()))
+                .comandasPorEstado(porNombreDeEstado(hoy.comandasPorEstado()))
+                .unidadesPorProducto(hoy.unidadesPorProducto())
+                .ventasPorMesero(hoy.importePorMesero())
+                .build();
+    }
+
+    /**
+     * Plano del salón agrupado por ubicación, con las mesas ocupadas y las
+     * comandas de la jornada aún sin pagar, por estado.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PlanoMesasDTO getEstadoMesas() {
+        Map<String, List<MesaPlanoDTO>> ubicaciones = mesaStateIndex.porUbicacion();
+        long total = 0;
+        long ocupadas = 0;
+        for (List<MesaPlanoDTO> mesas : ubicaciones.values()) {
+            total += mesas.size();
+            ocupadas += mesas.stream().filter(MesaStateIndex::estaOcupada).count();
+        }
+
+        Map<Integer, Long> abiertas = new HashMap<>(liveSalesCounters.resumen().comandasPorEstado());
+        abiertas.remove(EstadoConstants.COMANDA_PAGADA_ID);
+        return PlanoMesasDTO.builder()
+                .totalMesas(total)
+                .mesasOcupadas(ocupadas)
+                .mesasDisponibles(total - ocupadas)
+                .comandasPorEstado(porNombreDeEstado(abiertas))
+                .ubicaciones(ubicaciones)
+                .build();
+    }
+
+    /**
+     * Estadísticas de las comandas con fecha entre los días indicados (ambos incluidos).
+     */
+    public EstadisticasDTO getEstadisticas(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || desde.isAfter(hasta))
+            throw new BadRequestException("El rango de fechas no es válido");
+
+        LocalDateTime inicio = desde.atStartOfDay();
+        LocalDateTime fin = hasta.plusDays(1).atStartOfDay();
+
+        long totalComandas = comandaRepository.contarEntre(inicio, fin);
+        VentaDiariaRepository.ResumenVentas ventas = ventaDiariaRepository.resumirEntre(desde, hasta);
 
-        long comandasHoy = comandaRepository.findByFechaBetween(inicioDia, finDia).size();
+        Map<Integer, Long> conteos = new LinkedHashMap<>();
+        for (ComandaRepository.ConteoPorEstado conteo : comandaRepository.contarPorEstadoEntre(inicio, fin)) {
+            conteos.put(conteo.getIdEstado(), conteo.getCantidad());
+        }
 
         return EstadisticasDTO.builder()
-                .totalComandas(comandasHoy)
+                .totalComandas(totalComandas)
+                .productosVendidos(ventas.getCantidad())
+                .ventasTotales(ventas.getImporte())
+                .promedioVentas(promedio(ventas.getImporte(), totalComandas))
+                .comandasPorEstado(porNombreDeEstado(conteos))
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Serie de ventas, unidades y comandas en [desde, hasta) servida desde los
+     * tramos en memoria de SalesTimeSeries.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SerieVentasDTO getSerie(String granularidad, LocalDateTime desde, LocalDateTime hasta) {
+        SalesTimeSeries.Serie serie = salesTimeSeries.serie(
+                SalesTimeSeries.Granularidad.de(granularidad), desde, hasta);
+
+        List<BigDecimal> ventas = new ArrayList<>(serie.centimos().length);
+        for (long centimos : serie.centimos()) {
+            ventas.add(BigDecimal.valueOf(centimos, 2));
+        }
+        return SerieVentasDTO.builder()
+                .granularidad(serie.granularidad().name())
+                .desde(serie.desde())
+                .hasta(serie.hasta())
+                .minutosPorPunto(serie.granularidad().minutos())
+                .completa(serie.completa())
+                .ventas(ventas)
+                .unidades(serie.unidades())
+                .comandas(serie.comandas())
+                .build();
+    }
+
+    /**
+     * Productos más y menos vendidos y ventas por categoría entre dos días
+     * (ambos incluidos). RankingVentasService abre su propia transacción solo
+     * si el resultado no está en caché.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RankingVentasDTO getRanking(LocalDate desde, LocalDate hasta, Integer k, Integer categoriaId,
+            String criterio) {
+        return rankingVentasService.ranking(desde, hasta, k, categoriaId, criterio);
+    }
+
+    private Map<String, Long> porNombreDeEstado(Map<Integer, Long> conteos) {
+        Map<String, Long> porNombre = new LinkedHashMap<>();
+        conteos.forEach((idEstado, cantidad) -> porNombre.put(
+                referenceDataRegistry.findEstado(idEstado)
+                        .map(Estado::getNombre)
+                        .orElse(String.valueOf(idEstado)),
+                cantidad));
+        return porNombre;
+    }
+
+    private static BigDecimal promedio(BigDecimal total, long cantidad) {
+        if (cantidad == 0) {
+            return BigDecimal.ZERO;
+        }
+        return total.divide(BigDecimal.valueOf(cantidad), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -1,24 +1,34 @@
 package com.example.demo.application.service;
 
+import com.example.demo.domain.dto.AjusteLineaDTO;
 import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.dto.PaginaCursorDTO;
 import com.example.demo.domain.entity.Comanda;
 import com.example.demo.domain.entity.DetalleComanda;
 import com.example.demo.domain.entity.Producto;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
 import com.example.demo.domain.mapper.DetalleComandaMapper;
 import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
 import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
 import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
+import com.example.demo.shared.constants.ApiConstants;
 import com.example.demo.shared.exception.BadRequestException;
 import com.example.demo.shared.exception.InsufficientStockException;
 import com.example.demo.shared.exception.ResourceNotFoundException;
+import com.example.demo.shared.util.CursorUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -30,6 +40,9 @@ public class DetalleComandaService {
     private final DetalleComandaMapper detalleComandaMapper;
     private final ComandaRepository comandaRepository;
     private final ProductoRepository productoRepository;
+    private final StockLedger stockLedger;
+    private final VentasDiariasService ventasDiariasService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<DetalleComandaDTO> findAll() {
@@ -68,7 +81,7 @@ public class DetalleComandaService {
             throw new BadRequestException("La cantidad debe ser mayor a 0");
         if (detalleDTO.getCantidad() > 100)
             throw new BadRequestException("La cantidad no puede exceder 100 unidades");
-        if (producto.getStock() < detalleDTO.getCantidad())
+        if (stockLedger.disponible(producto) < detalleDTO.getCantidad())
             throw new InsufficientStockException("Stock insuficiente para '" + producto.getNombre() + "'");
 
         BigDecimal precioUnitario = detalleDTO.getPrecioUnitario() != null
@@ -79,10 +92,8 @@ public class DetalleComandaService {
         if (precioUnitario == null)
             throw new BadRequestException("El precio unitario no está definido");
 
-        boolean productoYaExiste = detalleComandaRepository
-                .findByComandaIdComanda(detalleDTO.getComandaId())
-                .stream()
-                .anyMatch(d -> d.getProducto().getIdProducto().equals(detalleDTO.getProductoId()));
+        boolean productoYaExiste = detalleComandaRepository.existsByComandaIdComandaAndProductoIdProducto(
+                detalleDTO.getComandaId(), detalleDTO.getProductoId());
 
         if (productoYaExiste)
             throw new BadRequestException("El producto '" + producto.getNombre() + "' ya está en esta comanda.");
@@ -100,10 +111,79 @@ public class DetalleComandaService {
         reducirStockProducto(producto, detalleDTO.getCantidad());
 
         DetalleComanda saved = detalleComandaRepository.save(detalle);
+        ajustarTotales(comanda, subtotal, 1);
+        ventasDiariasService.registrar(saved, 1);
+        eventPublisher.publishEvent(new ComandaCambiadaEvent(comanda.getIdComanda()));
         log.info("Detalle creado: {} x {} = {}", producto.getNombre(), detalleDTO.getCantidad(), subtotal);
         return detalleComandaMapper.toDto(saved);
     }
 
+    /**
+     * Suma o resta unidades de un producto en la comanda: una sentencia mueve
+     * el stock y otra hace el upsert de la línea. Una línea que queda en cero
+     * se elimina y se devuelve null.
+     */
+    public DetalleComandaDTO ajustarLinea(Integer idComanda, Integer idProducto, AjusteLineaDTO ajuste) {
+        Integer delta = ajuste.getDelta();
+        if (delta == null || delta == 0)
+            throw new BadRequestException("La variación de cantidad debe ser distinta de 0");
+        Comanda comanda = comandaRepository.findById(idComanda)
+                .orElseThrow(() -> new ResourceNotFoundException("Comanda no encontrada con ID: " + idComanda));
+        Producto producto = productoRepository.findById(idProducto)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + idProducto));
+
+        // Se valida el máximo antes de mover stock o escribir la línea
+        int cantidadActual = detalleComandaRepository.findCantidad(idComanda, idProducto).orElse(0);
+        if (cantidadActual + delta > 100)
+            throw new BadRequestException("La cantidad no puede exceder 100 unidades");
+
+        if (delta > 0) {
+            if (!Boolean.TRUE.equals(producto.getEstado()))
+                throw new BadRequestException("El producto no está disponible");
+            BigDecimal precioUnitario = ajuste.getPrecioUnitario() != null
+                    && ajuste.getPrecioUnitario().compareTo(BigDecimal.ZERO) > 0
+                            ? ajuste.getPrecioUnitario()
+                            : producto.getPrecio();
+            if (precioUnitario == null)
+                throw new BadRequestException("El precio unitario no está definido");
+
+            reducirStockProducto(producto, delta);
+            detalleComandaRepository.sumarCantidad(idComanda, idProducto, precioUnitario, delta);
+        } else {
+            if (detalleComandaRepository.restarCantidad(idComanda, idProducto, -delta) == 0)
+                throw new BadRequestException("La comanda no tiene " + (-delta) + " unidad(es) de '"
+                        + producto.getNombre() + "' para descontar");
+            aumentarStockProducto(producto, -delta);
+        }
+
+        DetalleComanda linea = detalleComandaRepository
+                .findByComandaIdComandaAndProductoIdProducto(idComanda, idProducto)
+                .orElseThrow(() -> new ResourceNotFoundException("Detalle de comanda no encontrado"));
+        // Un ajuste concurrente pudo sumar unidades entre la lectura y el upsert: el rollback lo deshace
+        if (linea.getCantidad() > 100)
+            throw new BadRequestException("La cantidad no puede exceder 100 unidades");
+
+        // La línea guarda su propio precio, así que el subtotal previo se reconstruye con él
+        BigDecimal subtotalAnterior = linea.getPrecioUnitario()
+                .multiply(BigDecimal.valueOf(linea.getCantidad() - delta))
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal deltaSubtotal = linea.getSubtotal().subtract(subtotalAnterior);
+        int deltaLineas = linea.getCantidad().equals(delta) ? 1 : 0;
+
+        boolean eliminada = linea.getCantidad() == 0;
+        if (eliminada) {
+            detalleComandaRepository.delete(linea);
+            deltaLineas = -1;
+        }
+        ajustarTotales(comanda, deltaSubtotal, deltaLineas);
+        ventasDiariasService.registrar(comanda, idProducto, delta, deltaSubtotal);
+        eventPublisher.publishEvent(new ComandaCambiadaEvent(idComanda));
+
+        log.info("Línea ajustada: {} {} en comanda {} (cantidad {})",
+                delta > 0 ? "+" + delta : delta, producto.getNombre(), idComanda, linea.getCantidad());
+        return eliminada ? null : detalleComandaMapper.toDto(linea);
+    }
+
     public DetalleComandaDTO update(Integer id, DetalleComandaDTO detalleDTO) {
         if (id == null || id <= 0)
             throw new BadRequestException("El ID del detalle debe ser un número positivo");
@@ -122,7 +202,7 @@ public class DetalleComandaService {
 
             if (diferencia > 0) {
                 Producto producto = detalleExistente.getProducto();
-                if (producto.getStock() < diferencia)
+                if (stockLedger.disponible(producto) < diferencia)
                     throw new InsufficientStockException("Stock insuficiente para aumentar cantidad");
                 reducirStockProducto(producto, diferencia);
             } else if (diferencia < 0) {
@@ -137,10 +217,18 @@ public class DetalleComandaService {
 
             BigDecimal nuevoSubtotal = precioUnitario.multiply(BigDecimal.valueOf(detalleDTO.getCantidad()))
                     .setScale(2, RoundingMode.HALF_UP);
+            BigDecimal subtotalAnterior = detalleExistente.getSubtotal() != null
+                    ? detalleExistente.getSubtotal()
+                    : BigDecimal.ZERO;
             detalleExistente.setSubtotal(nuevoSubtotal);
+            BigDecimal deltaSubtotal = nuevoSubtotal.subtract(subtotalAnterior);
+            ajustarTotales(detalleExistente.getComanda(), deltaSubtotal, 0);
+            ventasDiariasService.registrar(detalleExistente.getComanda(),
+                    detalleExistente.getProducto().getIdProducto(), diferencia, deltaSubtotal);
         }
 
         DetalleComanda updated = detalleComandaRepository.save(detalleExistente);
+        eventPublisher.publishEvent(new ComandaCambiadaEvent(detalleExistente.getComanda().getIdComanda()));
         log.info("Detalle actualizado: Cantidad {} - Subtotal {}", updated.getCantidad(), updated.getSubtotal());
         return detalleComandaMapper.toDto(updated);
     }
@@ -153,6 +241,10 @@ public class DetalleComandaService {
 
         aumentarStockProducto(detalle.getProducto(), detalle.getCantidad());
         detalleComandaRepository.deleteById(id);
+        ajustarTotales(detalle.getComanda(),
+                detalle.getSubtotal() != null ? detalle.getSubtotal().negate() : BigDecimal.ZERO, -1);
+        ventasDiariasService.registrar(detalle, -1);
+        eventPublisher.publishEvent(new ComandaCambiadaEvent(detalle.getComanda().getIdComanda()));
         log.info("Detalle eliminado: {} x {}", detalle.getProducto().getNombre(), detalle.getCantidad());
     }
 
@@ -172,34 +264,91 @@ public class DetalleComandaService {
         return detalleComandaMapper.toDtoList(detalles);
     }
 
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<DetalleComandaDTO> findPagina(String cursor, Integer limit) {
+        Integer desde = CursorUtil.decodeId(cursor);
+        return paginar(limit, pageable -> detalleComandaRepository
+                .findByIdDetalleComandaLessThanOrderByIdDetalleComandaDesc(desde, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<DetalleComandaDTO> findPaginaByProductoId(Integer idProducto, String cursor,
+            Integer limit) {
+        if (!productoRepository.existsById(idProducto))
+            throw new ResourceNotFoundException("Producto no encontrado con ID: " + idProducto);
+        Integer desde = CursorUtil.decodeId(cursor);
+        return paginar(limit, pageable -> detalleComandaRepository
+                .findByProductoIdProductoAndIdDetalleComandaLessThanOrderByIdDetalleComandaDesc(
+                        idProducto, desde, pageable));
+    }
+
     public void deleteByComandaId(Integer idComanda) {
         List<DetalleComanda> detalles = detalleComandaRepository.findByComandaIdComanda(idComanda);
         for (DetalleComanda detalle : detalles) {
             aumentarStockProducto(detalle.getProducto(), detalle.getCantidad());
         }
         detalleComandaRepository.deleteByComandaIdComanda(idComanda);
+        comandaRepository.reiniciarTotales(idComanda);
+        if (!detalles.isEmpty()) {
+            releerTotales(detalles.get(0).getComanda());
+        }
+        ventasDiariasService.registrar(detalles, -1);
+        eventPublisher.publishEvent(new ComandaCambiadaEvent(idComanda));
         log.info("Se eliminaron {} detalles de la comanda {}", detalles.size(), idComanda);
     }
 
     @Transactional(readOnly = true)
     public BigDecimal calcularTotalComanda(Integer idComanda) {
-        List<DetalleComanda> detalles = detalleComandaRepository.findByComandaIdComanda(idComanda);
-        BigDecimal total = detalles.stream()
-                .map(DetalleComanda::getSubtotal)
-                .filter(s -> s != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
+        BigDecimal total = comandaRepository.findTotalByIdComanda(idComanda)
+                .orElse(BigDecimal.ZERO)
                 .setScale(2, RoundingMode.HALF_UP);
         log.info("Total calculado para comanda {}: {}", idComanda, total);
         return total;
     }
 
+    private PaginaCursorDTO<DetalleComandaDTO> paginar(Integer limit,
+            Function<Pageable, List<DetalleComanda>> consulta) {
+        int tamano = limit == null ? ApiConstants.DEFAULT_PAGE_SIZE : limit;
+        if (tamano < 1 || tamano > ApiConstants.MAX_PAGE_SIZE)
+            throw new BadRequestException("El límite debe estar entre 1 y " + ApiConstants.MAX_PAGE_SIZE);
+
+        List<DetalleComanda> detalles = consulta.apply(PageRequest.ofSize(tamano + 1));
+        String nextCursor = null;
+        if (detalles.size() > tamano) {
+            detalles = detalles.subList(0, tamano);
+            nextCursor = CursorUtil.encode(detalles.get(tamano - 1).getIdDetalleComanda());
+        }
+        return new PaginaCursorDTO<>(detalleComandaMapper.toDtoList(detalles), nextCursor);
+    }
+
+    private void ajustarTotales(Comanda comanda, BigDecimal deltaTotal, int deltaLineas) {
+        comandaRepository.ajustarTotales(comanda.getIdComanda(), deltaTotal, deltaLineas);
+        releerTotales(comanda);
+    }
+
+    /**
+     * Los UPDATE de delta no pasan por la entidad: si la comanda ya está cargada
+     * en la transacción se le copian los valores que quedaron en la base de
+     * datos, para que nadie la mapee con el total anterior. Un proxy sin
+     * inicializar no hace falta: al cargarse ya leerá los valores nuevos.
+     */
+    private void releerTotales(Comanda comanda) {
+        if (!Hibernate.isInitialized(comanda)) {
+            return;
+        }
+        comandaRepository.findTotalesByIdComanda(comanda.getIdComanda()).ifPresent(totales -> {
+            comanda.setTotal(totales.getTotal());
+            comanda.setCantidadLineas(totales.getCantidadLineas());
+        });
+    }
+
     private void reducirStockProducto(Producto producto, Integer cantidad) {
-        producto.setStock(producto.getStock() - cantidad);
-        productoRepository.save(producto);
+        // La comprobación previa solo adelanta el error; el UPDATE condicional decide
+        if (!stockLedger.descontar(producto.getIdProducto(), cantidad))
+            throw new InsufficientStockException("Stock insuficiente para '" + producto.getNombre() + "'");
     }
 
     private void aumentarStockProducto(Producto producto, Integer cantidad) {
-        producto.setStock(producto.getStock() + cantidad);
-        productoRepository.save(producto);
+        stockLedger.reponer(producto.getIdProducto(), cantidad);
     }
 }
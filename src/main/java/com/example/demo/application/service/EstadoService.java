@@ -21,19 +21,20 @@ public class EstadoService {
 
     private final EstadoRepository estadoRepository;
     private final EstadoMapper estadoMapper;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
     // ---------- MÉTODOS PRINCIPALES ---------- //
 
     @Transactional(readOnly = true)
     public List<EstadoDTO> findAll() {
         log.info("Obteniendo todos los estados");
-        return estadoMapper.toDtoList(estadoRepository.findAll());
+        return estadoMapper.toDtoList(referenceDataRegistry.estados());
     }
 
     @Transactional(readOnly = true)
     public EstadoDTO findById(Integer id) {
         validarId(id);
-        Estado estado = estadoRepository.findById(id)
+        Estado estado = referenceDataRegistry.findEstado(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Estado no encontrado con ID: " + id));
         return estadoMapper.toDto(estado);
     }
@@ -41,7 +42,7 @@ public class EstadoService {
     @Transactional(readOnly = true)
     public EstadoDTO findByNombre(String nombre) {
         String nombreValido = validarNombreNoVacio(nombre);
-        Estado estado = estadoRepository.findByNombreIgnoreCase(nombreValido)
+        Estado estado = referenceDataRegistry.findEstadoByNombre(nombreValido)
                 .orElseThrow(() -> new ResourceNotFoundException("Estado no encontrado: " + nombreValido));
         return estadoMapper.toDto(estado);
     }
@@ -56,7 +57,9 @@ public class EstadoService {
         Estado estado = estadoMapper.toEntity(estadoDTO);
         estado.setNombre(nombreNormalizado);
 
-        return estadoMapper.toDto(estadoRepository.save(estado));
+        Estado saved = estadoRepository.save(estado);
+        referenceDataRegistry.invalidarEstados();
+        return estadoMapper.toDto(saved);
     }
 
     public EstadoDTO update(Integer id, EstadoDTO estadoDTO) {
@@ -72,7 +75,9 @@ public class EstadoService {
         estadoMapper.updateEntityFromDto(estadoDTO, estadoExistente);
         estadoExistente.setNombre(nombreNormalizado);
 
-        return estadoMapper.toDto(estadoRepository.save(estadoExistente));
+        Estado updated = estadoRepository.save(estadoExistente);
+        referenceDataRegistry.invalidarEstados();
+        return estadoMapper.toDto(updated);
     }
 
     public void deleteById(Integer id) {
@@ -84,6 +89,7 @@ public class EstadoService {
         }
 
         estadoRepository.deleteById(id);
+        referenceDataRegistry.invalidarEstados();
         log.info("Estado eliminado exitosamente: {}", estado.getNombre());
     }
 
@@ -91,19 +97,19 @@ public class EstadoService {
     public boolean existsByNombre(String nombre) {
         if (nombre == null || nombre.trim().isEmpty())
             return false;
-        return estadoRepository.existsByNombreIgnoreCase(nombre.trim().toUpperCase());
+        return referenceDataRegistry.findEstadoByNombre(nombre).isPresent();
     }
 
     @Transactional(readOnly = true)
     public List<EstadoDTO> getEstadosParaMesas() {
         List<String> nombres = List.of("DISPONIBLE", "OCUPADA", "RESERVADA");
-        return estadoMapper.toDtoList(estadoRepository.findByNombreIn(nombres));
+        return estadoMapper.toDtoList(referenceDataRegistry.findEstadosByNombre(nombres));
     }
 
     @Transactional(readOnly = true)
     public List<EstadoDTO> getEstadosParaComandas() {
         List<String> nombres = List.of("PENDIENTE", "EN_PROCESO", "COMPLETADA", "CANCELADA");
-        return estadoMapper.toDtoList(estadoRepository.findByNombreIn(nombres));
+        return estadoMapper.toDtoList(referenceDataRegistry.findEstadosByNombre(nombres));
     }
 
     // ---------- MÉTODOS PRIVADOS DE VALIDACIÓN ---------- //
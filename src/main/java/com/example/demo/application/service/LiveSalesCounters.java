@@ -0,0 +1,252 @@
+package com.example.demo.application.service;
+
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.entity.VentaDiariaId;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaBatchRepository.Movimiento;
+import com.example.demo.shared.constants.EstadoConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores en memoria de las ventas de la jornada en curso.
+ *
+ * Unidades e importe (en céntimos), en total, por producto y por mesero, se
+ * suman en LongAdder con los deltas que VentasDiariasService confirma tras cada
+ * commit. Las comandas de la jornada por estado se siguen con los
+ * ComandaCambiadaEvent, leyendo el estado del tablero ya actualizado. La
+ * jornada empieza a medianoche más dashboard.ventas.vivo.inicio-jornada; al
+ * cruzar ese límite los contadores se sustituyen por unos vacíos. Al arrancar
+ * se reconstruyen desde la base de datos y después no vuelven a consultarla.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveSalesCounters {
+
+    private final ComandaRepository comandaRepository;
+    private final DetalleComandaRepository detalleComandaRepository;
+    private final ComandaBoard comandaBoard;
+
+    // Desfase del inicio de la jornada respecto a medianoche (PT4H = la jornada cambia a las 04:00)
+    @Value("${dashboard.ventas.vivo.inicio-jornada:PT0S}")
+    private Duration inicioJornada = Duration.ZERO;
+
+    // Nulo hasta la primera reconstrucción: los deltas anteriores ya estarán en la base de datos
+    private final AtomicReference<Jornada> jornada = new AtomicReference<>();
+
+    public record Resumen(LocalDate jornada, long unidades, BigDecimal importe, long comandas,
+            Map<Integer, Long> comandasPorEstado, Map<Integer, Long> unidadesPorProducto,
+            Map<String, BigDecimal> importePorMesero) {
+    }
+
+    /**
+     * Jornada a la que pertenece una comanda con esta fecha.
+     */
+    public LocalDate jornadaDe(LocalDateTime fecha) {
+        return fecha.minus(inicioJornada).toLocalDate();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        Jornada nueva = new Jornada(jornadaDe(LocalDateTime.now()));
+        LocalDateTime inicio = nueva.fecha.atStartOfDay().plus(inicioJornada);
+        LocalDateTime fin = inicio.plusDays(1);
+
+        for (DetalleComandaRepository.VentaPorProductoYMesero venta
+                : detalleComandaRepository.resumirPorProductoYMeseroEntre(inicio, fin)) {
+            nueva.sumar(venta.getIdProducto(), venta.getIdMesero(),
+                    new Movimiento(venta.getCantidad(), venta.getImporte()));
+        }
+        for (ComandaRepository.EstadoDeComanda comanda : comandaRepository.findEstadosEntre(inicio, fin)) {
+            nueva.asignarEstado(comanda.getIdComanda(), comanda.getIdEstado());
+        }
+
+        jornada.set(nueva);
+        log.info("Contadores de ventas de la jornada {} reconstruidos: {} comandas, {} unidades",
+                nueva.fecha, nueva.estadoPorComanda.size(), nueva.unidades.sum());
+    }
+
+    /**
+     * Suma los movimientos confirmados; cada clave lleva la jornada de su
+     * comanda y los de otra jornada se descartan.
+     */
+    public void registrarVentas(Map<VentaDiariaId, Movimiento> movimientos) {
+        Jornada actual = actual();
+        if (actual == null) {
+            return;
+        }
+        movimientos.forEach((clave, movimiento) -> {
+            if (actual.fecha.equals(clave.getFecha())) {
+                actual.sumar(clave.getIdProducto(), clave.getIdMesero(), movimiento);
+            }
+        });
+    }
+
+    // Después del tablero (orden 0), del que se lee el estado ya actualizado
+    @Order(1)
+    @TransactionalEventListener
+    public void onComandaCambiada(ComandaCambiadaEvent event) {
+        Jornada actual = actual();
+        if (actual == null) {
+            return;
+        }
+        Integer idComanda = event.idComanda();
+        if (event.tipo() == ComandaCambiadaEvent.Tipo.ELIMINADA) {
+            actual.quitarComanda(idComanda);
+            return;
+        }
+
+        Optional<ComandaDTO> comanda = comandaBoard.get(idComanda);
+        if (comanda.isPresent()) {
+            LocalDateTime fecha = comanda.get().getFecha();
+            if (fecha != null && actual.fecha.equals(jornadaDe(fecha))) {
+                actual.asignarEstado(idComanda, comanda.get().getEstadoId());
+            } else {
+                actual.quitarComanda(idComanda);
+            }
+        } else if (comandaBoard.estaCargado() && actual.estadoPorComanda.containsKey(idComanda)) {
+            // Una comanda que sale del tablero sin eliminarse es porque quedó pagada
+            actual.asignarEstado(idComanda, EstadoConstants.COMANDA_PAGADA_ID);
+        }
+    }
+
+    public Resumen resumen() {
+        Jornada actual = actual();
+        if (actual == null) {
+            return new Resumen(jornadaDe(LocalDateTime.now()), 0, BigDecimal.ZERO, 0, Map.of(), Map.of(), Map.of());
+        }
+
+        Map<Integer, Long> comandasPorEstado = new HashMap<>();
+        long comandas = 0;
+        for (Map.Entry<Integer, LongAdder> entrada : actual.comandasPorEstado.entrySet()) {
+            long cantidad = entrada.getValue().sum();
+            if (cantidad > 0) {
+                comandasPorEstado.put(entrada.getKey(), cantidad);
+                comandas += cantidad;
+            }
+        }
+
+        Map<Integer, Long> unidadesPorProducto = new HashMap<>();
+        actual.porProducto.forEach((idProducto, contador) -> {
+            long unidades = contador.unidades.sum();
+            if (unidades != 0) {
+                unidadesPorProducto.put(idProducto, unidades);
+            }
+        });
+
+        Map<String, BigDecimal> importePorMesero = new HashMap<>();
+        actual.porMesero.forEach((idMesero, contador) -> {
+            long centimos = contador.centimos.sum();
+            if (centimos != 0) {
+                importePorMesero.put(idMesero, BigDecimal.valueOf(centimos, 2));
+            }
+        });
+
+        return new Resumen(actual.fecha, actual.unidades.sum(), BigDecimal.valueOf(actual.centimos.sum(), 2),
+                comandas, comandasPorEstado, unidadesPorProducto, importePorMesero);
+    }
+
+    /**
+     * Jornada vigente. Si el reloj ya cruzó el inicio de la siguiente, la
+     * sustituye por una vacía; solo gana uno de los hilos que lo detecten.
+     */
+    private Jornada actual() {
+        Jornada actual = jornada.get();
+        if (actual == null) {
+            return null;
+        }
+        LocalDate hoy = jornadaDe(LocalDateTime.now());
+        while (actual.fecha.isBefore(hoy)) {
+            if (jornada.compareAndSet(actual, new Jornada(hoy))) {
+                log.info("Contadores de ventas reiniciados para la jornada {}", hoy);
+            }
+            actual = jornada.get();
+        }
+        return actual;
+    }
+
+    private static long centimos(BigDecimal importe) {
+        return importe == null ? 0 : importe.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static final class Contador {
+        private final LongAdder unidades = new LongAdder();
+        private final LongAdder centimos = new LongAdder();
+
+        private void sumar(long unidades, long centimos) {
+            this.unidades.add(unidades);
+            this.centimos.add(centimos);
+        }
+    }
+
+    private static final class Jornada {
+
+        private final LocalDate fecha;
+        private final LongAdder unidades = new LongAdder();
+        private final LongAdder centimos = new LongAdder();
+        private final Map<Integer, Contador> porProducto = new ConcurrentHashMap<>();
+        private final Map<String, Contador> porMesero = new ConcurrentHashMap<>();
+        private final Map<Integer, Integer> estadoPorComanda = new ConcurrentHashMap<>();
+        private final Map<Integer, LongAdder> comandasPorEstado = new ConcurrentHashMap<>();
+
+        private Jornada(LocalDate fecha) {
+            this.fecha = fecha;
+        }
+
+        private void sumar(Integer idProducto, String idMesero, Movimiento movimiento) {
+            long centimos = centimos(movimiento.importe());
+            unidades.add(movimiento.cantidad());
+            this.centimos.add(centimos);
+            porProducto.computeIfAbsent(idProducto, k -> new Contador()).sumar(movimiento.cantidad(), centimos);
+            if (idMesero != null) {
+                porMesero.computeIfAbsent(idMesero, k -> new Contador()).sumar(movimiento.cantidad(), centimos);
+            }
+        }
+
+        // compute serializa los cambios de una misma comanda; comandas distintas no se esperan
+        private void asignarEstado(Integer idComanda, Integer idEstado) {
+            if (idEstado == null) {
+                return;
+            }
+            estadoPorComanda.compute(idComanda, (id, anterior) -> {
+                if (!idEstado.equals(anterior)) {
+                    if (anterior != null) {
+                        comandasPorEstado.get(anterior).decrement();
+                    }
+                    comandasPorEstado.computeIfAbsent(idEstado, k -> new LongAdder()).increment();
+                }
+                return idEstado;
+            });
+        }
+
+        private void quitarComanda(Integer idComanda) {
+            estadoPorComanda.computeIfPresent(idComanda, (id, anterior) -> {
+                comandasPorEstado.get(anterior).decrement();
+                return null;
+            });
+        }
+    }
+}
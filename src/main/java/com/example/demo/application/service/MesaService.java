@@ -3,14 +3,17 @@ package com.example.demo.application.service;
 import com.example.demo.domain.dto.MesaDTO;
 import com.example.demo.domain.entity.Estado;
 import com.example.demo.domain.entity.Mesa;
+import com.example.demo.domain.event.MesaCambiadaEvent;
 import com.example.demo.domain.mapper.MesaMapper;
-import com.example.demo.infrastructure.persistence.repository.EstadoRepository;
 import com.example.demo.infrastructure.persistence.repository.MesaRepository;
+import com.example.demo.shared.constants.EstadoConstants;
 import com.example.demo.shared.exception.BadRequestException;
 import com.example.demo.shared.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -21,6 +24,7 @@ import java.util.List;
  * - Mesas con capacidad y ubicación
  * - Estados: DISPONIBLE, OCUPADA, RESERVADA
  * - No se pueden eliminar mesas con comandas activas
+ * - Cada cambio publica un MesaCambiadaEvent para el plano de mesas en memoria
  * 
  * USA MAPSTRUCT PARA CONVERSIÓN ENTITY <-> DTO
  */
@@ -31,8 +35,10 @@ import java.util.List;
 public class MesaService {
 
     private final MesaRepository mesaRepository;
-    private final EstadoRepository estadoRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
     private final MesaMapper mesaMapper;
+    private final MesaStateIndex mesaStateIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * LÓGICA: Obtener todas las mesas
@@ -103,7 +109,7 @@ public class MesaService {
         // VALIDACIÓN 4: Estado debe existir, si no se proporciona usar "DISPONIBLE"
         Estado estado;
         if (mesaDTO.getEstadoId() != null) {
-            estado = estadoRepository.findById(mesaDTO.getEstadoId())
+            estado = referenceDataRegistry.findEstado(mesaDTO.getEstadoId())
                     .orElseThrow(() -> {
                         log.error("Estado no encontrado: {}", mesaDTO.getEstadoId());
                         return new ResourceNotFoundException(
@@ -111,7 +117,7 @@ public class MesaService {
                     });
         } else {
             // Estado por defecto: DISPONIBLE
-            estado = estadoRepository.findByNombreIgnoreCase("DISPONIBLE")
+            estado = referenceDataRegistry.findEstadoByNombre(EstadoConstants.MESA_DISPONIBLE)
                     .orElseThrow(() -> new ResourceNotFoundException("Estado 'DISPONIBLE' no encontrado"));
             log.info("Estado no proporcionado, usando DISPONIBLE por defecto");
         }
@@ -122,6 +128,7 @@ public class MesaService {
         mesa.setEstado(estado);
 
         Mesa mesaSaved = mesaRepository.save(mesa);
+        eventPublisher.publishEvent(MesaCambiadaEvent.de(mesaSaved));
         log.info("Mesa creada exitosamente con ID: {} en {}", mesaSaved.getIdMesa(), mesaSaved.getUbicacion());
 
         return mesaMapper.toDto(mesaSaved);
@@ -171,7 +178,7 @@ public class MesaService {
 
         // VALIDACIÓN 5: Estado debe existir
         if (mesaDTO.getEstadoId() != null) {
-            Estado estado = estadoRepository.findById(mesaDTO.getEstadoId())
+            Estado estado = referenceDataRegistry.findEstado(mesaDTO.getEstadoId())
                     .orElseThrow(() -> {
                         log.error("Estado no encontrado: {}", mesaDTO.getEstadoId());
                         return new ResourceNotFoundException(
@@ -189,6 +196,7 @@ public class MesaService {
         }
 
         Mesa mesaUpdated = mesaRepository.save(mesaExistente);
+        eventPublisher.publishEvent(MesaCambiadaEvent.de(mesaUpdated));
         log.info("Mesa actualizada exitosamente: Mesa {} - {}", mesaUpdated.getIdMesa(), mesaUpdated.getUbicacion());
 
         return mesaMapper.toDto(mesaUpdated);
@@ -226,6 +234,7 @@ public class MesaService {
         }
 
         mesaRepository.deleteById(id);
+        eventPublisher.publishEvent(MesaCambiadaEvent.eliminada(id));
         log.info("Mesa eliminada exitosamente: Mesa {} - {}", mesa.getIdMesa(), mesa.getUbicacion());
     }
 
@@ -237,7 +246,7 @@ public class MesaService {
         log.info("Buscando mesas con estado ID: {}", idEstado);
 
         // VALIDACIÓN: Estado debe existir
-        if (!estadoRepository.existsById(idEstado)) {
+        if (referenceDataRegistry.findEstado(idEstado).isEmpty()) {
             log.error("Estado no encontrado: {}", idEstado);
             throw new ResourceNotFoundException("Estado no encontrado con ID: " + idEstado);
         }
@@ -291,10 +300,11 @@ public class MesaService {
     public List<MesaDTO> findMesasDisponibles() {
         log.info("Obteniendo mesas disponibles");
 
-        Estado estadoDisponible = estadoRepository.findByNombreIgnoreCase("DISPONIBLE")
+        Estado estadoDisponible = referenceDataRegistry.findEstadoByNombre(EstadoConstants.MESA_DISPONIBLE)
                 .orElseThrow(() -> new ResourceNotFoundException("Estado 'DISPONIBLE' no encontrado"));
 
-        return findByEstado(estadoDisponible.getIdEstado());
+        List<Mesa> mesas = mesaRepository.findByEstadoIdEstado(estadoDisponible.getIdEstado());
+        return mesaMapper.toDtoList(mesas);
     }
 
     /**
@@ -306,11 +316,12 @@ public class MesaService {
         Mesa mesa = mesaRepository.findById(idMesa)
                 .orElseThrow(() -> new ResourceNotFoundException("Mesa no encontrada con ID: " + idMesa));
 
-        Estado estado = estadoRepository.findById(idEstado)
+        Estado estado = referenceDataRegistry.findEstado(idEstado)
                 .orElseThrow(() -> new ResourceNotFoundException("Estado no encontrado con ID: " + idEstado));
 
         mesa.setEstado(estado);
         Mesa mesaUpdated = mesaRepository.save(mesa);
+        eventPublisher.publishEvent(MesaCambiadaEvent.de(mesaUpdated));
 
         log.info("Estado de mesa {} cambiado a {}", idMesa, estado.getNombre());
         return mesaMapper.toDto(mesaUpdated);
@@ -318,16 +329,26 @@ public class MesaService {
 
     /**
      * LÓGICA: Verificar disponibilidad de mesa
+     * Se responde desde el plano de mesas en memoria; solo antes de que se
+     * cargue se lee la mesa, y el nombre del estado sale del catálogo.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean estaDisponible(Integer idMesa) {
         log.info("Verificando disponibilidad de mesa {}", idMesa);
 
-        Mesa mesa = mesaRepository.findById(idMesa)
-                .orElseThrow(() -> new ResourceNotFoundException("Mesa no encontrada con ID: " + idMesa));
+        String estadoNombre;
+        if (mesaStateIndex.estaCargado()) {
+            estadoNombre = mesaStateIndex.get(idMesa)
+                    .orElseThrow(() -> new ResourceNotFoundException("Mesa no encontrada con ID: " + idMesa))
+                    .getEstadoNombre();
+        } else {
+            Mesa mesa = mesaRepository.findById(idMesa)
+                    .orElseThrow(() -> new ResourceNotFoundException("Mesa no encontrada con ID: " + idMesa));
+            estadoNombre = mesa.getEstado() == null ? null : referenceDataRegistry
+                    .findEstado(mesa.getEstado().getIdEstado()).map(Estado::getNombre).orElse(null);
+        }
 
-        boolean disponible = mesa.getEstado() != null &&
-                mesa.getEstado().getNombre().equalsIgnoreCase("DISPONIBLE");
+        boolean disponible = EstadoConstants.MESA_DISPONIBLE.equalsIgnoreCase(estadoNombre);
 
         log.info("Mesa {} está {}", idMesa, disponible ? "DISPONIBLE" : "OCUPADA/RESERVADA");
         return disponible;
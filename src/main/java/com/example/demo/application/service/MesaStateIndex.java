@@ -0,0 +1,368 @@
+package com.example.demo.application.service;
+
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.MesaPlanoDTO;
+import com.example.demo.domain.entity.Estado;
+import com.example.demo.domain.entity.Mesa;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.example.demo.domain.event.MesaCambiadaEvent;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.MesaRepository;
+import com.example.demo.shared.constants.EstadoConstants;
+import com.example.demo.shared.constants.WebSocketConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Plano del salón en memoria: estado, capacidad, ubicación y comanda activa
+ * de cada mesa, agrupadas por ubicación.
+ *
+ * Se carga al arrancar y se mantiene con los MesaCambiadaEvent de MesaService
+ * y los ComandaCambiadaEvent, leyendo la mesa y la fecha de la comanda del
+ * tablero ya actualizado. Cada mesa que cambia se publica en /topic/mesas, de
+ * modo que el plano de la entrada no necesita volver a consultar la base de
+ * datos. Las lecturas no bloquean; las escrituras se serializan con un
+ * ReentrantLock, como en ComandaBoard: los listeners corren en los hilos de
+ * petición (virtuales en ese modo) y la carga consulta la base de datos.
+ *
+ * La publicación no ocurre en el hilo que confirma la transacción ni con el
+ * cerrojo tomado: los cambios se encolan en orden y un hilo dedicado los
+ * envía, como en ComandaNotificationService.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MesaStateIndex {
+
+    private static final Comparator<MesaPlanoDTO> POR_ID = Comparator.comparing(MesaPlanoDTO::getIdMesa);
+
+    // Comanda activa de una mesa: la de fecha más reciente y, a igual fecha, la de mayor ID
+    private static final Comparator<Map.Entry<Integer, LocalDateTime>> RECIENTE = Map.Entry
+            .<Integer, LocalDateTime>comparingByValue(Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Map.Entry.comparingByKey());
+
+    private final MesaRepository mesaRepository;
+    private final ComandaRepository comandaRepository;
+    private final ComandaBoard comandaBoard;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Map<Integer, MesaPlanoDTO> mesas = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> porUbicacion = new ConcurrentHashMap<>();
+
+    // Solo se tocan con el cerrojo de escritura tomado: comandas activas de cada mesa con su fecha
+    private final Map<Integer, Map<Integer, LocalDateTime>> comandasPorMesa = new HashMap<>();
+    private final Map<Integer, Integer> mesaDeComanda = new HashMap<>();
+
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    private volatile boolean cargado = false;
+
+    @Value("${notificaciones.mesas.capacidad:1000}")
+    private int capacidad;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    private BlockingQueue<MesaPlanoDTO> porPublicar;
+    private Thread despachador;
+
+    @PostConstruct
+    public synchronized void iniciar() {
+        if (despachador != null) {
+            return;
+        }
+        porPublicar = new ArrayBlockingQueue<>(capacidad);
+        Thread.Builder hilo = hilosVirtuales ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        despachador = hilo
+                .name("mesa-notificaciones")
+                .start(this::despachar);
+    }
+
+    @PreDestroy
+    public void detener() {
+        // Sin el cerrojo: un listener en curso puede tenerlo mientras encola
+        Thread hilo = despachador;
+        if (hilo == null) {
+            return;
+        }
+        hilo.interrupt();
+        try {
+            hilo.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        despachador = null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargar() {
+        escritura.lock();
+        try {
+            List<Mesa> todas = mesaRepository.findAll();
+            List<ComandaRepository.ComandaDeMesa> activas = comandaRepository
+                    .findComandasDeMesaByEstadoIdEstadoNot(EstadoConstants.COMANDA_PAGADA_ID);
+
+            mesas.clear();
+            porUbicacion.clear();
+            comandasPorMesa.clear();
+            mesaDeComanda.clear();
+            for (ComandaRepository.ComandaDeMesa comanda : activas) {
+                asignarComanda(comanda.getIdComanda(), comanda.getIdMesa(), comanda.getFecha());
+            }
+            for (Mesa mesa : todas) {
+                indexar(conComandas(base(MesaCambiadaEvent.de(mesa))));
+            }
+            cargado = true;
+            log.info("Plano de mesas cargado con {} mesas y {} comandas activas", mesas.size(), mesaDeComanda.size());
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onMesaCambiada(MesaCambiadaEvent event) {
+        escritura.lock();
+        try {
+            if (!cargado) {
+                return;
+            }
+            Integer idMesa = event.idMesa();
+            if (event.eliminada()) {
+                desindexar(idMesa);
+                comandasPorMesa.remove(idMesa);
+                publicar(MesaPlanoDTO.builder().idMesa(idMesa).eliminada(true).build());
+                return;
+            }
+            actualizar(conComandas(base(event)));
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Después del tablero (orden 0), del que se leen la mesa y la fecha de la comanda
+    @Order(1)
+    @TransactionalEventListener
+    public void onComandaCambiada(ComandaCambiadaEvent event) {
+        escritura.lock();
+        try {
+            if (!cargado || !comandaBoard.estaCargado()) {
+                return;
+            }
+            Integer idComanda = event.idComanda();
+            Optional<ComandaDTO> comanda = event.tipo() == ComandaCambiadaEvent.Tipo.ELIMINADA
+                    ? Optional.empty()
+                    : comandaBoard.get(idComanda);
+
+            // Sin comanda en el tablero: se eliminó o quedó pagada y deja libre su mesa
+            Integer mesaAnterior = quitarComanda(idComanda);
+            Integer mesaNueva = null;
+            if (comanda.isPresent() && comanda.get().getMesaId() != null) {
+                mesaNueva = comanda.get().getMesaId();
+                asignarComanda(idComanda, mesaNueva, comanda.get().getFecha());
+            }
+
+            refrescar(mesaAnterior);
+            if (!Objects.equals(mesaAnterior, mesaNueva)) {
+                refrescar(mesaNueva);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    public Optional<MesaPlanoDTO> get(Integer idMesa) {
+        return Optional.ofNullable(idMesa).map(mesas::get);
+    }
+
+    public List<MesaPlanoDTO> todas() {
+        List<MesaPlanoDTO> resultado = new ArrayList<>(mesas.values());
+        resultado.sort(POR_ID);
+        return resultado;
+    }
+
+    /**
+     * Mesas agrupadas por ubicación, en orden alfabético y por ID dentro de cada una.
+     */
+    public Map<String, List<MesaPlanoDTO>> porUbicacion() {
+        Map<String, List<MesaPlanoDTO>> resultado = new TreeMap<>();
+        porUbicacion.forEach((ubicacion, ids) -> {
+            List<MesaPlanoDTO> lista = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                MesaPlanoDTO mesa = mesas.get(id);
+                if (mesa != null) {
+                    lista.add(mesa);
+                }
+            }
+            if (!lista.isEmpty()) {
+                lista.sort(POR_ID);
+                resultado.put(ubicacion, lista);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Una mesa está ocupada si tiene alguna comanda sin pagar o está marcada como OCUPADA.
+     */
+    public static boolean estaOcupada(MesaPlanoDTO mesa) {
+        return mesa.getIdComandaActiva() != null
+                || EstadoConstants.MESA_OCUPADA.equalsIgnoreCase(mesa.getEstadoNombre());
+    }
+
+    // ---------- ÍNDICES ---------- //
+
+    private MesaPlanoDTO base(MesaCambiadaEvent mesa) {
+        return MesaPlanoDTO.builder()
+                .idMesa(mesa.idMesa())
+                .capacidad(mesa.capacidad())
+                .ubicacion(mesa.ubicacion())
+                .estadoId(mesa.idEstado())
+                .estadoNombre(referenceDataRegistry.findEstado(mesa.idEstado()).map(Estado::getNombre).orElse(null))
+                .build();
+    }
+
+    /**
+     * Completa la mesa con su comanda activa más reciente y la fecha de la más antigua.
+     */
+    private MesaPlanoDTO conComandas(MesaPlanoDTO mesa) {
+        Map<Integer, LocalDateTime> activas = comandasPorMesa.get(mesa.getIdMesa());
+        if (activas == null || activas.isEmpty()) {
+            return mesa.toBuilder().idComandaActiva(null).comandasActivas(0).ocupadaDesde(null).build();
+        }
+        Integer masReciente = Collections.max(activas.entrySet(), RECIENTE).getKey();
+        LocalDateTime primera = activas.values().stream()
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        return mesa.toBuilder()
+                .idComandaActiva(masReciente)
+                .comandasActivas(activas.size())
+                .ocupadaDesde(primera)
+                .build();
+    }
+
+    private void asignarComanda(Integer idComanda, Integer idMesa, LocalDateTime fecha) {
+        comandasPorMesa.computeIfAbsent(idMesa, k -> new HashMap<>()).put(idComanda, fecha);
+        mesaDeComanda.put(idComanda, idMesa);
+    }
+
+    private Integer quitarComanda(Integer idComanda) {
+        Integer idMesa = mesaDeComanda.remove(idComanda);
+        if (idMesa != null) {
+            Map<Integer, LocalDateTime> activas = comandasPorMesa.get(idMesa);
+            if (activas != null) {
+                activas.remove(idComanda);
+                if (activas.isEmpty()) {
+                    comandasPorMesa.remove(idMesa);
+                }
+            }
+        }
+        return idMesa;
+    }
+
+    private void refrescar(Integer idMesa) {
+        MesaPlanoDTO actual = idMesa != null ? mesas.get(idMesa) : null;
+        if (actual != null) {
+            actualizar(conComandas(actual));
+        }
+    }
+
+    /**
+     * Sustituye la mesa en los índices y la publica si algo cambió.
+     */
+    private void actualizar(MesaPlanoDTO mesa) {
+        MesaPlanoDTO anterior = mesas.get(mesa.getIdMesa());
+        if (mesa.equals(anterior)) {
+            return;
+        }
+        if (anterior != null) {
+            desindexar(anterior.getIdMesa());
+        }
+        indexar(mesa);
+        publicar(mesa);
+    }
+
+    private void indexar(MesaPlanoDTO mesa) {
+        mesas.put(mesa.getIdMesa(), mesa);
+        if (mesa.getUbicacion() != null) {
+            porUbicacion.computeIfAbsent(mesa.getUbicacion(), k -> ConcurrentHashMap.newKeySet())
+                    .add(mesa.getIdMesa());
+        }
+    }
+
+    private void desindexar(Integer idMesa) {
+        MesaPlanoDTO anterior = mesas.remove(idMesa);
+        if (anterior != null && anterior.getUbicacion() != null) {
+            porUbicacion.computeIfPresent(anterior.getUbicacion(), (k, ids) -> {
+                ids.remove(idMesa);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Encola la mesa sin bloquear; se llama con el cerrojo tomado, así que la
+     * cola conserva el orden de los cambios.
+     */
+    private void publicar(MesaPlanoDTO mesa) {
+        if (!porPublicar.offer(mesa)) {
+            // El plano en memoria ya está al día; el cliente se resincroniza por REST
+            log.warn("Cola de publicación de mesas llena; se descarta el cambio de la mesa {}", mesa.getIdMesa());
+        }
+    }
+
+    private void despachar() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                enviar(porPublicar.take());
+            }
+        } catch (InterruptedException e) {
+            // Apagado: se envía lo que quede pendiente
+            List<MesaPlanoDTO> resto = new ArrayList<>();
+            porPublicar.drainTo(resto);
+            resto.forEach(this::enviar);
+        }
+    }
+
+    private void enviar(MesaPlanoDTO mesa) {
+        try {
+            messagingTemplate.convertAndSend(WebSocketConstants.TOPIC_MESAS, mesa);
+        } catch (RuntimeException e) {
+            // El plano en memoria ya está al día; el cliente se resincroniza por REST
+            log.warn("No se pudo publicar el cambio de la mesa {}", mesa.getIdMesa(), e);
+        }
+    }
+}
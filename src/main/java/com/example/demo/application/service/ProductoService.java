@@ -4,7 +4,6 @@ import com.example.demo.domain.dto.ProductoDTO;
 import com.example.demo.domain.entity.Categoria;
 import com.example.demo.domain.entity.Producto;
 import com.example.demo.domain.mapper.ProductoMapper;
-import com.example.demo.infrastructure.persistence.repository.CategoriaRepository;
 import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
 import com.example.demo.shared.exception.BadRequestException;
 import com.example.demo.shared.exception.InsufficientStockException;
@@ -24,8 +23,9 @@ import java.util.List;
 public class ProductoService {
 
     private final ProductoRepository productoRepository;
-    private final CategoriaRepository categoriaRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
     private final ProductoMapper productoMapper;
+    private final StockLedger stockLedger;
 
     @Transactional(readOnly = true)
     public List<ProductoDTO> findAll() {
@@ -51,7 +51,7 @@ public class ProductoService {
         log.info("Buscando productos de la categoría: {}", idCategoria);
         if (idCategoria == null || idCategoria <= 0)
             throw new BadRequestException("El ID de la categoría debe ser un número positivo");
-        if (!categoriaRepository.existsById(idCategoria))
+        if (referenceDataRegistry.findCategoria(idCategoria).isEmpty())
             throw new ResourceNotFoundException("Categoría no encontrada con ID: " + idCategoria);
         List<Producto> productos = productoRepository.findByCategoriaIdCategoria(idCategoria);
         return productoMapper.toDtoList(productos);
@@ -95,7 +95,7 @@ public class ProductoService {
         if (productoDTO.getStock() == null || productoDTO.getStock() < 0)
             throw new BadRequestException("El stock no puede ser negativo");
 
-        Categoria categoria = categoriaRepository.findById(productoDTO.getCategoriaId())
+        Categoria categoria = referenceDataRegistry.findCategoria(productoDTO.getCategoriaId())
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Categoría no encontrada con ID: " + productoDTO.getCategoriaId()));
 
@@ -138,7 +138,7 @@ public class ProductoService {
         }
 
         if (productoDTO.getCategoriaId() != null) {
-            Categoria categoria = categoriaRepository.findById(productoDTO.getCategoriaId())
+            Categoria categoria = referenceDataRegistry.findCategoria(productoDTO.getCategoriaId())
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "Categoría no encontrada con ID: " + productoDTO.getCategoriaId()));
             productoExistente.setCategoria(categoria);
@@ -160,6 +160,8 @@ public class ProductoService {
             productoExistente.setEstado(productoDTO.getEstado());
 
         Producto updated = productoRepository.save(productoExistente);
+        if (productoDTO.getStock() != null)
+            stockLedger.fijar(updated.getIdProducto(), updated.getStock());
         log.info("Producto actualizado: {}", updated.getNombre());
         return productoMapper.toDto(updated);
     }
@@ -178,6 +180,7 @@ public class ProductoService {
         }
 
         productoRepository.deleteById(id);
+        stockLedger.olvidar(id);
         log.info("Producto eliminado: {}", producto.getNombre());
     }
 
@@ -188,14 +191,14 @@ public class ProductoService {
 
         if (cantidad == null || cantidad <= 0)
             throw new BadRequestException("La cantidad debe ser mayor a 0");
-        if (producto.getStock() < cantidad)
+        if (stockLedger.disponible(producto) < cantidad)
             throw new InsufficientStockException("Stock insuficiente");
         if (!producto.getEstado())
             throw new BadRequestException("El producto no está activo");
 
-        producto.setStock(producto.getStock() - cantidad);
-        productoRepository.save(producto);
-        log.info("Stock actualizado. Nuevo stock: {}", producto.getStock());
+        if (!stockLedger.descontar(idProducto, cantidad))
+            throw new InsufficientStockException("Stock insuficiente");
+        log.info("Stock del producto {} reducido en {} unidades", idProducto, cantidad);
     }
 
     public void aumentarStock(Integer idProducto, Integer cantidad) {
@@ -206,9 +209,8 @@ public class ProductoService {
         if (cantidad == null || cantidad <= 0)
             throw new BadRequestException("La cantidad debe ser mayor a 0");
 
-        producto.setStock(producto.getStock() + cantidad);
-        productoRepository.save(producto);
-        log.info("Stock actualizado. Nuevo stock: {}", producto.getStock());
+        stockLedger.reponer(idProducto, cantidad);
+        log.info("Stock del producto {} aumentado en {} unidades", idProducto, cantidad);
     }
 
     @Transactional
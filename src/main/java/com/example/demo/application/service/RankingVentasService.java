@@ -0,0 +1,267 @@
+package com.example.demo.application.service;
+
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaRepository;
+import com.example.demo.infrastructure.web.dto.ItemRankingDTO;
+import com.example.demo.infrastructure.web.dto.RankingVentasDTO;
+import com.example.demo.shared.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Ranking de productos y categorías por ventas en un rango de días.
+ *
+ * Las ventas por producto salen agregadas de ventas_diarias y se recorren como
+ * stream: cada fila pasa por dos montículos acotados a K (más y menos
+ * vendidos) y por el acumulado por categoría, de modo que la memoria no
+ * depende del número de productos. El resultado se guarda unos segundos por
+ * (rango, K, categoría, criterio); peticiones iguales que llegan mientras se
+ * calcula esperan ese mismo cálculo. Los aciertos de caché no abren
+ * transacción.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RankingVentasService {
+
+    public static final int K_POR_DEFECTO = 20;
+    private static final int K_MAXIMO = 100;
+
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${dashboard.ranking.ttl:PT1M}")
+    private Duration ttl;
+
+    @Value("${dashboard.ranking.max-entradas:256}")
+    private int maxEntradas;
+
+    // Orden de inserción: la entrada más antigua es la primera en expirar. Protegido por cerrojo, un
+    // ReentrantLock y no un monitor, porque con hilos virtuales la espera en un synchronized fija el hilo portador
+    private final LinkedHashMap<Clave, Entrada> entradas = new LinkedHashMap<>();
+    private final ReentrantLock cerrojo = new ReentrantLock();
+
+    public enum Criterio {
+        CANTIDAD(Fila::cantidad), IMPORTE(f -> f.importe().movePointRight(2).longValue());
+
+        private final ToLongFunction<Fila> valor;
+
+        Criterio(ToLongFunction<Fila> valor) {
+            this.valor = valor;
+        }
+
+        public static Criterio de(String valor) {
+            if (valor == null) {
+                return CANTIDAD;
+            }
+            return switch (valor.trim().toLowerCase(Locale.ROOT)) {
+                case "cantidad", "unidades" -> CANTIDAD;
+                case "importe", "ventas" -> IMPORTE;
+                default -> throw new BadRequestException("Criterio no válido: " + valor);
+            };
+        }
+    }
+
+    private record Clave(LocalDate desde, LocalDate hasta, int k, Integer idCategoria, Criterio criterio) {
+    }
+
+    private record Fila(Integer id, String nombre, Integer idCategoria, String categoria, long cantidad,
+            BigDecimal importe) {
+    }
+
+    public RankingVentasDTO ranking(LocalDate desde, LocalDate hasta, Integer k, Integer idCategoria,
+            String criterio) {
+        if (desde == null || hasta == null || desde.isAfter(hasta))
+            throw new BadRequestException("El rango de fechas no es válido");
+        int tamano = k != null ? k : K_POR_DEFECTO;
+        if (tamano < 1 || tamano > K_MAXIMO)
+            throw new BadRequestException("K debe estar entre 1 y " + K_MAXIMO);
+
+        Clave clave = new Clave(desde, hasta, tamano, idCategoria, Criterio.de(criterio));
+        while (true) {
+            Entrada nueva = new Entrada(System.nanoTime());
+            Entrada existente = reservar(clave, nueva);
+            if (existente == null) {
+                return calcularEn(clave, nueva);
+            }
+            try {
+                return existente.resultado.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido esperando el ranking de ventas", e);
+            } catch (ExecutionException e) {
+                // El cálculo que se esperaba falló y ya no está en la caché: se intenta de nuevo
+                log.debug("Ranking de ventas {} fallido, se recalcula", clave, e.getCause());
+            }
+        }
+    }
+
+    private RankingVentasDTO calcularEn(Clave clave, Entrada entrada) {
+        try {
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            transaccion.setReadOnly(true);
+            RankingVentasDTO resultado = transaccion.execute(estado -> calcular(clave));
+            entrada.resultado.complete(resultado);
+            return resultado;
+        } catch (RuntimeException e) {
+            liberar(clave, entrada);
+            entrada.resultado.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private RankingVentasDTO calcular(Clave clave) {
+        ToLongFunction<Fila> valor = clave.criterio().valor;
+        // Desempate por ID para que el ranking sea estable entre llamadas
+        Comparator<Fila> porVentas = Comparator.comparingLong(valor)
+                .thenComparing(Fila::id, Comparator.reverseOrder());
+        TopK<Fila> masVendidos = new TopK<>(clave.k(), porVentas);
+        TopK<Fila> menosVendidos = new TopK<>(clave.k(), porVentas.reversed());
+        Map<Integer, Fila> categorias = new HashMap<>();
+
+        try (Stream<VentaDiariaRepository.VentaPorProducto> ventas = ventaDiariaRepository
+                .streamVentasPorProductoEntre(clave.desde(), clave.hasta(), clave.idCategoria())) {
+            ventas.forEach(venta -> {
+                Fila fila = new Fila(venta.getIdProducto(), venta.getNombre(), venta.getIdCategoria(),
+                        venta.getCategoria(), venta.getCantidad(), venta.getImporte());
+                masVendidos.ofrecer(fila);
+                // Los productos dados de baja no cuentan como "los que menos venden"
+                if (Boolean.TRUE.equals(venta.getActivo())) {
+                    menosVendidos.ofrecer(fila);
+                }
+                categorias.merge(fila.idCategoria(),
+                        new Fila(fila.idCategoria(), fila.categoria(), null, null, fila.cantidad(), fila.importe()),
+                        (a, b) -> new Fila(a.id(), a.nombre(), null, null,
+                                a.cantidad() + b.cantidad(), a.importe().add(b.importe())));
+            });
+        }
+
+        List<Fila> porCategoria = new ArrayList<>(categorias.values());
+        porCategoria.sort(porVentas.reversed());
+        return RankingVentasDTO.builder()
+                .desde(clave.desde())
+                .hasta(clave.hasta())
+                .k(clave.k())
+                .categoriaId(clave.idCategoria())
+                .criterio(clave.criterio().name().toLowerCase(Locale.ROOT))
+                .masVendidos(toDtoList(masVendidos.mejores()))
+                .menosVendidos(toDtoList(menosVendidos.mejores()))
+                .categorias(toDtoList(porCategoria))
+                .build();
+    }
+
+    private static List<ItemRankingDTO> toDtoList(List<Fila> filas) {
+        return filas.stream()
+                .map(f -> ItemRankingDTO.builder()
+                        .id(f.id())
+                        .nombre(f.nombre())
+                        .categoriaId(f.idCategoria())
+                        .categoria(f.categoria())
+                        .cantidad(f.cantidad())
+                        .importe(f.importe())
+                        .build())
+                .toList();
+    }
+
+    // ---------- CACHÉ ---------- //
+
+    /**
+     * Registra la entrada si la clave no existe (o expiró) y devuelve null;
+     * si ya existe una vigente, la devuelve sin modificar el mapa.
+     */
+    private Entrada reservar(Clave clave, Entrada nueva) {
+        cerrojo.lock();
+        try {
+            long ahora = System.nanoTime();
+            long ttlNanos = ttl.toNanos();
+            Iterator<Entrada> expiradas = entradas.values().iterator();
+            while (expiradas.hasNext() && ahora - expiradas.next().creada >= ttlNanos) {
+                expiradas.remove();
+            }
+
+            Entrada existente = entradas.get(clave);
+            if (existente != null) {
+                return existente;
+            }
+            entradas.put(clave, nueva);
+            while (entradas.size() > maxEntradas) {
+                Iterator<Entrada> it = entradas.values().iterator();
+                it.next();
+                it.remove();
+            }
+            return null;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private void liberar(Clave clave, Entrada entrada) {
+        cerrojo.lock();
+        try {
+            entradas.remove(clave, entrada);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private static final class Entrada {
+        private final long creada;
+        private final CompletableFuture<RankingVentasDTO> resultado = new CompletableFuture<>();
+
+        private Entrada(long creada) {
+            this.creada = creada;
+        }
+    }
+
+    /**
+     * Los K mayores según el comparador. El montículo tiene en la cabeza el
+     * peor de los guardados, así que cada elemento nuevo cuesta O(log K).
+     */
+    private static final class TopK<T> {
+        private final int k;
+        private final Comparator<T> orden;
+        private final PriorityQueue<T> monticulo;
+
+        private TopK(int k, Comparator<T> orden) {
+            this.k = k;
+            this.orden = orden;
+            this.monticulo = new PriorityQueue<>(k + 1, orden);
+        }
+
+        private void ofrecer(T elemento) {
+            if (monticulo.size() < k) {
+                monticulo.add(elemento);
+            } else if (orden.compare(elemento, monticulo.peek()) > 0) {
+                monticulo.poll();
+                monticulo.add(elemento);
+            }
+        }
+
+        private List<T> mejores() {
+            List<T> resultado = new ArrayList<>(monticulo);
+            resultado.sort(orden.reversed());
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.demo.application.service;
+
+import com.example.demo.domain.entity.Categoria;
+import com.example.demo.domain.entity.Estado;
+import com.example.demo.domain.entity.Rol;
+import com.example.demo.infrastructure.persistence.repository.CategoriaRepository;
+import com.example.demo.infrastructure.persistence.repository.EstadoRepository;
+import com.example.demo.infrastructure.persistence.repository.RolRepository;
+import com.example.demo.shared.util.TransaccionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogos de Estado, Rol y Categoría en memoria.
+ *
+ * Cada catálogo es una instantánea inmutable (mapas por ID y por nombre
+ * normalizado) que se reemplaza completa cuando EstadoService, RolService o
+ * CategoriaService confirman una escritura, de modo que los lectores nunca ven
+ * un estado a medias. Las entidades entregadas son copias desvinculadas con
+ * solo ID y nombre: sirven como referencia de clave foránea y para mapear DTOs,
+ * pero no deben modificarse ni usarse para recorrer sus colecciones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataRegistry {
+
+    private final EstadoRepository estadoRepository;
+    private final RolRepository rolRepository;
+    private final CategoriaRepository categoriaRepository;
+
+    private volatile Catalogo<Estado> estados;
+    private volatile Catalogo<Rol> roles;
+    private volatile Catalogo<Categoria> categorias;
+
+    // Serializa las recargas, que consultan la base de datos: ReentrantLock para no fijar hilos virtuales
+    private final ReentrantLock recargaLock = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        recargarEstados();
+        recargarRoles();
+        recargarCategorias();
+        log.info("Catálogos cargados: {} estados, {} roles, {} categorías",
+                estados.todos().size(), roles.todos().size(), categorias.todos().size());
+    }
+
+    // ---------- ESTADOS ---------- //
+
+    public List<Estado> estados() {
+        return catalogoEstados().todos();
+    }
+
+    public Optional<Estado> findEstado(Integer id) {
+        return Optional.ofNullable(id).map(catalogoEstados().porId()::get);
+    }
+
+    public Optional<Estado> findEstadoByNombre(String nombre) {
+        return Optional.ofNullable(nombre).map(n -> catalogoEstados().porNombre().get(normalizar(n)));
+    }
+
+    public List<Estado> findEstadosByNombre(Collection<String> nombres) {
+        Map<String, Estado> porNombre = catalogoEstados().porNombre();
+        return nombres.stream().map(n -> porNombre.get(normalizar(n))).filter(e -> e != null).toList();
+    }
+
+    // ---------- ROLES ---------- //
+
+    public List<Rol> roles() {
+        return catalogoRoles().todos();
+    }
+
+    public Optional<Rol> findRol(Integer id) {
+        return Optional.ofNullable(id).map(catalogoRoles().porId()::get);
+    }
+
+    public Optional<Rol> findRolByNombre(String nombre) {
+        return Optional.ofNullable(nombre).map(n -> catalogoRoles().porNombre().get(normalizar(n)));
+    }
+
+    // ---------- CATEGORÍAS ---------- //
+
+    public List<Categoria> categorias() {
+        return catalogoCategorias().todos();
+    }
+
+    public Optional<Categoria> findCategoria(Integer id) {
+        return Optional.ofNullable(id).map(catalogoCategorias().porId()::get);
+    }
+
+    public Optional<Categoria> findCategoriaByNombre(String nombre) {
+        return Optional.ofNullable(nombre).map(n -> catalogoCategorias().porNombre().get(normalizar(n)));
+    }
+
+    // ---------- RECARGA ---------- //
+
+    /**
+     * Programa la recarga del catálogo de estados tras el commit de la
+     * transacción en curso (o la hace al momento si no hay transacción).
+     */
+    public void invalidarEstados() {
+        TransaccionUtil.trasCommit(this::recargarEstados);
+    }
+
+    public void invalidarRoles() {
+        TransaccionUtil.trasCommit(this::recargarRoles);
+    }
+
+    public void invalidarCategorias() {
+        TransaccionUtil.trasCommit(this::recargarCategorias);
+    }
+
+    public void recargarEstados() {
+        recargaLock.lock();
+        try {
+            estados = Catalogo.de(estadoRepository.findAll(), ReferenceDataRegistry::copiar,
+                    Estado::getIdEstado, Estado::getNombre);
+        } finally {
+            recargaLock.unlock();
+        }
+    }
+
+    public void recargarRoles() {
+        recargaLock.lock();
+        try {
+            roles = Catalogo.de(rolRepository.findAll(), ReferenceDataRegistry::copiar,
+                    Rol::getIdRol, Rol::getNombre);
+        } finally {
+            recargaLock.unlock();
+        }
+    }
+
+    public void recargarCategorias() {
+        recargaLock.lock();
+        try {
+            categorias = Catalogo.de(categoriaRepository.findAll(), ReferenceDataRegistry::copiar,
+                    Categoria::getIdCategoria, Categoria::getNombre);
+        } finally {
+            recargaLock.unlock();
+        }
+    }
+
+    private Catalogo<Estado> catalogoEstados() {
+        return cargado(() -> estados, this::recargarEstados);
+    }
+
+    private Catalogo<Rol> catalogoRoles() {
+        return cargado(() -> roles, this::recargarRoles);
+    }
+
+    private Catalogo<Categoria> catalogoCategorias() {
+        return cargado(() -> categorias, this::recargarCategorias);
+    }
+
+    // Si se consulta antes de ApplicationReadyEvent, el catálogo se carga en ese momento
+    private static <T> Catalogo<T> cargado(Supplier<Catalogo<T>> actual, Runnable recarga) {
+        Catalogo<T> catalogo = actual.get();
+        if (catalogo == null) {
+            recarga.run();
+            catalogo = actual.get();
+        }
+        return catalogo;
+    }
+
+    private static String normalizar(String nombre) {
+        return nombre.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static Estado copiar(Estado estado) {
+        Estado copia = new Estado();
+        copia.setIdEstado(estado.getIdEstado());
+        copia.setNombre(estado.getNombre());
+        return copia;
+    }
+
+    private static Rol copiar(Rol rol) {
+        Rol copia = new Rol();
+        copia.setIdRol(rol.getIdRol());
+        copia.setNombre(rol.getNombre());
+        return copia;
+    }
+
+    private static Categoria copiar(Categoria categoria) {
+        Categoria copia = new Categoria();
+        copia.setIdCategoria(categoria.getIdCategoria());
+        copia.setNombre(categoria.getNombre());
+        return copia;
+    }
+
+    private record Catalogo<T>(List<T> todos, Map<Integer, T> porId, Map<String, T> porNombre) {
+
+        static <T> Catalogo<T> de(List<T> entidades, Function<T, T> copiar,
+                Function<T, Integer> id, Function<T, String> nombre) {
+            List<T> copias = entidades.stream().map(copiar).toList();
+            return new Catalogo<>(
+                    copias,
+                    copias.stream().collect(Collectors.toUnmodifiableMap(id, Function.identity())),
+                    copias.stream().collect(Collectors.toUnmodifiableMap(
+                            e -> normalizar(nombre.apply(e)), Function.identity(), (a, b) -> a)));
+        }
+    }
+}
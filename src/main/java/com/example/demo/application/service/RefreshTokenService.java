@@ -0,0 +1,178 @@
+package com.example.demo.application.service;
+
+import com.example.demo.domain.entity.RefreshToken;
+import com.example.demo.domain.entity.Rol;
+import com.example.demo.infrastructure.persistence.repository.RefreshTokenRepository;
+import com.example.demo.infrastructure.persistence.repository.UsuarioRepository;
+import com.example.demo.shared.exception.InvalidRefreshTokenException;
+import com.example.demo.shared.util.HashUtil;
+import com.example.demo.shared.util.TransaccionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens de refresco rotativos: permiten pedir un access token nuevo sin
+ * repetir el login con contraseña (y su verificación BCrypt).
+ *
+ * El token es un valor aleatorio de 256 bits; en la tabla refresh_tokens
+ * solo se guarda su huella SHA-256. Un índice en memoria por huella con el
+ * usuario, el rol y la familia de cada token vigente evita leer la tabla y
+ * el usuario en cada refresco, y rechaza los tokens desconocidos sin tocar la
+ * base de datos. Cada refresco marca el token como usado y emite otro de la
+ * misma familia; si llega uno ya usado se entiende que fue robado y se revoca
+ * la familia entera. Supone una sola instancia de la aplicación.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class RefreshTokenService {
+
+    private static final int BYTES_TOKEN = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${jwt.refresh.ttl:P7D}")
+    private Duration ttl = Duration.ofDays(7);
+
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+
+    public record Sesion(String idUsuario, String email, String rol, String familia, LocalDateTime expira,
+            boolean usado) {
+
+        private Sesion usada() {
+            return new Sesion(idUsuario, email, rol, familia, expira, true);
+        }
+    }
+
+    /**
+     * Sesión del token presentado y el token que la sustituye.
+     */
+    public record Rotacion(Sesion sesion, String token) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargar() {
+        sesiones.clear();
+        LocalDateTime ahora = LocalDateTime.now();
+        for (RefreshTokenRepository.SesionGuardada guardada : refreshTokenRepository.findVigentes(ahora)) {
+            sesiones.put(guardada.getHash(), new Sesion(guardada.getIdUsuario(), guardada.getEmail(),
+                    nombreRol(guardada.getIdRol()), guardada.getFamilia(), guardada.getExpira(),
+                    Boolean.TRUE.equals(guardada.getUsado())));
+        }
+        log.info("Índice de tokens de refresco cargado con {} tokens vigentes", sesiones.size());
+    }
+
+    /**
+     * Abre una sesión nueva (familia nueva) tras un login con contraseña.
+     */
+    public String emitir(String idUsuario, String email, String rol) {
+        return guardar(idUsuario, email, rol, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consume el token y devuelve otro de la misma sesión. La revocación por
+     * reutilización se confirma aunque la llamada termine con excepción.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotacion rotar(String token) {
+        String hash = huella(token);
+        Sesion sesion = sesiones.get(hash);
+        if (sesion == null || !sesion.expira().isAfter(LocalDateTime.now())) {
+            throw new InvalidRefreshTokenException("La sesión expiró o no es válida; inicie sesión de nuevo");
+        }
+
+        if (sesion.usado() || refreshTokenRepository.marcarUsado(hash) == 0) {
+            // Un token ya rotado que vuelve a presentarse: se corta la sesión en todos los dispositivos
+            log.warn("Reutilización de token de refresco del usuario {}; se revoca la sesión {}",
+                    sesion.idUsuario(), sesion.familia());
+            revocarFamilia(sesion.familia());
+            throw new InvalidRefreshTokenException("La sesión fue revocada; inicie sesión de nuevo");
+        }
+
+        TransaccionUtil.trasCommit(() -> sesiones.computeIfPresent(hash, (k, actual) -> actual.usada()));
+        String nuevo = guardar(sesion.idUsuario(), sesion.email(), sesion.rol(), sesion.familia());
+        return new Rotacion(sesion, nuevo);
+    }
+
+    /**
+     * Cierra la sesión del token (logout). Un token desconocido se ignora.
+     */
+    public void revocar(String token) {
+        Sesion sesion = sesiones.get(huella(token));
+        if (sesion != null) {
+            revocarFamilia(sesion.familia());
+        }
+    }
+
+    /**
+     * Cierra todas las sesiones del usuario; se llama al modificarlo o eliminarlo.
+     */
+    public void revocarUsuario(String idUsuario) {
+        int eliminados = refreshTokenRepository.eliminarPorUsuario(idUsuario);
+        TransaccionUtil.trasCommit(() -> sesiones.values().removeIf(s -> s.idUsuario().equals(idUsuario)));
+        log.debug("Revocados {} tokens de refresco del usuario {}", eliminados, idUsuario);
+    }
+
+    @Scheduled(cron = "${jwt.refresh.limpieza.cron:0 15 4 * * *}")
+    public void purgarExpirados() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int eliminados = refreshTokenRepository.eliminarExpirados(ahora);
+        TransaccionUtil.trasCommit(() -> sesiones.values().removeIf(s -> !s.expira().isAfter(ahora)));
+        log.info("Purgados {} tokens de refresco expirados", eliminados);
+    }
+
+    private String guardar(String idUsuario, String email, String rol, String familia) {
+        byte[] valor = new byte[BYTES_TOKEN];
+        random.nextBytes(valor);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(valor);
+        String hash = huella(token);
+        LocalDateTime expira = LocalDateTime.now().plus(ttl);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .hash(hash)
+                .usuario(usuarioRepository.getReferenceById(idUsuario))
+                .familia(familia)
+                .expira(expira)
+                .usado(false)
+                .build());
+        Sesion sesion = new Sesion(idUsuario, email, rol, familia, expira, false);
+        TransaccionUtil.trasCommit(() -> sesiones.put(hash, sesion));
+        return token;
+    }
+
+    private void revocarFamilia(String familia) {
+        refreshTokenRepository.eliminarFamilia(familia);
+        TransaccionUtil.trasCommit(() -> sesiones.values().removeIf(s -> s.familia().equals(familia)));
+    }
+
+    private String nombreRol(Integer idRol) {
+        return referenceDataRegistry.findRol(idRol).map(Rol::getNombre).orElse(null);
+    }
+
+    private static String huella(String token) {
+        if (token == null || token.isBlank()) {
+            throw new InvalidRefreshTokenException("El token de refresco es obligatorio");
+        }
+        return HashUtil.sha256Hex(token);
+    }
+}
@@ -30,6 +30,7 @@ public class RolService {
 
     private final RolRepository rolRepository;
     private final RolMapper rolMapper;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
     /**
      * LÓGICA: Obtener todos los roles
@@ -37,7 +38,7 @@ public class RolService {
     @Transactional(readOnly = true)
     public List<RolDTO> findAll() {
         log.info("Obteniendo todos los roles");
-        List<Rol> roles = rolRepository.findAll();
+        List<Rol> roles = referenceDataRegistry.roles();
         log.info("Se encontraron {} roles", roles.size());
         return rolMapper.toDtoList(roles);
     }
@@ -56,7 +57,7 @@ public class RolService {
             throw new BadRequestException("El ID del rol debe ser un número positivo");
         }
 
-        Rol rol = rolRepository.findById(id)
+        Rol rol = referenceDataRegistry.findRol(id)
                 .orElseThrow(() -> {
                     log.error("Rol no encontrado con ID: {}", id);
                     return new ResourceNotFoundException("Rol no encontrado con ID: " + id);
@@ -107,6 +108,7 @@ public class RolService {
         rol.setNombre(nombreNormalizado);
 
         Rol rolSaved = rolRepository.save(rol);
+        referenceDataRegistry.invalidarRoles();
         log.info("Rol creado exitosamente con ID: {}", rolSaved.getIdRol());
 
         return rolMapper.toDto(rolSaved);
@@ -167,6 +169,7 @@ public class RolService {
         rolExistente.setNombre(nombreNormalizado);
 
         Rol rolUpdated = rolRepository.save(rolExistente);
+        referenceDataRegistry.invalidarRoles();
         log.info("Rol actualizado exitosamente: {}", rolUpdated.getNombre());
 
         return rolMapper.toDto(rolUpdated);
@@ -203,6 +206,7 @@ public class RolService {
         }
 
         rolRepository.deleteById(id);
+        referenceDataRegistry.invalidarRoles();
         log.info("Rol eliminado exitosamente: {}", rol.getNombre());
     }
 
@@ -218,7 +222,7 @@ public class RolService {
             throw new BadRequestException("El nombre de búsqueda no puede estar vacío");
         }
 
-        Rol rol = rolRepository.findByNombre(nombre.trim().toUpperCase())
+        Rol rol = referenceDataRegistry.findRolByNombre(nombre)
                 .orElseThrow(() -> {
                     log.error("Rol no encontrado con nombre: {}", nombre);
                     return new ResourceNotFoundException("Rol no encontrado: " + nombre);
@@ -239,7 +243,7 @@ public class RolService {
             return false;
         }
 
-        boolean exists = rolRepository.existsByNombre(nombre.trim().toUpperCase());
+        boolean exists = referenceDataRegistry.findRolByNombre(nombre).isPresent();
         log.info("Rol '{}' existe: {}", nombre, exists);
         return exists;
     }
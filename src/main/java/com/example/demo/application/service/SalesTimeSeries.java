@@ -0,0 +1,405 @@
+package com.example.demo.application.service;
+
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaBatchRepository.Movimiento;
+import com.example.demo.shared.exception.BadRequestException;
+import com.example.demo.shared.util.TransaccionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Series temporales de ventas en tramos fijos de 15 minutos.
+ *
+ * Cada métrica (importe en céntimos, unidades y comandas) es un long[] en el
+ * que el tramo i cubre [origen + 15·i min, origen + 15·(i+1) min); las
+ * granularidades de hora y día suman tramos consecutivos. Un hilo en segundo
+ * plano rellena el histórico desde detalle_comanda mes a mes al arrancar, y
+ * cada noche vuelve a calcular el día anterior. Los deltas de ventas llegan de
+ * VentasDiariasService y las altas y bajas de comandas de ComandaService, en
+ * ambos casos tras el commit. Las lecturas son optimistas (StampedLock) y solo
+ * esperan si coinciden con una escritura.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesTimeSeries {
+
+    public static final int MINUTOS_POR_TRAMO = 15;
+    private static final int TRAMOS_POR_DIA = 24 * 60 / MINUTOS_POR_TRAMO;
+    // Un año completo en tramos de 15 minutos, con margen para años bisiestos
+    private static final int MAX_PUNTOS = 367 * TRAMOS_POR_DIA;
+
+    private final ComandaRepository comandaRepository;
+    private final DetalleComandaRepository detalleComandaRepository;
+
+    // Días de histórico que se cargan al arrancar
+    @Value("${dashboard.series.historico-dias:1095}")
+    private int historicoDias;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Protegidos por lock; los tres arrays tienen siempre la misma longitud
+    private LocalDateTime origen;
+    private long[] centimos = new long[0];
+    private long[] unidades = new long[0];
+    private long[] comandas = new long[0];
+
+    // Recargas en curso, protegidas por lock: anotan los deltas que llegan mientras consultan la base de datos
+    private final List<Recarga> recargas = new ArrayList<>();
+
+    private volatile boolean cargada = false;
+
+    public enum Granularidad {
+        CUARTO_HORA(1), HORA(4), DIA(TRAMOS_POR_DIA);
+
+        private final int tramos;
+
+        Granularidad(int tramos) {
+            this.tramos = tramos;
+        }
+
+        public int minutos() {
+            return tramos * MINUTOS_POR_TRAMO;
+        }
+
+        /**
+         * Acepta el nombre del valor o sus alias cortos (15m, 1h, 1d).
+         */
+        public static Granularidad de(String valor) {
+            if (valor == null) {
+                throw new BadRequestException("La granularidad es obligatoria");
+            }
+            return switch (valor.trim().toLowerCase(Locale.ROOT)) {
+                case "15m", "cuarto_hora", "quarter_hour" -> CUARTO_HORA;
+                case "1h", "hora", "hour" -> HORA;
+                case "1d", "dia", "day" -> DIA;
+                default -> throw new BadRequestException("Granularidad no válida: " + valor);
+            };
+        }
+    }
+
+    /**
+     * Serie alineada a la granularidad: el punto i empieza en desde + i·granularidad.
+     */
+    public record Serie(Granularidad granularidad, LocalDateTime desde, LocalDateTime hasta, boolean completa,
+            long[] centimos, long[] unidades, long[] comandas) {
+    }
+
+    public static LocalDateTime tramo(LocalDateTime fecha) {
+        LocalDateTime hora = fecha.truncatedTo(ChronoUnit.HOURS);
+        return hora.plusMinutes(fecha.getMinute() / MINUTOS_POR_TRAMO * MINUTOS_POR_TRAMO);
+    }
+
+    // ---------- LECTURA ---------- //
+
+    public Serie serie(Granularidad granularidad, LocalDateTime desde, LocalDateTime hasta) {
+        if (granularidad == null || desde == null || hasta == null || !desde.isBefore(hasta))
+            throw new BadRequestException("El rango de fechas no es válido");
+
+        LocalDateTime inicio = alinear(desde, granularidad);
+        LocalDateTime fin = alinear(hasta, granularidad);
+        if (fin.isBefore(hasta)) {
+            fin = fin.plusMinutes(granularidad.minutos());
+        }
+        long puntos = Duration.between(inicio, fin).toMinutes() / granularidad.minutos();
+        if (puntos > MAX_PUNTOS)
+            throw new BadRequestException("Demasiados puntos: use una granularidad mayor");
+
+        long[] ventas = new long[(int) puntos];
+        long[] cantidades = new long[(int) puntos];
+        long[] conteos = new long[(int) puntos];
+
+        long stamp = lock.tryOptimisticRead();
+        sumarTramos(granularidad, inicio, ventas, cantidades, conteos);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                Arrays.fill(ventas, 0);
+                Arrays.fill(cantidades, 0);
+                Arrays.fill(conteos, 0);
+                sumarTramos(granularidad, inicio, ventas, cantidades, conteos);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return new Serie(granularidad, inicio, fin, cargada, ventas, cantidades, conteos);
+    }
+
+    private static LocalDateTime alinear(LocalDateTime fecha, Granularidad granularidad) {
+        return switch (granularidad) {
+            case CUARTO_HORA -> tramo(fecha);
+            case HORA -> fecha.truncatedTo(ChronoUnit.HOURS);
+            case DIA -> fecha.truncatedTo(ChronoUnit.DAYS);
+        };
+    }
+
+    // En la lectura optimista los arrays pueden cambiar a mitad: se trabaja con copias locales
+    // de las referencias y el resultado solo se usa si la validación posterior lo confirma
+    private void sumarTramos(Granularidad granularidad, LocalDateTime inicio,
+            long[] ventas, long[] cantidades, long[] conteos) {
+        LocalDateTime base = origen;
+        long[] c = centimos;
+        long[] u = unidades;
+        long[] n = comandas;
+        if (base == null) {
+            return;
+        }
+        int longitud = Math.min(c.length, Math.min(u.length, n.length));
+        long primero = Duration.between(base, inicio).toMinutes() / MINUTOS_POR_TRAMO;
+        for (int punto = 0; punto < ventas.length; punto++) {
+            long desde = Math.max(primero + (long) punto * granularidad.tramos, 0);
+            long hasta = Math.min(primero + (long) (punto + 1) * granularidad.tramos, longitud);
+            for (long i = desde; i < hasta; i++) {
+                ventas[punto] += c[(int) i];
+                cantidades[punto] += u[(int) i];
+                conteos[punto] += n[(int) i];
+            }
+        }
+    }
+
+    // ---------- TIEMPO REAL ---------- //
+
+    /**
+     * Suma movimientos ya confirmados; cada clave es el inicio de su tramo.
+     */
+    public void registrarVentas(Map<LocalDateTime, Movimiento> movimientos) {
+        if (movimientos.isEmpty()) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            movimientos.forEach((tramo, movimiento) -> {
+                int i = indice(tramo);
+                if (i >= 0) {
+                    centimos[i] += centimos(movimiento.importe());
+                    unidades[i] += movimiento.cantidad();
+                }
+                anotar(tramo, centimos(movimiento.importe()), movimiento.cantidad(), 0);
+            });
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Cuenta (signo 1) o descuenta (signo -1) una comanda en su tramo cuando
+     * la transacción en curso confirma.
+     */
+    public void registrarComanda(LocalDateTime fecha, int signo) {
+        if (fecha == null) {
+            return;
+        }
+        TransaccionUtil.trasCommit(() -> sumarComanda(fecha, signo));
+    }
+
+    private void sumarComanda(LocalDateTime fecha, int signo) {
+        long stamp = lock.writeLock();
+        try {
+            int i = indice(fecha);
+            if (i >= 0) {
+                comandas[i] += signo;
+            }
+            anotar(tramo(fecha), 0, 0, signo);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ---------- CARGA ---------- //
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarCarga() {
+        Thread.ofPlatform().name("series-ventas-carga").daemon().start(() -> {
+            try {
+                cargar();
+            } catch (RuntimeException e) {
+                log.error("No se pudo cargar el histórico de series de ventas", e);
+            }
+        });
+    }
+
+    /**
+     * Carga el histórico mes a mes, del más antiguo al actual, para que cada
+     * consulta recorra un rango acotado de comandas.
+     */
+    public void cargar() {
+        LocalDate hoy = LocalDate.now();
+        LocalDateTime primera = comandaRepository.findPrimeraFecha();
+        LocalDate desde = primera == null ? hoy : primera.toLocalDate();
+        if (desde.isBefore(hoy.minusDays(historicoDias))) {
+            desde = hoy.minusDays(historicoDias);
+        }
+
+        long inicioCarga = System.nanoTime();
+        for (LocalDate mes = desde; !mes.isAfter(hoy); mes = mes.plusMonths(1)) {
+            LocalDate siguiente = mes.plusMonths(1);
+            recargar(mes, siguiente.isAfter(hoy) ? hoy.plusDays(1) : siguiente);
+        }
+        cargada = true;
+        log.info("Series de ventas cargadas desde {} en {} ms", desde,
+                Duration.ofNanos(System.nanoTime() - inicioCarga).toMillis());
+    }
+
+    @Scheduled(cron = "${dashboard.series.reconstruccion.cron:0 45 4 * * *}")
+    public void recargarDiaAnterior() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        recargar(ayer, ayer.plusDays(1));
+        log.info("Series de ventas del {} recalculadas", ayer);
+    }
+
+    /**
+     * Sustituye los tramos de los días [desde, hasta) por los calculados desde
+     * la base de datos. Las consultas se hacen fuera del bloqueo; solo la copia
+     * final excluye a lectores y escritores. Los deltas en tiempo real que
+     * llegan mientras tanto quedan anotados y se vuelven a sumar tras la copia,
+     * para que no los pise una consulta que empezó antes de su commit.
+     */
+    public void recargar(LocalDate desde, LocalDate hasta) {
+        LocalDateTime inicio = desde.atStartOfDay();
+        LocalDateTime fin = hasta.atStartOfDay();
+        int tramos = (int) ChronoUnit.DAYS.between(desde, hasta) * TRAMOS_POR_DIA;
+        long[] c = new long[tramos];
+        long[] u = new long[tramos];
+        long[] n = new long[tramos];
+
+        Recarga recarga = new Recarga(inicio, fin);
+        long stamp = lock.writeLock();
+        try {
+            recargas.add(recarga);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        try {
+            for (DetalleComandaRepository.VentaPorTramo venta
+                    : detalleComandaRepository.resumirPorTramoEntre(inicio, fin)) {
+                int i = venta.getTramo().intValue();
+                c[i] = centimos(venta.getImporte());
+                u[i] = venta.getCantidad();
+            }
+            for (ComandaRepository.ComandasPorTramo conteo : comandaRepository.contarPorTramoEntre(inicio, fin)) {
+                n[conteo.getTramo().intValue()] = conteo.getCantidad();
+            }
+
+            stamp = lock.writeLock();
+            try {
+                // Primero el extremo final: si luego el inicio amplía por la izquierda, su índice ya es el definitivo
+                indice(fin.minusMinutes(MINUTOS_POR_TRAMO));
+                int primero = indice(inicio);
+                if (primero < 0) {
+                    return;
+                }
+                System.arraycopy(c, 0, centimos, primero, tramos);
+                System.arraycopy(u, 0, unidades, primero, tramos);
+                System.arraycopy(n, 0, comandas, primero, tramos);
+                recarga.deltas.forEach((tramo, delta) -> {
+                    int i = indice(tramo);
+                    centimos[i] += delta[0];
+                    unidades[i] += delta[1];
+                    comandas[i] += delta[2];
+                });
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        } finally {
+            stamp = lock.writeLock();
+            try {
+                recargas.remove(recarga);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // Debe llamarse con el bloqueo de escritura
+    private void anotar(LocalDateTime tramo, long importe, long cantidad, long conteo) {
+        for (Recarga recarga : recargas) {
+            if (!tramo.isBefore(recarga.inicio) && tramo.isBefore(recarga.fin)) {
+                long[] delta = recarga.deltas.computeIfAbsent(tramo, k -> new long[3]);
+                delta[0] += importe;
+                delta[1] += cantidad;
+                delta[2] += conteo;
+            }
+        }
+    }
+
+    /**
+     * Rango que se está recalculando y deltas (céntimos, unidades, comandas)
+     * por tramo recibidos desde que empezó.
+     */
+    private static final class Recarga {
+        private final LocalDateTime inicio;
+        private final LocalDateTime fin;
+        private final Map<LocalDateTime, long[]> deltas = new HashMap<>();
+
+        private Recarga(LocalDateTime inicio, LocalDateTime fin) {
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+    }
+
+    // ---------- ALMACENAMIENTO ---------- //
+
+    /**
+     * Índice del tramo que contiene la fecha, ampliando los arrays si queda
+     * fuera. Devuelve -1 para fechas anteriores al histórico configurado.
+     * Debe llamarse con el bloqueo de escritura.
+     */
+    private int indice(LocalDateTime fecha) {
+        LocalDate dia = fecha.toLocalDate();
+        if (dia.isBefore(LocalDate.now().minusDays(historicoDias))) {
+            return -1;
+        }
+        if (origen == null) {
+            origen = dia.atStartOfDay();
+            redimensionar(0, 7 * TRAMOS_POR_DIA);
+        } else if (fecha.isBefore(origen)) {
+            int dias = (int) ChronoUnit.DAYS.between(dia.atStartOfDay(), origen);
+            origen = dia.atStartOfDay();
+            redimensionar(dias * TRAMOS_POR_DIA, centimos.length + dias * TRAMOS_POR_DIA);
+        }
+        long i = Duration.between(origen, fecha).toMinutes() / MINUTOS_POR_TRAMO;
+        if (i >= centimos.length) {
+            // Crece por días completos y al menos al doble, para que las altas en tiempo real no copien a menudo
+            long necesario = (i / TRAMOS_POR_DIA + 1) * TRAMOS_POR_DIA;
+            redimensionar(0, (int) Math.max(necesario, 2L * centimos.length));
+        }
+        return (int) i;
+    }
+
+    private void redimensionar(int desplazamiento, int longitud) {
+        centimos = copiar(centimos, desplazamiento, longitud);
+        unidades = copiar(unidades, desplazamiento, longitud);
+        comandas = copiar(comandas, desplazamiento, longitud);
+    }
+
+    private static long[] copiar(long[] actual, int desplazamiento, int longitud) {
+        long[] nuevo = new long[longitud];
+        System.arraycopy(actual, 0, nuevo, desplazamiento, Math.min(actual.length, longitud - desplazamiento));
+        return nuevo;
+    }
+
+    private static long centimos(BigDecimal importe) {
+        return importe == null ? 0 : importe.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.demo.application.service;
+
+import com.example.demo.domain.entity.Producto;
+import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
+import com.example.demo.shared.util.TransaccionUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Punto único para mover stock de productos.
+ *
+ * Deshabilitado (por defecto), cada movimiento es un UPDATE condicional en
+ * ProductoRepository. Con inventario.stock-ledger.enabled=true el stock
+ * disponible vive en memoria: los descuentos son CAS sobre un AtomicInteger
+ * por producto y los deltas netos se vuelcan a la tabla productos en un batch
+ * JDBC cada inventario.stock-ledger.flush-ms y al apagar la aplicación.
+ * Pensado para una única instancia: con varias instancias cada una tendría su
+ * propia vista del stock.
+ *
+ * Las ediciones administrativas (fijar, olvidar) se excluyen con el volcado:
+ * mientras la transacción que escribe el valor absoluto sigue abierta no se
+ * vuelca ningún delta, y el libro solo adopta el valor tras el commit.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLedger {
+
+    private final ProductoRepository productoRepository;
+
+    @Value("${inventario.stock-ledger.enabled:false}")
+    private boolean habilitado;
+
+    private final Map<Integer, AtomicInteger> disponibles = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> pendientes = new ConcurrentHashMap<>();
+    private final ReentrantLock volcado = new ReentrantLock();
+
+    /**
+     * Carga el stock de la base de datos como punto de partida del libro.
+     * Los deltas no volcados antes de una caída se pierden, por lo que la base
+     * de datos es siempre la referencia al arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        if (!habilitado) {
+            return;
+        }
+        disponibles.clear();
+        pendientes.clear();
+        for (Producto producto : productoRepository.findAll()) {
+            disponibles.put(producto.getIdProducto(), new AtomicInteger(producto.getStock()));
+        }
+        log.info("Libro de stock cargado con {} productos", disponibles.size());
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Stock disponible según el libro, o el de la entidad si está deshabilitado.
+     */
+    public int disponible(Producto producto) {
+        if (!habilitado) {
+            return producto.getStock();
+        }
+        AtomicInteger celda = celda(producto.getIdProducto());
+        return celda != null ? celda.get() : producto.getStock();
+    }
+
+    /**
+     * Descuenta stock solo si alcanza. Devuelve false si no hay suficiente o
+     * el producto no existe.
+     */
+    public boolean descontar(Integer idProducto, int cantidad) {
+        if (!habilitado) {
+            return productoRepository.descontarStock(idProducto, cantidad) > 0;
+        }
+        AtomicInteger celda = celda(idProducto);
+        if (celda == null) {
+            return false;
+        }
+        int actual;
+        do {
+            actual = celda.get();
+            if (actual < cantidad) {
+                return false;
+            }
+        } while (!celda.compareAndSet(actual, actual - cantidad));
+
+        registrarDelta(idProducto, -cantidad);
+        return true;
+    }
+
+    public void reponer(Integer idProducto, int cantidad) {
+        if (!habilitado) {
+            productoRepository.reponerStock(idProducto, cantidad);
+            return;
+        }
+        AtomicInteger celda = celda(idProducto);
+        if (celda == null) {
+            return;
+        }
+        celda.addAndGet(cantidad);
+        registrarDelta(idProducto, cantidad);
+    }
+
+    /**
+     * Fija el stock tras una edición administrativa. El valor escrito en la
+     * tabla pasa a ser la referencia y se descartan los deltas pendientes,
+     * pero solo si la transacción que lo escribe confirma.
+     */
+    public void fijar(Integer idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        enExclusiva(() -> {
+            pendientes.remove(idProducto);
+            disponibles.computeIfAbsent(idProducto, k -> new AtomicInteger()).set(stock);
+        });
+    }
+
+    public void olvidar(Integer idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        enExclusiva(() -> {
+            pendientes.remove(idProducto);
+            disponibles.remove(idProducto);
+        });
+    }
+
+    /**
+     * Vuelca los deltas netos acumulados desde el último volcado.
+     */
+    @Scheduled(fixedDelayString = "${inventario.stock-ledger.flush-ms:500}")
+    public void volcar() {
+        if (!habilitado || pendientes.isEmpty()) {
+            return;
+        }
+        volcado.lock();
+        try {
+            volcarDeltas();
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    private void volcarDeltas() {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        pendientes.forEach((id, pendiente) -> {
+            int delta = pendiente.getAndSet(0);
+            if (delta != 0) {
+                deltas.put(id, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            productoRepository.ajustarStockEnLote(deltas);
+            log.debug("Volcados deltas de stock de {} productos", deltas.size());
+        } catch (RuntimeException ex) {
+            // Se devuelven los deltas para reintentarlos en el próximo volcado
+            deltas.forEach(this::acumular);
+            log.error("No se pudo volcar el stock de {} productos: {}", deltas.size(), ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        volcar();
+    }
+
+    private AtomicInteger celda(Integer idProducto) {
+        AtomicInteger celda = disponibles.get(idProducto);
+        if (celda != null) {
+            return celda;
+        }
+        // Producto creado después del arranque
+        return productoRepository.findById(idProducto)
+                .map(p -> disponibles.computeIfAbsent(idProducto, k -> new AtomicInteger(p.getStock())))
+                .orElse(null);
+    }
+
+    /**
+     * Toma el cerrojo del volcado hasta que termina la transacción en curso:
+     * un delta ya drenado no puede escribirse sobre el valor absoluto de la
+     * edición, ni la edición descartar deltas si termina en rollback. Sin
+     * transacción, el cambio se aplica en el acto.
+     */
+    private void enExclusiva(Runnable alConfirmar) {
+        volcado.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                alConfirmar.run();
+            } finally {
+                volcado.unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        alConfirmar.run();
+                    }
+                } finally {
+                    volcado.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * El delta se aplica en memoria al instante; si la transacción que lo
+     * originó termina en rollback, se compensa para no perder stock.
+     */
+    private void registrarDelta(Integer idProducto, int delta) {
+        acumular(idProducto, delta);
+        TransaccionUtil.siRevierte(() -> {
+            AtomicInteger celda = disponibles.get(idProducto);
+            if (celda != null) {
+                celda.addAndGet(-delta);
+            }
+            acumular(idProducto, -delta);
+        });
+    }
+
+    private void acumular(Integer idProducto, int delta) {
+        pendientes.computeIfAbsent(idProducto, k -> new AtomicInteger()).addAndGet(delta);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.application.service;
+
+import com.example.demo.shared.util.TransaccionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Época de los JWT de cada usuario. El token lleva la época vigente al
+ * emitirse y deja de aceptarse cuando la del usuario avanza, de modo que
+ * modificar o eliminar un usuario revoca sus tokens sin que la autenticación
+ * consulte la base de datos en cada petición.
+ *
+ * Solo se guardan los usuarios revocados desde el arranque (la época es el
+ * instante de la revocación). Las revocaciones no sobreviven a un reinicio:
+ * tras él, los tokens anteriores vuelven a valer hasta su expiración.
+ */
+@Slf4j
+@Component
+public class TokenEpochRegistry {
+
+    private final Map<String, Long> epocas = new ConcurrentHashMap<>();
+
+    /**
+     * Época que llevan los tokens emitidos ahora para el usuario.
+     */
+    public long actual(String idUsuario) {
+        return idUsuario == null ? 0L : epocas.getOrDefault(idUsuario, 0L);
+    }
+
+    /**
+     * Un token es válido si se emitió en la época vigente del usuario o después.
+     */
+    public boolean vigente(String idUsuario, long epocaToken) {
+        return epocaToken >= actual(idUsuario);
+    }
+
+    /**
+     * Invalida los tokens emitidos hasta ahora para el usuario, tras el commit
+     * de la transacción en curso (o al momento si no hay transacción), para
+     * que un login concurrente no reciba un token nuevo con datos viejos.
+     */
+    public void revocar(String idUsuario) {
+        Runnable revocacion = () -> {
+            long epoca = epocas.merge(idUsuario, System.currentTimeMillis(),
+                    (anterior, ahora) -> Math.max(anterior + 1, ahora));
+            log.info("Tokens del usuario {} revocados (época {})", idUsuario, epoca);
+        };
+        TransaccionUtil.trasCommit(revocacion);
+    }
+}
@@ -5,7 +5,6 @@ import com.example.demo.domain.dto.UsuarioDTO;
 import com.example.demo.domain.entity.Rol;
 import com.example.demo.domain.entity.Telefono;
 import com.example.demo.domain.entity.Usuario;
-import com.example.demo.infrastructure.persistence.repository.RolRepository;
 import com.example.demo.infrastructure.persistence.repository.TelefonoRepository;
 import com.example.demo.infrastructure.persistence.repository.UsuarioRepository;
 import com.example.demo.shared.exception.BadRequestException;
@@ -26,9 +25,11 @@ import java.util.stream.Collectors;
 public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
-    private final RolRepository rolRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
     private final TelefonoRepository telefonoRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenEpochRegistry tokenEpochRegistry;
+    private final RefreshTokenService refreshTokenService;
 
     // ------------------------
     // Métodos usados por Controller (DTOs)
@@ -57,7 +58,7 @@ public class UsuarioService {
 
         // rol
         if (request.getRolId() != null) {
-            Rol rol = rolRepository.findById(request.getRolId())
+            Rol rol = referenceDataRegistry.findRol(request.getRolId())
                     .orElseThrow(
                             () -> new ResourceNotFoundException("Rol no encontrado con ID: " + request.getRolId()));
             usuario.setRol(rol);
@@ -109,7 +110,7 @@ public class UsuarioService {
             existente.setNombre(request.getNombre());
 
         if (request.getRolId() != null) {
-            Rol rol = rolRepository.findById(request.getRolId())
+            Rol rol = referenceDataRegistry.findRol(request.getRolId())
                     .orElseThrow(
                             () -> new ResourceNotFoundException("Rol no encontrado con ID: " + request.getRolId()));
             existente.setRol(rol);
@@ -141,6 +142,9 @@ public class UsuarioService {
         }
 
         Usuario updated = usuarioRepository.save(existente);
+        // El rol y el email viajan en el token: los emitidos antes del cambio dejan de valer
+        tokenEpochRegistry.revocar(idUsuario);
+        refreshTokenService.revocarUsuario(idUsuario);
         return toDto(updated);
     }
 
@@ -148,7 +152,9 @@ public class UsuarioService {
         if (!usuarioRepository.existsById(idUsuario)) {
             throw new ResourceNotFoundException("Usuario no encontrado con ID: " + idUsuario);
         }
+        refreshTokenService.revocarUsuario(idUsuario);
         usuarioRepository.deleteById(idUsuario);
+        tokenEpochRegistry.revocar(idUsuario);
     }
 
     public Optional<UsuarioDTO> obtenerUsuarioPorCorreo(String email) {
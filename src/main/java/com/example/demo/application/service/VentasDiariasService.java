@@ -0,0 +1,169 @@
+package com.example.demo.application.service;
+
+import com.example.demo.domain.entity.Comanda;
+import com.example.demo.domain.entity.DetalleComanda;
+import com.example.demo.domain.entity.VentaDiariaId;
+import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaBatchRepository.Movimiento;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene la tabla ventas_diarias (día × producto × mesero).
+ *
+ * Los servicios que crean, modifican o eliminan detalles registran aquí el
+ * delta de unidades e importe. Los deltas se agrupan por transacción y se
+ * escriben con un único batch JDBC justo antes del commit, de modo que el
+ * acumulado cambia junto con los detalles o no cambia. Al arrancar con la
+ * tabla vacía se rellena desde detalle_comanda, y cada noche se reconstruye
+ * el día anterior para corregir cualquier deriva. Tras el commit, los mismos
+ * deltas se suman a LiveSalesCounters (por jornada) y a SalesTimeSeries (por
+ * tramo de 15 minutos).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VentasDiariasService {
+
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final DetalleComandaRepository detalleComandaRepository;
+    private final LiveSalesCounters liveSalesCounters;
+    private final SalesTimeSeries salesTimeSeries;
+
+    /**
+     * Registra el delta de una línea de la comanda. La comanda aporta el día y
+     * el mesero; cantidad e importe pueden ser negativos.
+     */
+    public void registrar(Comanda comanda, Integer idProducto, long cantidad, BigDecimal importe) {
+        acumular(comanda, idProducto, comanda.getMesero().getIdUsuario(), cantidad, importe);
+    }
+
+    public void registrar(DetalleComanda detalle, int signo) {
+        registrar(detalle.getComanda(), detalle.getProducto().getIdProducto(),
+                (long) signo * detalle.getCantidad(), multiplicar(detalle.getSubtotal(), signo));
+    }
+
+    public void registrar(List<DetalleComanda> detalles, int signo) {
+        for (DetalleComanda detalle : detalles) {
+            registrar(detalle, signo);
+        }
+    }
+
+    /**
+     * Pasa las ventas de las líneas de la comanda del mesero anterior al
+     * actual (reasignación de la comanda).
+     */
+    public void cambiarMesero(Comanda comanda, String idMeseroAnterior, List<DetalleComanda> detalles) {
+        for (DetalleComanda detalle : detalles) {
+            Integer idProducto = detalle.getProducto().getIdProducto();
+            acumular(comanda, idProducto, idMeseroAnterior,
+                    -detalle.getCantidad(), multiplicar(detalle.getSubtotal(), -1));
+            acumular(comanda, idProducto, comanda.getMesero().getIdUsuario(),
+                    detalle.getCantidad(), detalle.getSubtotal());
+        }
+    }
+
+    private void acumular(Comanda comanda, Integer idProducto, String idMesero, long cantidad, BigDecimal importe) {
+        Movimiento movimiento = new Movimiento(cantidad, importe != null ? importe : BigDecimal.ZERO);
+        if (movimiento.esNulo()) {
+            return;
+        }
+        VentaDiariaId clave = new VentaDiariaId(comanda.getFecha().toLocalDate(), idProducto, idMesero);
+        // Los contadores en vivo agrupan por jornada, que puede no empezar a medianoche
+        VentaDiariaId claveEnVivo = new VentaDiariaId(
+                liveSalesCounters.jornadaDe(comanda.getFecha()), idProducto, idMesero);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ventaDiariaRepository.acumularEnLote(Map.of(clave, movimiento));
+            liveSalesCounters.registrarVentas(Map.of(claveEnVivo, movimiento));
+            salesTimeSeries.registrarVentas(Map.of(SalesTimeSeries.tramo(comanda.getFecha()), movimiento));
+            return;
+        }
+        Acumulado acumulado = acumuladoDeTransaccion();
+        acumulado.movimientos.merge(clave, movimiento, Movimiento::sumar);
+        acumulado.enVivo.merge(claveEnVivo, movimiento, Movimiento::sumar);
+        acumulado.porTramo.merge(SalesTimeSeries.tramo(comanda.getFecha()), movimiento, Movimiento::sumar);
+    }
+
+    private static BigDecimal multiplicar(BigDecimal importe, int signo) {
+        return importe != null ? importe.multiply(BigDecimal.valueOf(signo)) : null;
+    }
+
+    // ---------- RECONSTRUCCIÓN ---------- //
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rellenarSiVacia() {
+        if (ventaDiariaRepository.count() > 0 || detalleComandaRepository.count() == 0) {
+            return;
+        }
+        int filas = reconstruir(LocalDate.of(1970, 1, 1), LocalDate.now().plusDays(1));
+        log.info("Tabla ventas_diarias rellenada desde detalle_comanda: {} filas", filas);
+    }
+
+    @Scheduled(cron = "${dashboard.ventas.reconstruccion.cron:0 30 4 * * *}")
+    @Transactional
+    public void reconstruirDiaAnterior() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        int filas = reconstruir(ayer, ayer.plusDays(1));
+        log.info("Ventas diarias del {} reconstruidas: {} filas", ayer, filas);
+    }
+
+    /**
+     * Reemplaza el acumulado de los días [desde, hasta) por el calculado desde
+     * detalle_comanda.
+     */
+    @Transactional
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        ventaDiariaRepository.eliminarEntre(desde, hasta);
+        return ventaDiariaRepository.reconstruirEntre(desde.atStartOfDay(), hasta.atStartOfDay());
+    }
+
+    private Acumulado acumuladoDeTransaccion() {
+        // Se busca entre las sincronizaciones para que una transacción anidada tenga su propio acumulado
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof Acumulado acumulado && acumulado.servicio() == this) {
+                return acumulado;
+            }
+        }
+        Acumulado acumulado = new Acumulado();
+        TransactionSynchronizationManager.registerSynchronization(acumulado);
+        return acumulado;
+    }
+
+    private final class Acumulado implements TransactionSynchronization {
+
+        private final Map<VentaDiariaId, Movimiento> movimientos = new HashMap<>();
+        private final Map<VentaDiariaId, Movimiento> enVivo = new HashMap<>();
+        private final Map<LocalDateTime, Movimiento> porTramo = new HashMap<>();
+
+        private VentasDiariasService servicio() {
+            return VentasDiariasService.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            ventaDiariaRepository.acumularEnLote(movimientos);
+        }
+
+        @Override
+        public void afterCommit() {
+            liveSalesCounters.registrarVentas(enVivo);
+            salesTimeSeries.registrarVentas(porTramo);
+        }
+    }
+}
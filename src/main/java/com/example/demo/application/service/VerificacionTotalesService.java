@@ -0,0 +1,76 @@
+package com.example.demo.application.service;
+
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Verifica que el total y el número de líneas persistidos en cada comanda
+ * coincidan con la suma real de sus detalles, y corrige la deriva encontrada.
+ * Se ejecuta según el cron configurado en comandas.totales.verificacion.cron,
+ * por tramos de comandas.totales.verificacion.lote IDs, cada uno en su propia
+ * transacción: ninguna consulta recorre la tabla entera de una vez.
+ *
+ * El relleno de las comandas anteriores a la columna total es una operación
+ * única: se activa con comandas.totales.relleno-al-arrancar=true en el primer
+ * despliegue y se vuelve a desactivar.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VerificacionTotalesService {
+
+    private final ComandaRepository comandaRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${comandas.totales.verificacion.lote:1000}")
+    private int lote = 1000;
+
+    @Value("${comandas.totales.relleno-al-arrancar:false}")
+    private boolean rellenoAlArrancar;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rellenarAlArrancar() {
+        if (rellenoAlArrancar) {
+            log.info("Relleno de totales de comandas activado al arrancar");
+            verificarTotales();
+        }
+    }
+
+    @Scheduled(cron = "${comandas.totales.verificacion.cron:0 0 4 * * *}")
+    public void verificarTotales() {
+        int maximo = comandaRepository.findMaxIdComanda().orElse(0);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        int corregidas = 0;
+        for (int inicio = 1; inicio <= maximo; inicio += lote) {
+            int desde = inicio;
+            int hasta = (int) Math.min((long) inicio + lote - 1, maximo);
+            Integer enTramo = transaccion.execute(estado -> verificarTramo(desde, hasta));
+            corregidas += enTramo != null ? enTramo : 0;
+        }
+
+        if (corregidas == 0) {
+            log.debug("Totales de comandas verificados: sin deriva");
+        } else {
+            log.info("Totales recalculados para {} comanda(s)", corregidas);
+        }
+    }
+
+    private int verificarTramo(int desde, int hasta) {
+        List<Integer> desincronizadas = comandaRepository.findIdsConTotalesDesincronizados(desde, hasta);
+        if (desincronizadas.isEmpty()) {
+            return 0;
+        }
+        log.warn("Se detectó deriva en el total de {} comanda(s): {}", desincronizadas.size(), desincronizadas);
+        return comandaRepository.recalcularTotales(desincronizadas);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.domain.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Variación de unidades de un producto dentro de una comanda.
+ * Positiva suma unidades (creando la línea si hace falta); negativa las resta.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AjusteLineaDTO {
+
+    @NotNull(message = "La variación de cantidad es obligatoria")
+    @Min(value = -100, message = "La variación no puede ser menor a -100")
+    @Max(value = 100, message = "La variación no puede exceder 100 unidades")
+    private Integer delta;
+
+    // Solo se usa al crear la línea; si falta se toma el precio actual del producto
+    private BigDecimal precioUnitario;
+}
@@ -0,0 +1,35 @@
+package com.example.demo.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respuesta de resincronización tras una reconexión. Si los mensajes
+ * perdidos siguen en el historial llegan en "cambios"; si no, "completo" es
+ * true y "comandas" trae todas las comandas activas. En ambos casos el
+ * cliente continúa desde ultimaSecuencia.
+ *
+ * Pedida para una estación de cocina, "cambios" trae los mensajes de su topic
+ * y la instantánea solo las comandas con líneas de la estación, junto con la
+ * versión de cada una en ella ("versiones").
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CambiosComandaDTO {
+
+    private Long ultimaSecuencia;
+
+    private boolean completo;
+
+    private List<ComandaNotificacionDTO> cambios;
+
+    private List<ComandaDTO> comandas;
+
+    private Map<Integer, Long> versiones;
+}
@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -34,8 +34,11 @@ public class ComandaDTO {
     private List<com.example.demo.domain.dto.DetalleComandaDTO> detalles;
 
     /**
-     * <-- ESTE CAMPO debe ser BigDecimal para coincidir con el mapper que suma
-     * subtotales.
+     * Total persistido en la comanda (suma de subtotales mantenida por delta).
      */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private BigDecimal total;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer cantidadLineas;
 }
@@ -0,0 +1,43 @@
+package com.example.demo.domain.dto;
+
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mensaje STOMP con el cambio de una comanda tras uno o más cambios agrupados.
+ *
+ * La comanda completa solo viaja cuando el cliente no puede tener una base
+ * (creación, o primer mensaje de la comanda desde que arrancó el servidor).
+ * En el resto de casos llegan solo los campos y líneas que cambiaron respecto
+ * de la versión anterior; un cliente que detecte un salto de versión debe
+ * volver a pedir la comanda por REST. En una eliminación solo viaja el ID.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ComandaNotificacionDTO {
+
+    // Secuencia global de mensajes: creciente, también entre reinicios del servidor
+    private Long secuencia;
+
+    private Integer idComanda;
+
+    // Versión por comanda, consecutiva dentro de la vida del servidor; cada estación de cocina lleva la suya
+    private Long version;
+
+    private ComandaCambiadaEvent.Tipo tipo;
+
+    private ComandaDTO comanda;
+
+    private Map<String, Object> campos;
+
+    private List<DetalleComandaDTO> lineas;
+
+    private List<Integer> lineasQuitadas;
+}
@@ -12,7 +12,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -30,6 +30,10 @@ public class DetalleComandaDTO {
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String productoNombre;
 
+    // Categoría del producto: determina la estación de cocina que prepara la línea
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer categoriaId;
+
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private BigDecimal precioUnitario;
 
@@ -0,0 +1,34 @@
+package com.example.demo.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una mesa en el plano del salón: se sirve desde memoria y se
+ * publica en /topic/mesas cada vez que cambia. En una eliminación solo
+ * viajan el ID y la marca de eliminada.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MesaPlanoDTO {
+
+    private Integer idMesa;
+    private Integer capacidad;
+    private String ubicacion;
+    private Integer estadoId;
+    private String estadoNombre;
+
+    // Comanda activa más reciente de la mesa y número de comandas sin pagar
+    private Integer idComandaActiva;
+    private Integer comandasActivas;
+
+    // Fecha de la comanda activa más antigua: desde cuándo está sentada la mesa
+    private LocalDateTime ocupadaDesde;
+
+    private Boolean eliminada;
+}
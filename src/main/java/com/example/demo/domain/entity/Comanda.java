@@ -2,13 +2,20 @@ package com.example.demo.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "comandas")
+@Table(name = "comandas", indexes = {
+        // Índices para la paginación por keyset (fecha, id_comanda)
+        @Index(name = "idx_comandas_fecha_id", columnList = "fecha, id_comanda"),
+        @Index(name = "idx_comandas_estado_fecha_id", columnList = "estado, fecha, id_comanda"),
+        @Index(name = "idx_comandas_mesero_fecha_id", columnList = "id_mesero, fecha, id_comanda")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -42,6 +49,19 @@ public class Comanda {
     @JoinColumn(name = "estado", nullable = false)
     private Estado estado;
 
+    /**
+     * Total y número de líneas mantenidos incrementalmente por DetalleComandaService.
+     * No son actualizables desde la entidad: solo cambian con UPDATEs atómicos de
+     * delta, así un flush de una comanda leída antes no pisa el valor vigente.
+     */
+    @ColumnDefault("0")
+    @Column(name = "total", nullable = false, updatable = false, precision = 12, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @ColumnDefault("0")
+    @Column(name = "cantidad_lineas", nullable = false, updatable = false)
+    private Integer cantidadLineas = 0;
+
     @OneToMany(mappedBy = "comanda", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private List<DetalleComanda> detalles = new ArrayList<>();
 
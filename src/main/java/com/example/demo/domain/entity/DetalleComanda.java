@@ -6,7 +6,10 @@ import lombok.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "detalle_comanda")
+@Table(name = "detalle_comanda", uniqueConstraints = {
+        // Una línea por producto en cada comanda; soporta el upsert de DetalleComandaRepository
+        @UniqueConstraint(name = "uk_detalle_comanda_producto", columnNames = { "comanda", "producto" })
+})
 @Getter
 @Setter
 @NoArgsConstructor
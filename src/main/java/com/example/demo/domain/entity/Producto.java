@@ -2,6 +2,8 @@ package com.example.demo.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -9,6 +11,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "productos")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,6 +39,11 @@ public class Producto {
     @Column(name = "precio", nullable = false, precision = 10, scale = 2)
     private BigDecimal precio;
 
+    /**
+     * El stock se modifica solo con UPDATE condicionales desde ProductoRepository;
+     * con @DynamicUpdate las ediciones del producto no reescriben esta columna
+     * salvo que se asigne explícitamente.
+     */
     @Column(name = "stock", nullable = false)
     private Integer stock;
 
@@ -47,4 +55,12 @@ public class Producto {
 
     @Column(name = "descripcion", length = 500)
     private String descripcion;
+
+    /**
+     * Bloqueo optimista para nombre, precio, categoría, estado y descripción
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -0,0 +1,49 @@
+package com.example.demo.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token de refresco de una sesión. Solo se guarda la huella SHA-256 del
+ * token, nunca el valor. Cada uso lo marca como usado y emite otro de la
+ * misma familia; presentar uno ya usado revoca la familia completa.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_familia", columnList = "familia"),
+        @Index(name = "idx_refresh_tokens_expira", columnList = "expira")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = "usuario")
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_refresh_token")
+    @EqualsAndHashCode.Include
+    private Long idRefreshToken;
+
+    @Column(name = "hash", length = 64, nullable = false, unique = true)
+    private String hash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_usuario", nullable = false)
+    private Usuario usuario;
+
+    // Sesión a la que pertenece: se conserva en cada rotación
+    @Column(name = "familia", length = 36, nullable = false)
+    private String familia;
+
+    @Column(name = "expira", nullable = false)
+    private LocalDateTime expira;
+
+    @Column(name = "usado", nullable = false)
+    private boolean usado;
+}
@@ -0,0 +1,33 @@
+package com.example.demo.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Acumulado de ventas por día, producto y mesero: unidades e importe de las
+ * líneas de las comandas de ese día. Lo mantiene VentasDiariasService con
+ * deltas en la misma transacción que modifica los detalles, y se puede
+ * reconstruir desde detalle_comanda.
+ */
+@Entity
+@Table(name = "ventas_diarias")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class VentaDiaria {
+
+    @EmbeddedId
+    @EqualsAndHashCode.Include
+    private VentaDiariaId id;
+
+    @Column(name = "cantidad", nullable = false)
+    private Long cantidad;
+
+    @Column(name = "importe", nullable = false, precision = 14, scale = 2)
+    private BigDecimal importe;
+}
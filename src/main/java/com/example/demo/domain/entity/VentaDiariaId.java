@@ -0,0 +1,31 @@
+package com.example.demo.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Clave de ventas_diarias: día de la comanda × producto × mesero.
+ * La fecha va primero para que las consultas por rango de días usen la clave primaria.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class VentaDiariaId implements Serializable {
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "id_producto", nullable = false)
+    private Integer idProducto;
+
+    @Column(name = "id_mesero", nullable = false, length = 20)
+    private String idMesero;
+}
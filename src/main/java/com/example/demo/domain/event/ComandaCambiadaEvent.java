@@ -0,0 +1,31 @@
+package com.example.demo.domain.event;
+
+/**
+ * Evento publicado cuando una comanda o alguno de sus detalles cambia.
+ * Se procesa tras el commit de la transacción que lo publicó.
+ */
+public record ComandaCambiadaEvent(Integer idComanda, Tipo tipo) {
+
+    public ComandaCambiadaEvent(Integer idComanda) {
+        this(idComanda, Tipo.ACTUALIZADA);
+    }
+
+    public enum Tipo {
+        CREADA, ACTUALIZADA, ELIMINADA;
+
+        /**
+         * Tipo resultante de fusionar dos cambios consecutivos de la misma
+         * comanda: una eliminación prevalece sobre todo y una creación seguida
+         * de actualizaciones sigue siendo una creación.
+         */
+        public Tipo combinar(Tipo siguiente) {
+            if (this == ELIMINADA || siguiente == ELIMINADA) {
+                return ELIMINADA;
+            }
+            if (this == CREADA || siguiente == CREADA) {
+                return CREADA;
+            }
+            return ACTUALIZADA;
+        }
+    }
+}
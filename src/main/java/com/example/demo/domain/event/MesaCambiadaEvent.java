@@ -0,0 +1,21 @@
+package com.example.demo.domain.event;
+
+import com.example.demo.domain.entity.Mesa;
+
+/**
+ * Evento publicado cuando se crea, modifica o elimina una mesa.
+ * Lleva los datos ya guardados para que los oyentes no vuelvan a leerla;
+ * se procesa tras el commit de la transacción que lo publicó.
+ */
+public record MesaCambiadaEvent(Integer idMesa, Integer capacidad, String ubicacion, Integer idEstado,
+        boolean eliminada) {
+
+    public static MesaCambiadaEvent de(Mesa mesa) {
+        Integer idEstado = mesa.getEstado() != null ? mesa.getEstado().getIdEstado() : null;
+        return new MesaCambiadaEvent(mesa.getIdMesa(), mesa.getCapacidad(), mesa.getUbicacion(), idEstado, false);
+    }
+
+    public static MesaCambiadaEvent eliminada(Integer idMesa) {
+        return new MesaCambiadaEvent(idMesa, null, null, null, true);
+    }
+}
@@ -5,8 +5,6 @@ import com.example.demo.domain.entity.Comanda;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
-import java.math.BigDecimal;
-import java.util.Objects;
 import java.util.List;
 
 @Mapper(componentModel = "spring", uses = { MesaMapper.class, UsuarioMapper.class, EstadoMapper.class,
@@ -22,7 +20,6 @@ public interface ComandaMapper {
     @Mapping(target = "estadoId", source = "estado.idEstado")
     @Mapping(target = "estadoNombre", source = "estado.nombre")
     @Mapping(target = "detalles", source = "detalles")
-    @Mapping(target = "total", expression = "java(calcularTotal(entity))")
     ComandaDTO toDto(Comanda entity);
 
     @Mapping(target = "mesa", ignore = true)
@@ -30,6 +27,8 @@ public interface ComandaMapper {
     @Mapping(target = "cocinero", ignore = true)
     @Mapping(target = "estado", ignore = true)
     @Mapping(target = "detalles", ignore = true)
+    @Mapping(target = "total", ignore = true)
+    @Mapping(target = "cantidadLineas", ignore = true)
     Comanda toEntity(ComandaDTO dto);
 
     @Mapping(target = "idComanda", ignore = true)
@@ -39,19 +38,9 @@ public interface ComandaMapper {
     @Mapping(target = "cocinero", ignore = true)
     @Mapping(target = "estado", ignore = true)
     @Mapping(target = "detalles", ignore = true)
+    @Mapping(target = "total", ignore = true)
+    @Mapping(target = "cantidadLineas", ignore = true)
     void updateEntityFromDto(ComandaDTO dto, @org.mapstruct.MappingTarget Comanda entity);
 
     List<ComandaDTO> toDtoList(List<Comanda> entities);
-
-    // Helper para calcular el total sumando subtotales (asume BigDecimal en
-    // DetalleComanda.getSubtotal())
-    default BigDecimal calcularTotal(Comanda entity) {
-        if (entity == null || entity.getDetalles() == null) {
-            return BigDecimal.ZERO;
-        }
-        return entity.getDetalles().stream()
-                .map(d -> d.getSubtotal())
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 }
@@ -24,6 +24,7 @@ public interface DetalleComandaMapper {
     @Mapping(source = "comanda.idComanda", target = "comandaId")
     @Mapping(source = "producto.idProducto", target = "productoId")
     @Mapping(source = "producto.nombre", target = "productoNombre")
+    @Mapping(source = "producto.categoria.idCategoria", target = "categoriaId")
     DetalleComandaDTO toDto(DetalleComanda entity);
 
     /**
@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,6 +16,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -29,13 +32,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = getTokenFromRequest(request);
 
-        if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-            String username = jwtTokenProvider.getUsernameFromToken(token);
+        // Un solo parseo por petición: los claims ya validados salen de la caché del proveedor
+        Optional<JwtTokenProvider.TokenClaims> claims =
+                StringUtils.hasText(token) ? jwtTokenProvider.parseClaims(token) : Optional.empty();
+        if (claims.isPresent()) {
+            String username = claims.get().email();
+            String rol = claims.get().rol();
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities());
+            UsernamePasswordAuthenticationToken authenticationToken;
+            if (rol != null) {
+                // Email y rol salen del token: la petición se autentica sin consultar la base de datos
+                authenticationToken = new UsernamePasswordAuthenticationToken(
+                        username, null, List.of(new SimpleGrantedAuthority("ROLE_" + rol)));
+            } else {
+                // Tokens emitidos antes de llevar el rol: se carga el usuario como antes
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                authenticationToken = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+            }
 
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
@@ -1,69 +1,231 @@
 package com.example.demo.infrastructure.config;
 
+import com.example.demo.application.service.TokenEpochRegistry;
+import com.example.demo.shared.constants.ApiConstants;
+import com.example.demo.shared.util.HashUtil;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Emite y valida los JWT de la API y de las conexiones STOMP.
+ *
+ * La clave HMAC y el parser se construyen una sola vez. Los datos de cada
+ * token válido (TokenClaims, inmutable) se guardan por su huella SHA-256 hasta
+ * que el token expira: un cliente que repite el mismo token no vuelve a pagar
+ * la verificación de la firma ni el parseo. La caché es un ConcurrentHashMap
+ * y las lecturas no toman ningún cerrojo; al superar jwt.cache.max-entradas
+ * un solo hilo purga los expirados y, si no basta, los guardados hace más
+ * tiempo.
+ *
+ * El token lleva el ID, el rol y la época del usuario, así que basta para
+ * autenticar la petición; la época se comprueba en cada uso contra
+ * TokenEpochRegistry, también en los aciertos de caché.
+ */
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class JwtTokenProvider {
 
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final TokenEpochRegistry tokenEpochRegistry;
+
     @Value("${jwt.secret:miClaveSecretaMuyLargaParaJWTQueDebeTenerAlMenos256Bits}")
     private String jwtSecret;
 
-    @Value("${jwt.expiration:86400000}") // 24 horas por defecto
+    // Vida corta: la sesión se prolonga con el token de refresco, sin volver a pedir la contraseña
+    @Value("${jwt.expiration:900000}") // 15 minutos por defecto
     private int jwtExpirationInMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Value("${jwt.cache.max-entradas:10000}")
+    private int maxEntradas = 10000;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    private final Map<String, Guardado> validados = new ConcurrentHashMap<>();
+    // Orden de alta en la caché: al purgar por tamaño se descartan primero los más antiguos
+    private final AtomicLong altas = new AtomicLong();
+    // Solo lo toma quien purga, con tryLock: el resto de peticiones no espera
+    private final ReentrantLock purga = new ReentrantLock();
+
+    @PostConstruct
+    public void iniciar() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
-    public String generateToken(Authentication authentication) {
+    public String generateToken(Authentication authentication, String idUsuario) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        return generateToken(userPrincipal.getUsername(), idUsuario, getRol(userPrincipal));
+    }
 
+    /**
+     * Access token a partir de los datos ya conocidos del usuario: lo usa el
+     * refresco de sesión, que no vuelve a autenticar con contraseña.
+     */
+    public String generateToken(String email, String idUsuario, String rol) {
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs);
 
         return Jwts.builder()
-                .setSubject(userPrincipal.getUsername())
+                .setSubject(email)
+                .claim(ApiConstants.JWT_CLAIM_USUARIO, idUsuario)
+                .claim(ApiConstants.JWT_CLAIM_ROL, rol)
+                .claim(ApiConstants.JWT_CLAIM_EPOCA, tokenEpochRegistry.actual(idUsuario))
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Datos de un token con firma válida, no expirado y no revocado; vacío en
+     * cualquier otro caso. Un token ya validado se resuelve desde la caché.
+     */
+    public Optional<TokenClaims> parseClaims(String token) {
+        if (token == null || token.isBlank()) {
+            log.error("JWT claims string is empty.");
+            return Optional.empty();
+        }
 
-        return claims.getSubject();
-    }
+        String huella = HashUtil.sha256Hex(token);
+        Guardado guardado = validados.get(huella);
+        if (guardado != null) {
+            if (System.currentTimeMillis() < guardado.claims().expiraEn()) {
+                return vigente(guardado.claims());
+            }
+            validados.remove(huella, guardado);
+        }
 
-    public boolean validateToken(String authToken) {
+        Claims claims;
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            claims = jwtParser.parseClaimsJws(token).getBody();
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token");
+            return Optional.empty();
         } catch (ExpiredJwtException ex) {
             log.error("Expired JWT token");
+            return Optional.empty();
         } catch (UnsupportedJwtException ex) {
             log.error("Unsupported JWT token");
+            return Optional.empty();
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty.");
+            return Optional.empty();
+        } catch (JwtException ex) {
+            log.error("Invalid JWT signature");
+            return Optional.empty();
+        }
+
+        TokenClaims validado = TokenClaims.de(claims);
+        // Un token sin expiración no se guarda: se verificaría para siempre sin volver a mirar la firma
+        if (claims.getExpiration() != null) {
+            validados.put(huella, new Guardado(validado, altas.incrementAndGet()));
+            if (validados.size() > maxEntradas) {
+                purgar();
+            }
+        }
+        return vigente(validado);
+    }
+
+    /**
+     * Descarta los tokens expirados y, si la caché sigue llena, los guardados
+     * hace más tiempo hasta dejar un 10 % de margen, para no purgar en cada alta.
+     */
+    private void purgar() {
+        if (!purga.tryLock()) {
+            return;
+        }
+        try {
+            long ahora = System.currentTimeMillis();
+            validados.values().removeIf(guardado -> ahora >= guardado.claims().expiraEn());
+            int sobrantes = validados.size() - maxEntradas * 9 / 10;
+            if (sobrantes <= 0) {
+                return;
+            }
+            validados.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entrada -> entrada.getValue().alta()))
+                    .limit(sobrantes)
+                    .toList()
+                    .forEach(entrada -> validados.remove(entrada.getKey(), entrada.getValue()));
+        } finally {
+            purga.unlock();
         }
-        return false;
     }
-}
\ No newline at end of file
+
+    public long getExpirationInSeconds() {
+        return jwtExpirationInMs / 1000L;
+    }
+
+    /**
+     * Rol del usuario autenticado sin el prefijo ROLE_.
+     */
+    public static String getRol(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(a -> a.startsWith(ROLE_PREFIX) ? a.substring(ROLE_PREFIX.length()) : a)
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Los tokens sin ID de usuario (emitidos antes de llevarlo) no se pueden revocar y valen hasta expirar
+    private Optional<TokenClaims> vigente(TokenClaims claims) {
+        if (claims.idUsuario() != null && !tokenEpochRegistry.vigente(claims.idUsuario(), claims.epoca())) {
+            log.error("Revoked JWT token");
+            return Optional.empty();
+        }
+        return Optional.of(claims);
+    }
+
+    public String getUsernameFromToken(String token) {
+        return parseClaims(token)
+                .map(TokenClaims::email)
+                .orElseThrow(() -> new JwtException("Token JWT inválido"));
+    }
+
+    public boolean validateToken(String authToken) {
+        return parseClaims(authToken).isPresent();
+    }
+
+    /**
+     * Lo que la autenticación necesita de un token ya validado. Inmutable, así
+     * que la misma instancia se comparte entre peticiones sin riesgo.
+     * El rol va sin el prefijo ROLE_; rol e idUsuario son nulos en tokens
+     * emitidos antes de incluirlos.
+     */
+    public record TokenClaims(String email, String idUsuario, String rol, long epoca, long expiraEn) {
+
+        static TokenClaims de(Claims claims) {
+            Long epoca = claims.get(ApiConstants.JWT_CLAIM_EPOCA, Long.class);
+            Date expiracion = claims.getExpiration();
+            return new TokenClaims(
+                    claims.getSubject(),
+                    claims.get(ApiConstants.JWT_CLAIM_USUARIO, String.class),
+                    claims.get(ApiConstants.JWT_CLAIM_ROL, String.class),
+                    epoca != null ? epoca : 0L,
+                    expiracion != null ? expiracion.getTime() : Long.MAX_VALUE);
+        }
+    }
+
+    private record Guardado(TokenClaims claims, long alta) {
+    }
+}
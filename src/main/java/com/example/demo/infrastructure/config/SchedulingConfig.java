@@ -0,0 +1,10 @@
+package com.example.demo.infrastructure.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Habilita las tareas @Scheduled (verificaciones y procesos periódicos)
+}
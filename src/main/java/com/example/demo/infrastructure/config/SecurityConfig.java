@@ -1,5 +1,6 @@
 package com.example.demo.infrastructure.config;
 
+import com.example.demo.shared.constants.ApiConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,6 +33,8 @@ public class SecurityConfig {
                     corsConfiguration.setAllowedOriginPatterns(java.util.List.of("*"));
                     corsConfiguration.setAllowedMethods(java.util.List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
                     corsConfiguration.setAllowedHeaders(java.util.List.of("*"));
+                    corsConfiguration.setExposedHeaders(java.util.List.of(ApiConstants.NEXT_CURSOR_HEADER,
+                            ApiConstants.IDEMPOTENT_REPLAYED_HEADER));
                     corsConfiguration.setAllowCredentials(true);
                     return corsConfiguration;
                 }))
@@ -1,13 +1,23 @@
 package com.example.demo.infrastructure.persistence.repository;
 
 import com.example.demo.domain.entity.Comanda;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ComandaRepository extends JpaRepository<Comanda, Integer> {
@@ -41,6 +51,183 @@ public interface ComandaRepository extends JpaRepository<Comanda, Integer> {
     @Query("SELECT c FROM Comanda c ORDER BY c.fecha DESC")
     List<Comanda> findAllOrderByFechaDesc();
 
+    // ⭐ Conteos del dashboard en [inicio, fin): se resuelven en los índices por fecha y estado
+    interface ConteoPorEstado {
+        Integer getIdEstado();
+
+        Long getCantidad();
+    }
+
+    @Query("SELECT COUNT(c) FROM Comanda c WHERE c.fecha >= :inicio AND c.fecha < :fin")
+    long contarEntre(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
+    @Query("SELECT c.estado.idEstado AS idEstado, COUNT(c) AS cantidad FROM Comanda c "
+            + "WHERE c.fecha >= :inicio AND c.fecha < :fin GROUP BY c.estado.idEstado")
+    List<ConteoPorEstado> contarPorEstadoEntre(@Param("inicio") LocalDateTime inicio,
+            @Param("fin") LocalDateTime fin);
+
+    // ⭐ Estado de cada comanda con fecha en [inicio, fin): reconstrucción de los contadores en vivo
+    interface EstadoDeComanda {
+        Integer getIdComanda();
+
+        Integer getIdEstado();
+    }
+
+    @Query("SELECT c.idComanda AS idComanda, c.estado.idEstado AS idEstado FROM Comanda c "
+            + "WHERE c.fecha >= :inicio AND c.fecha < :fin")
+    List<EstadoDeComanda> findEstadosEntre(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
+    // ⭐ Comandas por tramo de 15 minutos con fecha en [origen, fin), relativo a :origen
+    interface ComandasPorTramo {
+        Long getTramo();
+
+        Long getCantidad();
+    }
+
+    @Query(value = "SELECT TIMESTAMPDIFF(MINUTE, :origen, c.fecha) DIV 15 AS tramo, COUNT(*) AS cantidad "
+            + "FROM comandas c WHERE c.fecha >= :origen AND c.fecha < :fin GROUP BY tramo", nativeQuery = true)
+    List<ComandasPorTramo> contarPorTramoEntre(@Param("origen") LocalDateTime origen,
+            @Param("fin") LocalDateTime fin);
+
+    // ⭐ Mesa y fecha de las comandas que no están en un estado: carga del plano de mesas
+    interface ComandaDeMesa {
+        Integer getIdComanda();
+
+        Integer getIdMesa();
+
+        LocalDateTime getFecha();
+    }
+
+    @Query("SELECT c.idComanda AS idComanda, c.mesa.idMesa AS idMesa, c.fecha AS fecha FROM Comanda c "
+            + "WHERE c.estado.idEstado <> :idEstado")
+    List<ComandaDeMesa> findComandasDeMesaByEstadoIdEstadoNot(@Param("idEstado") Integer idEstado);
+
+    @Query("SELECT MIN(c.fecha) FROM Comanda c")
+    LocalDateTime findPrimeraFecha();
+
     @Query("SELECT c FROM Comanda c WHERE DATE(c.fecha) = CURRENT_DATE ORDER BY c.fecha DESC")
     List<Comanda> findComandasDelDia();
-}
\ No newline at end of file
+
+    // ⭐ Variantes con relaciones precargadas para mapear a DTO sin N+1.
+    // Las relaciones to-one se traen con JOIN; los detalles se cargan aparte con
+    // findConDetallesByIdComandaIn para no multiplicar filas.
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    @Query("SELECT c FROM Comanda c")
+    List<Comanda> findAllConRelaciones();
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    Optional<Comanda> findConRelacionesByIdComanda(Integer idComanda);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    List<Comanda> findConRelacionesByMesaIdMesa(Integer idMesa);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    List<Comanda> findConRelacionesByMeseroIdUsuario(String idMesero);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    List<Comanda> findConRelacionesByCocineroIdUsuario(String idCocinero);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    List<Comanda> findConRelacionesByEstadoIdEstado(Integer idEstado);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    List<Comanda> findConRelacionesByEstadoIdEstadoNot(Integer idEstado);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    List<Comanda> findConRelacionesByFechaBetween(LocalDateTime fechaInicio, LocalDateTime fechaFin);
+
+    /**
+     * Segunda fase de la carga: inicializa detalles y productos de las comandas
+     * indicadas (ya presentes en el contexto de persistencia) con un único IN.
+     */
+    @Query("SELECT DISTINCT c FROM Comanda c LEFT JOIN FETCH c.detalles d LEFT JOIN FETCH d.producto "
+            + "WHERE c.idComanda IN :ids")
+    List<Comanda> findConDetallesByIdComandaIn(@Param("ids") Collection<Integer> ids);
+
+    // ⭐ Paginación por keyset sobre (fecha, idComanda), de la más reciente a la más antigua.
+    // Devuelve las filas estrictamente posteriores al cursor; el coste no depende de la página.
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    @Query("SELECT c FROM Comanda c WHERE c.fecha < :fecha OR (c.fecha = :fecha AND c.idComanda < :idComanda) "
+            + "ORDER BY c.fecha DESC, c.idComanda DESC")
+    List<Comanda> findPagina(@Param("fecha") LocalDateTime fecha, @Param("idComanda") Integer idComanda,
+            Pageable pageable);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    @Query("SELECT c FROM Comanda c WHERE c.estado.idEstado = :idEstado "
+            + "AND (c.fecha < :fecha OR (c.fecha = :fecha AND c.idComanda < :idComanda)) "
+            + "ORDER BY c.fecha DESC, c.idComanda DESC")
+    List<Comanda> findPaginaByEstado(@Param("idEstado") Integer idEstado, @Param("fecha") LocalDateTime fecha,
+            @Param("idComanda") Integer idComanda, Pageable pageable);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    @Query("SELECT c FROM Comanda c WHERE c.mesero.idUsuario = :idMesero "
+            + "AND (c.fecha < :fecha OR (c.fecha = :fecha AND c.idComanda < :idComanda)) "
+            + "ORDER BY c.fecha DESC, c.idComanda DESC")
+    List<Comanda> findPaginaByMesero(@Param("idMesero") String idMesero, @Param("fecha") LocalDateTime fecha,
+            @Param("idComanda") Integer idComanda, Pageable pageable);
+
+    @EntityGraph(attributePaths = { "mesa", "mesero", "cocinero", "estado" })
+    @Query("SELECT c FROM Comanda c WHERE c.fecha BETWEEN :fechaInicio AND :fechaFin "
+            + "AND (c.fecha < :fecha OR (c.fecha = :fecha AND c.idComanda < :idComanda)) "
+            + "ORDER BY c.fecha DESC, c.idComanda DESC")
+    List<Comanda> findPaginaByFechaBetween(@Param("fechaInicio") LocalDateTime fechaInicio,
+            @Param("fechaFin") LocalDateTime fechaFin, @Param("fecha") LocalDateTime fecha,
+            @Param("idComanda") Integer idComanda, Pageable pageable);
+
+    /**
+     * Recorre las comandas del rango como stream de cursor de servidor (fetch size
+     * &gt; 0 activa el streaming en el driver de MariaDB). Las filas de una misma
+     * comanda llegan contiguas gracias al ORDER BY, lo que permite el fetch de
+     * detalles. Debe consumirse dentro de una transacción.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Comanda c JOIN FETCH c.mesa JOIN FETCH c.mesero LEFT JOIN FETCH c.cocinero "
+            + "JOIN FETCH c.estado LEFT JOIN FETCH c.detalles d LEFT JOIN FETCH d.producto "
+            + "WHERE c.fecha BETWEEN :fechaInicio AND :fechaFin ORDER BY c.fecha, c.idComanda")
+    Stream<Comanda> streamByFechaBetween(@Param("fechaInicio") LocalDateTime fechaInicio,
+            @Param("fechaFin") LocalDateTime fechaFin);
+
+    // ⭐ Total persistido: lectura de una columna y actualización atómica por delta
+    @Query("SELECT c.total FROM Comanda c WHERE c.idComanda = :idComanda")
+    Optional<BigDecimal> findTotalByIdComanda(@Param("idComanda") Integer idComanda);
+
+    // ⭐ Total y número de líneas tal como quedaron tras los UPDATE de delta de la transacción
+    interface TotalesComanda {
+        BigDecimal getTotal();
+
+        Integer getCantidadLineas();
+    }
+
+    @Query("SELECT c.total AS total, c.cantidadLineas AS cantidadLineas FROM Comanda c WHERE c.idComanda = :idComanda")
+    Optional<TotalesComanda> findTotalesByIdComanda(@Param("idComanda") Integer idComanda);
+
+    @Modifying
+    @Query("UPDATE Comanda c SET c.total = c.total + :deltaTotal, c.cantidadLineas = c.cantidadLineas + :deltaLineas "
+            + "WHERE c.idComanda = :idComanda")
+    int ajustarTotales(@Param("idComanda") Integer idComanda, @Param("deltaTotal") BigDecimal deltaTotal,
+            @Param("deltaLineas") int deltaLineas);
+
+    @Modifying
+    @Query("UPDATE Comanda c SET c.total = 0, c.cantidadLineas = 0 WHERE c.idComanda = :idComanda")
+    int reiniciarTotales(@Param("idComanda") Integer idComanda);
+
+    // Verificación de deriva por tramos de ID: comandas cuyo total o número de líneas no coincide con sus detalles
+    @Query("SELECT c.idComanda FROM Comanda c WHERE c.idComanda BETWEEN :desde AND :hasta AND ("
+            + "c.total <> (SELECT COALESCE(SUM(d.subtotal), 0) FROM DetalleComanda d WHERE d.comanda = c) "
+            + "OR c.cantidadLineas <> (SELECT COUNT(d) FROM DetalleComanda d WHERE d.comanda = c))")
+    List<Integer> findIdsConTotalesDesincronizados(@Param("desde") Integer desde, @Param("hasta") Integer hasta);
+
+    @Query("SELECT MAX(c.idComanda) FROM Comanda c")
+    Optional<Integer> findMaxIdComanda();
+
+    @Modifying
+    @Query("UPDATE Comanda c SET "
+            + "c.total = (SELECT COALESCE(SUM(d.subtotal), 0) FROM DetalleComanda d "
+            + "WHERE d.comanda.idComanda = c.idComanda), "
+            + "c.cantidadLineas = (SELECT COUNT(d) FROM DetalleComanda d WHERE d.comanda.idComanda = c.idComanda) "
+            + "WHERE c.idComanda IN :ids")
+    int recalcularTotales(@Param("ids") Collection<Integer> ids);
+}
@@ -0,0 +1,18 @@
+package com.example.demo.infrastructure.persistence.repository;
+
+import com.example.demo.domain.entity.DetalleComanda;
+
+import java.util.List;
+
+/**
+ * Fragmento de repositorio para inserciones masivas de detalles.
+ * Hibernate no agrupa INSERTs con claves IDENTITY, por eso se usa JDBC batch.
+ */
+public interface DetalleComandaBatchRepository {
+
+    /**
+     * Inserta todos los detalles en un único batch JDBC.
+     * Los detalles deben tener comanda y producto asignados.
+     */
+    void insertarEnLote(List<DetalleComanda> detalles);
+}
@@ -0,0 +1,30 @@
+package com.example.demo.infrastructure.persistence.repository;
+
+import com.example.demo.domain.entity.DetalleComanda;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class DetalleComandaBatchRepositoryImpl implements DetalleComandaBatchRepository {
+
+    private static final String INSERT_DETALLE = "INSERT INTO detalle_comanda "
+            + "(comanda, producto, precio_unitario, cantidad, subtotal) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertarEnLote(List<DetalleComanda> detalles) {
+        if (detalles.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_DETALLE, detalles, detalles.size(), (ps, detalle) -> {
+            ps.setInt(1, detalle.getComanda().getIdComanda());
+            ps.setInt(2, detalle.getProducto().getIdProducto());
+            ps.setBigDecimal(3, detalle.getPrecioUnitario());
+            ps.setInt(4, detalle.getCantidad());
+            ps.setBigDecimal(5, detalle.getSubtotal());
+        });
+    }
+}
@@ -1,17 +1,105 @@
 package com.example.demo.infrastructure.persistence.repository;
 
 import com.example.demo.domain.entity.DetalleComanda;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface DetalleComandaRepository extends JpaRepository<DetalleComanda, Integer> {
+public interface DetalleComandaRepository extends JpaRepository<DetalleComanda, Integer>,
+        DetalleComandaBatchRepository {
 
     List<DetalleComanda> findByComandaIdComanda(Integer idComanda);
 
     List<DetalleComanda> findByProductoIdProducto(Integer idProducto);
 
     void deleteByComandaIdComanda(Integer idComanda);
+
+    boolean existsByComandaIdComandaAndProductoIdProducto(Integer idComanda, Integer idProducto);
+
+    Optional<DetalleComanda> findByComandaIdComandaAndProductoIdProducto(Integer idComanda, Integer idProducto);
+
+    // ⭐ Unidades actuales de la línea, sin cargar la entidad en el contexto de persistencia
+    @Query("SELECT d.cantidad FROM DetalleComanda d " +
+            "WHERE d.comanda.idComanda = :idComanda AND d.producto.idProducto = :idProducto")
+    Optional<Integer> findCantidad(@Param("idComanda") Integer idComanda, @Param("idProducto") Integer idProducto);
+
+    /**
+     * ⭐ Suma unidades a la línea del producto o la crea si no existe, apoyándose
+     * en uk_detalle_comanda_producto. Una línea existente conserva su precio
+     * unitario. El subtotal se asigna antes que la cantidad para que el
+     * resultado sea el mismo tanto si el motor evalúa las asignaciones de
+     * izquierda a derecha (MariaDB) como con los valores originales.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO detalle_comanda (comanda, producto, precio_unitario, cantidad, subtotal) " +
+            "VALUES (:idComanda, :idProducto, :precioUnitario, :cantidad, ROUND(:precioUnitario * :cantidad, 2)) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "subtotal = ROUND(precio_unitario * (cantidad + VALUES(cantidad)), 2), " +
+            "cantidad = cantidad + VALUES(cantidad)", nativeQuery = true)
+    int sumarCantidad(@Param("idComanda") Integer idComanda, @Param("idProducto") Integer idProducto,
+            @Param("precioUnitario") BigDecimal precioUnitario, @Param("cantidad") Integer cantidad);
+
+    /**
+     * ⭐ Resta unidades a una línea existente sin dejarla en negativo.
+     * Devuelve 0 si la línea no existe o no tiene unidades suficientes.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE detalle_comanda " +
+            "SET subtotal = ROUND(precio_unitario * (cantidad - :cantidad), 2), cantidad = cantidad - :cantidad " +
+            "WHERE comanda = :idComanda AND producto = :idProducto AND cantidad >= :cantidad", nativeQuery = true)
+    int restarCantidad(@Param("idComanda") Integer idComanda, @Param("idProducto") Integer idProducto,
+            @Param("cantidad") Integer cantidad);
+
+    // ⭐ Ventas de las comandas con fecha en [inicio, fin) por producto y mesero
+    interface VentaPorProductoYMesero {
+        Integer getIdProducto();
+
+        String getIdMesero();
+
+        Long getCantidad();
+
+        BigDecimal getImporte();
+    }
+
+    @Query("SELECT d.producto.idProducto AS idProducto, c.mesero.idUsuario AS idMesero, "
+            + "SUM(d.cantidad) AS cantidad, SUM(d.subtotal) AS importe "
+            + "FROM DetalleComanda d JOIN d.comanda c WHERE c.fecha >= :inicio AND c.fecha < :fin "
+            + "GROUP BY d.producto.idProducto, c.mesero.idUsuario")
+    List<VentaPorProductoYMesero> resumirPorProductoYMeseroEntre(@Param("inicio") LocalDateTime inicio,
+            @Param("fin") LocalDateTime fin);
+
+    // ⭐ Ventas por tramo de 15 minutos de las comandas con fecha en [origen, fin);
+    // el tramo es relativo a :origen (0 = primeros 15 minutos)
+    interface VentaPorTramo {
+        Long getTramo();
+
+        Long getCantidad();
+
+        BigDecimal getImporte();
+    }
+
+    @Query(value = "SELECT TIMESTAMPDIFF(MINUTE, :origen, c.fecha) DIV 15 AS tramo, "
+            + "SUM(d.cantidad) AS cantidad, SUM(d.subtotal) AS importe "
+            + "FROM detalle_comanda d JOIN comandas c ON c.id_comanda = d.comanda "
+            + "WHERE c.fecha >= :origen AND c.fecha < :fin GROUP BY tramo", nativeQuery = true)
+    List<VentaPorTramo> resumirPorTramoEntre(@Param("origen") LocalDateTime origen, @Param("fin") LocalDateTime fin);
+
+    // Paginación por keyset sobre el ID del detalle (de más reciente a más antiguo)
+    @EntityGraph(attributePaths = { "producto" })
+    List<DetalleComanda> findByIdDetalleComandaLessThanOrderByIdDetalleComandaDesc(Integer idDetalleComanda,
+            Pageable pageable);
+
+    @EntityGraph(attributePaths = { "producto" })
+    List<DetalleComanda> findByProductoIdProductoAndIdDetalleComandaLessThanOrderByIdDetalleComandaDesc(
+            Integer idProducto, Integer idDetalleComanda, Pageable pageable);
 }
@@ -2,12 +2,15 @@ package com.example.demo.infrastructure.persistence.repository;
 
 import com.example.demo.domain.entity.Producto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Integer> {
+public interface ProductoRepository extends JpaRepository<Producto, Integer>, ProductoStockBatchRepository {
 
     /**
      * Busca productos por categoría
@@ -34,4 +37,20 @@ public interface ProductoRepository extends JpaRepository<Producto, Integer> {
      * ESTE ES EL MÉTODO QUE FALTABA ✅
      */
     boolean existsByNombreIgnoreCase(String nombre);
+
+    /**
+     * ⭐ Descuenta stock de forma atómica solo si alcanza.
+     * Devuelve 0 si el producto no existe o el stock es insuficiente.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad " +
+            "WHERE p.idProducto = :idProducto AND p.stock >= :cantidad")
+    int descontarStock(@Param("idProducto") Integer idProducto, @Param("cantidad") Integer cantidad);
+
+    /**
+     * ⭐ Repone stock de forma atómica
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad WHERE p.idProducto = :idProducto")
+    int reponerStock(@Param("idProducto") Integer idProducto, @Param("cantidad") Integer cantidad);
 }
\ No newline at end of file
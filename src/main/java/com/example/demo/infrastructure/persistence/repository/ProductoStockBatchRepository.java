@@ -0,0 +1,14 @@
+package com.example.demo.infrastructure.persistence.repository;
+
+import java.util.Map;
+
+/**
+ * Fragmento con el volcado en lote de deltas de stock acumulados en memoria.
+ */
+public interface ProductoStockBatchRepository {
+
+    /**
+     * Suma a cada producto su delta (positivo o negativo) con un único batch JDBC.
+     */
+    void ajustarStockEnLote(Map<Integer, Integer> deltas);
+}
@@ -0,0 +1,28 @@
+package com.example.demo.infrastructure.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ProductoStockBatchRepositoryImpl implements ProductoStockBatchRepository {
+
+    private static final String UPDATE_STOCK = "UPDATE productos SET stock = stock + ? WHERE id_producto = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void ajustarStockEnLote(Map<Integer, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Integer, Integer>> filas = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_STOCK, filas, filas.size(), (ps, fila) -> {
+            ps.setInt(1, fila.getValue());
+            ps.setInt(2, fila.getKey());
+        });
+    }
+}
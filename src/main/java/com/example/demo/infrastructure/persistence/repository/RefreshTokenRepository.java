@@ -0,0 +1,54 @@
+package com.example.demo.infrastructure.persistence.repository;
+
+import com.example.demo.domain.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // Tokens vigentes con los datos de su usuario: carga del índice en memoria
+    interface SesionGuardada {
+        String getHash();
+
+        String getIdUsuario();
+
+        String getEmail();
+
+        Integer getIdRol();
+
+        String getFamilia();
+
+        LocalDateTime getExpira();
+
+        Boolean getUsado();
+    }
+
+    @Query("SELECT r.hash AS hash, u.idUsuario AS idUsuario, u.email AS email, u.rol.idRol AS idRol, "
+            + "r.familia AS familia, r.expira AS expira, r.usado AS usado "
+            + "FROM RefreshToken r JOIN r.usuario u WHERE r.expira > :ahora")
+    List<SesionGuardada> findVigentes(@Param("ahora") LocalDateTime ahora);
+
+    // Marca condicional: de dos rotaciones simultáneas del mismo token solo una cuenta una fila
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.usado = true WHERE r.hash = :hash AND r.usado = false")
+    int marcarUsado(@Param("hash") String hash);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.familia = :familia")
+    int eliminarFamilia(@Param("familia") String familia);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.usuario.idUsuario = :idUsuario")
+    int eliminarPorUsuario(@Param("idUsuario") String idUsuario);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expira <= :ahora")
+    int eliminarExpirados(@Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,28 @@
+package com.example.demo.infrastructure.persistence.repository;
+
+import com.example.demo.domain.entity.VentaDiariaId;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Fragmento con la acumulación en lote de deltas de ventas diarias.
+ */
+public interface VentaDiariaBatchRepository {
+
+    record Movimiento(long cantidad, BigDecimal importe) {
+
+        public Movimiento sumar(Movimiento otro) {
+            return new Movimiento(cantidad + otro.cantidad, importe.add(otro.importe));
+        }
+
+        public boolean esNulo() {
+            return cantidad == 0 && importe.signum() == 0;
+        }
+    }
+
+    /**
+     * Suma cada movimiento a su fila (creándola si no existe) con un único batch JDBC.
+     */
+    void acumularEnLote(Map<VentaDiariaId, Movimiento> movimientos);
+}
@@ -0,0 +1,48 @@
+package com.example.demo.infrastructure.persistence.repository;
+
+import com.example.demo.domain.entity.VentaDiariaId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class VentaDiariaBatchRepositoryImpl implements VentaDiariaBatchRepository {
+
+    private static final String UPSERT_VENTA = "INSERT INTO ventas_diarias "
+            + "(fecha, id_producto, id_mesero, cantidad, importe) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad), importe = importe + VALUES(importe)";
+
+    // Orden de la clave primaria: dos transacciones que tocan las mismas filas las bloquean en el mismo orden
+    // y InnoDB no las interbloquea
+    private static final Comparator<VentaDiariaId> ORDEN_CLAVE = Comparator.comparing(VentaDiariaId::getFecha)
+            .thenComparing(VentaDiariaId::getIdProducto)
+            .thenComparing(VentaDiariaId::getIdMesero);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void acumularEnLote(Map<VentaDiariaId, Movimiento> movimientos) {
+        List<Map.Entry<VentaDiariaId, Movimiento>> filas = new ArrayList<>();
+        for (Map.Entry<VentaDiariaId, Movimiento> fila : movimientos.entrySet()) {
+            if (!fila.getValue().esNulo()) {
+                filas.add(fila);
+            }
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+        filas.sort(Map.Entry.comparingByKey(ORDEN_CLAVE));
+        jdbcTemplate.batchUpdate(UPSERT_VENTA, filas, filas.size(), (ps, fila) -> {
+            ps.setDate(1, Date.valueOf(fila.getKey().getFecha()));
+            ps.setInt(2, fila.getKey().getIdProducto());
+            ps.setString(3, fila.getKey().getIdMesero());
+            ps.setLong(4, fila.getValue().cantidad());
+            ps.setBigDecimal(5, fila.getValue().importe());
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.infrastructure.persistence.repository;
+
+import com.example.demo.domain.entity.VentaDiaria;
+import com.example.demo.domain.entity.VentaDiariaId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, VentaDiariaId>, VentaDiariaBatchRepository {
+
+    interface ResumenVentas {
+        Long getCantidad();
+
+        BigDecimal getImporte();
+    }
+
+    // Rango de días [desde, hasta]: recorre solo las filas del acumulado en ese rango
+    @Query("SELECT COALESCE(SUM(v.cantidad), 0) AS cantidad, COALESCE(SUM(v.importe), 0) AS importe "
+            + "FROM VentaDiaria v WHERE v.id.fecha BETWEEN :desde AND :hasta")
+    ResumenVentas resumirEntre(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT COALESCE(SUM(v.cantidad), 0) AS cantidad, COALESCE(SUM(v.importe), 0) AS importe "
+            + "FROM VentaDiaria v")
+    ResumenVentas resumirTodo();
+
+    // ---------- RANKING DE PRODUCTOS ---------- //
+
+    interface VentaPorProducto {
+        Integer getIdProducto();
+
+        String getNombre();
+
+        Integer getIdCategoria();
+
+        String getCategoria();
+
+        Boolean getActivo();
+
+        Long getCantidad();
+
+        BigDecimal getImporte();
+    }
+
+    /**
+     * Ventas de cada producto entre los días indicados (ambos incluidos), con su
+     * categoría; los productos sin ventas aparecen con cantidad 0. El acumulado
+     * se agrupa antes del join, recorriendo solo el rango de la clave primaria.
+     * Se lee como stream (fetch size &gt; 0) y requiere una transacción abierta.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT p.id_producto AS idProducto, p.nombre AS nombre, c.id_categoria AS idCategoria, "
+            + "c.nombre AS categoria, p.estado AS activo, "
+            + "COALESCE(v.cantidad, 0) AS cantidad, COALESCE(v.importe, 0) AS importe "
+            + "FROM productos p JOIN categorias c ON c.id_categoria = p.categoria "
+            + "LEFT JOIN (SELECT id_producto, SUM(cantidad) AS cantidad, SUM(importe) AS importe "
+            + "FROM ventas_diarias WHERE fecha BETWEEN :desde AND :hasta GROUP BY id_producto) v "
+            + "ON v.id_producto = p.id_producto "
+            + "WHERE (:idCategoria IS NULL OR p.categoria = :idCategoria)", nativeQuery = true)
+    Stream<VentaPorProducto> streamVentasPorProductoEntre(@Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta, @Param("idCategoria") Integer idCategoria);
+
+    // ---------- RECONSTRUCCIÓN ---------- //
+
+    @Modifying
+    @Query("DELETE FROM VentaDiaria v WHERE v.id.fecha >= :desde AND v.id.fecha < :hasta")
+    int eliminarEntre(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Vuelve a calcular el acumulado de las comandas con fecha en [inicio, fin)
+     * desde detalle_comanda. Debe ir precedido de eliminarEntre para el mismo rango.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias (fecha, id_producto, id_mesero, cantidad, importe) "
+            + "SELECT CAST(c.fecha AS DATE), d.producto, c.id_mesero, SUM(d.cantidad), SUM(d.subtotal) "
+            + "FROM detalle_comanda d JOIN comandas c ON c.id_comanda = d.comanda "
+            + "WHERE c.fecha >= :inicio AND c.fecha < :fin "
+            + "GROUP BY CAST(c.fecha AS DATE), d.producto, c.id_mesero", nativeQuery = true)
+    int reconstruirEntre(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+}
@@ -3,6 +3,7 @@ package com.example.demo.infrastructure.web.controller;
 import com.example.demo.application.service.AuthService;
 import com.example.demo.infrastructure.web.dto.JwtResponseDTO;
 import com.example.demo.infrastructure.web.dto.LoginDTO;
+import com.example.demo.infrastructure.web.dto.RefreshTokenDTO;
 import com.example.demo.infrastructure.web.dto.RegisterDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,14 +23,27 @@ public class AuthController {
     @PostMapping("/login")
     @Operation(summary = "Iniciar sesión", description = "Autentica un usuario y devuelve un token JWT")
     public ResponseEntity<JwtResponseDTO> login(@Valid @RequestBody LoginDTO loginRequest) {
-        // TODO: Implementar lógica de login
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(authService.login(loginRequest));
     }
 
     @PostMapping("/register")
     @Operation(summary = "Registrar usuario", description = "Registra un nuevo usuario en el sistema")
     public ResponseEntity<JwtResponseDTO> register(@Valid @RequestBody RegisterDTO registerRequest) {
-        // TODO: Implementar lógica de registro
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(authService.register(registerRequest));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Renovar sesión",
+            description = "Devuelve un token JWT nuevo y sustituye el token de refresco, sin pedir la contraseña")
+    public ResponseEntity<JwtResponseDTO> refresh(@Valid @RequestBody RefreshTokenDTO request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Cerrar sesión",
+            description = "Revoca el token de refresco y los que se emitieron a partir de él")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenDTO request) {
+        authService.logout(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
     }
 }
@@ -1,17 +1,33 @@
 package com.example.demo.infrastructure.web.controller;
 
+import com.example.demo.application.service.ComandaNotificationService;
 import com.example.demo.application.service.ComandaService;
+import com.example.demo.application.service.DetalleComandaService;
+import com.example.demo.domain.dto.AjusteLineaDTO;
+import com.example.demo.domain.dto.CambiosComandaDTO;
 import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.dto.PaginaCursorDTO;
+import com.example.demo.shared.constants.ApiConstants;
+import com.example.demo.shared.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,6 +38,9 @@ import java.util.List;
 public class ComandaController {
 
     private final ComandaService comandaService;
+    private final DetalleComandaService detalleComandaService;
+    private final ComandaNotificationService comandaNotificationService;
+    private final ObjectMapper objectMapper;
 
     // =========================
     // 🔹 CONSULTAS (GET)
@@ -29,9 +48,16 @@ public class ComandaController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MESERO', 'COCINERO')")
-    @Operation(summary = "Listar todas las comandas")
-    public ResponseEntity<List<ComandaDTO>> getAll() {
-        return ResponseEntity.ok(comandaService.findAll());
+    @Operation(summary = "Listar comandas por páginas (10 por defecto; siguiente en X-Next-Cursor; "
+            + "todas=true sin paginar)")
+    public ResponseEntity<List<ComandaDTO>> getAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean todas) {
+        if (listadoCompleto(todas, cursor, limit)) {
+            return ResponseEntity.ok(comandaService.findAll());
+        }
+        return paginaResponse(comandaService.findPagina(cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -43,16 +69,26 @@ public class ComandaController {
 
     @GetMapping("/mesa/{mesaId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MESERO')")
-    @Operation(summary = "Obtener comandas por mesa")
-    public ResponseEntity<List<ComandaDTO>> getByMesa(@PathVariable Integer mesaId) {
-        return ResponseEntity.ok(comandaService.findByMesaId(mesaId));
+    @Operation(summary = "Obtener comandas por mesa (solo abiertas con activas=true)")
+    public ResponseEntity<List<ComandaDTO>> getByMesa(@PathVariable Integer mesaId,
+            @RequestParam(defaultValue = "false") boolean activas) {
+        return ResponseEntity.ok(activas
+                ? comandaService.findActivasByMesaId(mesaId)
+                : comandaService.findByMesaId(mesaId));
     }
 
     @GetMapping("/mesero/{meseroId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MESERO')")
-    @Operation(summary = "Obtener comandas por mesero")
-    public ResponseEntity<List<ComandaDTO>> getByMesero(@PathVariable String meseroId) {
-        return ResponseEntity.ok(comandaService.findByMeseroId(meseroId));
+    @Operation(summary = "Obtener comandas por mesero, por páginas (todas=true sin paginar)")
+    public ResponseEntity<List<ComandaDTO>> getByMesero(
+            @PathVariable String meseroId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean todas) {
+        if (listadoCompleto(todas, cursor, limit)) {
+            return ResponseEntity.ok(comandaService.findByMeseroId(meseroId));
+        }
+        return paginaResponse(comandaService.findPaginaByMeseroId(meseroId, cursor, limit));
     }
 
     @GetMapping("/cocinero/{cocineroId}")
@@ -64,18 +100,58 @@ public class ComandaController {
 
     @GetMapping("/estado/{estadoId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MESERO', 'COCINERO')")
-    @Operation(summary = "Obtener comandas por estado")
-    public ResponseEntity<List<ComandaDTO>> getByEstado(@PathVariable Integer estadoId) {
-        return ResponseEntity.ok(comandaService.findByEstadoId(estadoId));
+    @Operation(summary = "Obtener comandas por estado, por páginas (todas=true sin paginar)")
+    public ResponseEntity<List<ComandaDTO>> getByEstado(
+            @PathVariable Integer estadoId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean todas) {
+        if (listadoCompleto(todas, cursor, limit)) {
+            return ResponseEntity.ok(comandaService.findByEstadoId(estadoId));
+        }
+        return paginaResponse(comandaService.findPaginaByEstadoId(estadoId, cursor, limit));
     }
 
     @GetMapping("/fecha")
     @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
-    @Operation(summary = "Obtener comandas por rango de fechas")
+    @Operation(summary = "Obtener comandas por rango de fechas, por páginas (todas=true sin paginar)")
     public ResponseEntity<List<ComandaDTO>> getByFecha(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean todas) {
+        if (listadoCompleto(todas, cursor, limit)) {
+            return ResponseEntity.ok(comandaService.findByFechaBetween(inicio, fin));
+        }
+        return paginaResponse(comandaService.findPaginaByFechaBetween(inicio, fin, cursor, limit));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
+    @Operation(summary = "Exportar comandas de un rango de fechas en streaming (NDJSON, una comanda por línea)")
+    public ResponseEntity<StreamingResponseBody> exportByFecha(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin) {
-        return ResponseEntity.ok(comandaService.findByFechaBetween(inicio, fin));
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sin el separador por defecto (" ") entre valores raíz: cada línea termina en '\n' y nada más
+            generator.setRootValueSeparator(null);
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            comandaService.exportarPorFecha(inicio, fin, comanda -> {
+                try {
+                    writer.writeValue(generator, comanda);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("/activas")
@@ -85,6 +161,15 @@ public class ComandaController {
         return ResponseEntity.ok(comandaService.findComandasActivas());
     }
 
+    @GetMapping("/cambios")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MESERO', 'COCINERO', 'CAJERO')")
+    @Operation(summary = "Cambios de comandas (o de una estación de cocina) posteriores a una secuencia, "
+            + "o las activas si ya no están")
+    public ResponseEntity<CambiosComandaDTO> getCambios(@RequestParam(required = false) Long desde,
+            @RequestParam(required = false) String estacion) {
+        return ResponseEntity.ok(comandaNotificationService.cambiosDesde(desde, estacion));
+    }
+
     @GetMapping("/hoy")
     @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
     @Operation(summary = "Obtener comandas del día actual")
@@ -103,6 +188,13 @@ public class ComandaController {
         return ResponseEntity.status(HttpStatus.CREATED).body(comandaService.save(dto));
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MESERO')")
+    @Operation(summary = "Crear una comanda con todos sus detalles en una sola llamada")
+    public ResponseEntity<ComandaDTO> createBatch(@Valid @RequestBody ComandaDTO dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(comandaService.saveConDetalles(dto));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MESERO', 'COCINERO')")
     @Operation(summary = "Actualizar una comanda existente")
@@ -112,6 +204,17 @@ public class ComandaController {
         return ResponseEntity.ok(comandaService.update(id, dto));
     }
 
+    @PutMapping("/{id}/lineas/{productoId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MESERO')")
+    @Operation(summary = "Sumar o restar unidades de un producto en la comanda (204 si la línea queda en cero)")
+    public ResponseEntity<DetalleComandaDTO> ajustarLinea(
+            @PathVariable Integer id,
+            @PathVariable Integer productoId,
+            @Valid @RequestBody AjusteLineaDTO ajuste) {
+        DetalleComandaDTO linea = detalleComandaService.ajustarLinea(id, productoId, ajuste);
+        return linea != null ? ResponseEntity.ok(linea) : ResponseEntity.noContent().build();
+    }
+
     @PatchMapping("/{id}/estado/{estadoId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MESERO', 'COCINERO')")
     @Operation(summary = "Cambiar estado de una comanda")
@@ -132,4 +235,24 @@ public class ComandaController {
         comandaService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Los listados se paginan siempre (sin limit, ApiConstants.DEFAULT_PAGE_SIZE
+     * elementos). El listado completo sin paginar solo se devuelve con
+     * todas=true, y no admite cursor ni limit.
+     */
+    private static boolean listadoCompleto(boolean todas, String cursor, Integer limit) {
+        if (todas && (cursor != null || limit != null)) {
+            throw new BadRequestException("todas=true no se combina con cursor ni limit");
+        }
+        return todas;
+    }
+
+    private ResponseEntity<List<ComandaDTO>> paginaResponse(PaginaCursorDTO<ComandaDTO> pagina) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pagina.getNextCursor() != null) {
+            response.header(ApiConstants.NEXT_CURSOR_HEADER, pagina.getNextCursor());
+        }
+        return response.body(pagina.getItems());
+    }
 }
@@ -2,15 +2,23 @@ package com.example.demo.infrastructure.web.controller;
 
 import com.example.demo.application.service.DashboardService;
 import com.example.demo.infrastructure.web.dto.EstadisticasDTO;
+import com.example.demo.infrastructure.web.dto.PlanoMesasDTO;
+import com.example.demo.infrastructure.web.dto.RankingVentasDTO;
+import com.example.demo.infrastructure.web.dto.SerieVentasDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/api/dashboard")
 @RequiredArgsConstructor
@@ -23,23 +31,53 @@ public class DashboardController {
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Obtener estadísticas generales", description = "Devuelve estadísticas generales del restaurante")
     public ResponseEntity<EstadisticasDTO> getEstadisticasGenerales() {
-        // TODO: Implementar lógica para obtener estadísticas generales
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(dashboardService.getEstadisticasGenerales());
     }
 
     @GetMapping("/ventas-hoy")
     @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
-    @Operation(summary = "Obtener estadísticas de ventas del día", description = "Devuelve estadísticas de ventas del día actual")
+    @Operation(summary = "Obtener estadísticas de ventas del día", description = "Devuelve estadísticas de ventas de la jornada actual desde los contadores en memoria")
     public ResponseEntity<EstadisticasDTO> getEstadisticasHoy() {
-        // TODO: Implementar lógica para obtener estadísticas de ventas del día
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(dashboardService.getEstadisticasHoy());
+    }
+
+    @GetMapping("/ventas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
+    @Operation(summary = "Obtener estadísticas de ventas por rango", description = "Devuelve estadísticas de ventas entre dos días (ambos incluidos)")
+    public ResponseEntity<EstadisticasDTO> getEstadisticasRango(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(dashboardService.getEstadisticas(desde, hasta));
+    }
+
+    @GetMapping("/series")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
+    @Operation(summary = "Obtener serie temporal de ventas", description = "Devuelve ventas, unidades y comandas por tramo (15m, 1h o 1d) en el rango [from, to)")
+    public ResponseEntity<SerieVentasDTO> getSerie(
+            @RequestParam String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(dashboardService.getSerie(granularity, from, to));
+    }
+
+    @GetMapping("/ranking")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
+    @Operation(summary = "Obtener ranking de productos", description = "Devuelve los K productos más y menos vendidos y las ventas por categoría entre dos días (ambos incluidos)")
+    public ResponseEntity<RankingVentasDTO> getRanking(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) Integer categoriaId,
+            @RequestParam(required = false) String criterio) {
+        return ResponseEntity.ok(dashboardService.getRanking(desde, hasta, k, categoriaId, criterio));
     }
 
     @GetMapping("/mesas-ocupadas")
     @PreAuthorize("hasAnyRole('ADMIN', 'MESERO')")
-    @Operation(summary = "Obtener estado actual de mesas", description = "Devuelve información sobre mesas ocupadas/disponibles")
-    public ResponseEntity<EstadisticasDTO> getEstadoMesas() {
-        // TODO: Implementar lógica para obtener estado de mesas
-        return ResponseEntity.ok().build();
+    @Operation(summary = "Obtener estado actual de mesas",
+            description = "Plano del salón por ubicación con estado, comanda activa y hora de llegada de cada mesa. "
+                    + "Los cambios se publican en /topic/mesas")
+    public ResponseEntity<PlanoMesasDTO> getEstadoMesas() {
+        return ResponseEntity.ok(dashboardService.getEstadoMesas());
     }
 }
@@ -2,6 +2,9 @@ package com.example.demo.infrastructure.web.controller;
 
 import com.example.demo.application.service.DetalleComandaService;
 import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.dto.PaginaCursorDTO;
+import com.example.demo.shared.constants.ApiConstants;
+import com.example.demo.shared.exception.BadRequestException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -11,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -26,14 +30,26 @@ public class DetalleComandaController {
     // ============================================================
 
     @GetMapping
-    @Operation(summary = "Listar todos los detalles de comanda")
-    public ResponseEntity<?> getAllDetallesComanda() {
-        List<DetalleComandaDTO> detalles = detalleComandaService.findAll();
-        if (detalles.isEmpty()) {
+    @Operation(summary = "Listar detalles de comanda por páginas (10 por defecto; cursor en X-Next-Cursor; "
+            + "todas=true sin paginar)")
+    public ResponseEntity<?> getAllDetallesComanda(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean todas) {
+        if (listadoCompleto(todas, cursor, limit)) {
+            List<DetalleComandaDTO> detalles = detalleComandaService.findAll();
+            if (detalles.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NO_CONTENT)
+                        .body("No hay detalles de comanda registrados.");
+            }
+            return ResponseEntity.ok(detalles);
+        }
+        PaginaCursorDTO<DetalleComandaDTO> pagina = detalleComandaService.findPagina(cursor, limit);
+        if (pagina.getItems().isEmpty()) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT)
                     .body("No hay detalles de comanda registrados.");
         }
-        return ResponseEntity.ok(detalles);
+        return paginaResponse(pagina);
     }
 
     @GetMapping("/{id}")
@@ -53,15 +69,34 @@ public class DetalleComandaController {
         return ResponseEntity.ok(detalles);
     }
 
+    @GetMapping("/comanda/{comandaId}/total")
+    @Operation(summary = "Obtener el total de una comanda")
+    public ResponseEntity<BigDecimal> getTotalComanda(@PathVariable Integer comandaId) {
+        return ResponseEntity.ok(detalleComandaService.calcularTotalComanda(comandaId));
+    }
+
     @GetMapping("/producto/{productoId}")
-    @Operation(summary = "Obtener detalles por ID de producto")
-    public ResponseEntity<?> getDetallesByProducto(@PathVariable Integer productoId) {
-        List<DetalleComandaDTO> detalles = detalleComandaService.findByProductoId(productoId);
-        if (detalles.isEmpty()) {
+    @Operation(summary = "Obtener detalles por ID de producto, por páginas (todas=true sin paginar)")
+    public ResponseEntity<?> getDetallesByProducto(
+            @PathVariable Integer productoId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean todas) {
+        if (listadoCompleto(todas, cursor, limit)) {
+            List<DetalleComandaDTO> detalles = detalleComandaService.findByProductoId(productoId);
+            if (detalles.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NO_CONTENT)
+                        .body("El producto " + productoId + " no aparece en ninguna comanda.");
+            }
+            return ResponseEntity.ok(detalles);
+        }
+        PaginaCursorDTO<DetalleComandaDTO> pagina = detalleComandaService.findPaginaByProductoId(
+                productoId, cursor, limit);
+        if (pagina.getItems().isEmpty()) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT)
                     .body("El producto " + productoId + " no aparece en ninguna comanda.");
         }
-        return ResponseEntity.ok(detalles);
+        return paginaResponse(pagina);
     }
 
     // ============================================================
@@ -107,4 +142,24 @@ public class DetalleComandaController {
         detalleComandaService.deleteByComandaId(comandaId);
         return ResponseEntity.ok("Todos los detalles de la comanda " + comandaId + " fueron eliminados.");
     }
+
+    /**
+     * Los listados se paginan siempre (sin limit, ApiConstants.DEFAULT_PAGE_SIZE
+     * elementos). El listado completo sin paginar solo se devuelve con
+     * todas=true, y no admite cursor ni limit.
+     */
+    private static boolean listadoCompleto(boolean todas, String cursor, Integer limit) {
+        if (todas && (cursor != null || limit != null)) {
+            throw new BadRequestException("todas=true no se combina con cursor ni limit");
+        }
+        return todas;
+    }
+
+    private ResponseEntity<List<DetalleComandaDTO>> paginaResponse(PaginaCursorDTO<DetalleComandaDTO> pagina) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (pagina.getNextCursor() != null) {
+            response.header(ApiConstants.NEXT_CURSOR_HEADER, pagina.getNextCursor());
+        }
+        return response.body(pagina.getItems());
+    }
 }
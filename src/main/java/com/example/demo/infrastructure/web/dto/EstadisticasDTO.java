@@ -1,16 +1,19 @@
 package com.example.demo.infrastructure.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class EstadisticasDTO {
 
     private Long totalComandas;
@@ -18,5 +21,11 @@ public class EstadisticasDTO {
     private Long totalMesas;
     private Long totalUsuarios;
     private BigDecimal ventasTotales;
+    // Ticket promedio: ventas totales / número de comandas
     private BigDecimal promedioVentas;
-}
\ No newline at end of file
+    private Long productosVendidos;
+    private Map<String, Long> comandasPorEstado;
+    // Solo en las estadísticas en vivo de la jornada
+    private Map<Integer, Long> unidadesPorProducto;
+    private Map<String, BigDecimal> ventasPorMesero;
+}
@@ -0,0 +1,28 @@
+package com.example.demo.infrastructure.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Posición de un producto o una categoría en el ranking de ventas.
+ * En las categorías no se informan los campos de categoría.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemRankingDTO {
+
+    private Integer id;
+    private String nombre;
+    private Integer categoriaId;
+    private String categoria;
+    private Long cantidad;
+    private BigDecimal importe;
+}
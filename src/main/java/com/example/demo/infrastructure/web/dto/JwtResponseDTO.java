@@ -16,6 +16,11 @@ public class JwtResponseDTO {
     @Builder.Default
     private String type = "Bearer";
 
+    // Segundos de vida del access token; antes de que expire se pide otro con el refreshToken
+    private Long expiresIn;
+
+    private String refreshToken;
+
     private String email;
     private String nombre;
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.demo.infrastructure.web.dto;
+
+import com.example.demo.domain.dto.MesaPlanoDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanoMesasDTO {
+
+    private Long totalMesas;
+    // Mesas con alguna comanda sin pagar o marcadas como OCUPADA
+    private Long mesasOcupadas;
+    private Long mesasDisponibles;
+    // Comandas abiertas de la jornada por estado (sin las pagadas)
+    private Map<String, Long> comandasPorEstado;
+    // Mesas agrupadas por ubicación, en orden alfabético y por ID dentro de cada una
+    private Map<String, List<MesaPlanoDTO>> ubicaciones;
+}
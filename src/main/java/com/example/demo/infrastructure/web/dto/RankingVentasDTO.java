@@ -0,0 +1,29 @@
+package com.example.demo.infrastructure.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RankingVentasDTO {
+
+    private LocalDate desde;
+    private LocalDate hasta;
+    private Integer k;
+    private Integer categoriaId;
+    // "cantidad" (unidades) o "importe"
+    private String criterio;
+    private List<ItemRankingDTO> masVendidos;
+    // Solo productos activos, empezando por el que menos vende
+    private List<ItemRankingDTO> menosVendidos;
+    private List<ItemRankingDTO> categorias;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.infrastructure.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenDTO {
+
+    @NotBlank(message = "El token de refresco es requerido")
+    private String refreshToken;
+}
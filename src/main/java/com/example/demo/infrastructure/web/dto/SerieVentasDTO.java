@@ -0,0 +1,31 @@
+package com.example.demo.infrastructure.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Serie temporal de ventas. Las listas tienen un valor por punto y el punto i
+ * empieza en desde + i × minutosPorPunto.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerieVentasDTO {
+
+    private String granularidad;
+    private LocalDateTime desde;
+    private LocalDateTime hasta;
+    private Integer minutosPorPunto;
+    // false mientras el histórico aún se está cargando en segundo plano
+    private Boolean completa;
+    private List<BigDecimal> ventas;
+    private long[] unidades;
+    private long[] comandas;
+}
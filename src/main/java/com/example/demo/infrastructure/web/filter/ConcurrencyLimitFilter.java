@@ -0,0 +1,174 @@
+package com.example.demo.infrastructure.web.filter;
+
+import com.example.demo.shared.constants.ApiConstants;
+import com.example.demo.shared.exception.ErrorResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita cuántas peticiones de la API se atienden a la vez.
+ *
+ * Con hilos virtuales (spring.threads.virtual.enabled) Tomcat ya no acota la
+ * concurrencia con su pool de hilos: cada petición tiene su propio hilo y en
+ * hora punta cientos de ellas competirían por las pocas conexiones de Hikari,
+ * esperando dentro del pool hasta agotar su connectionTimeout. Este semáforo
+ * (justo, en orden de llegada) fija la concurrencia de la API con
+ * concurrencia.api.max-peticiones, independiente del tamaño del pool; la
+ * petición que no obtiene turno en concurrencia.api.espera-ms recibe un 503
+ * con Retry-After en lugar de saturar la base de datos.
+ *
+ * Una petición asíncrona (la exportación NDJSON) conserva su turno hasta que
+ * termina la respuesta, no solo hasta que vuelve el primer despacho; el
+ * despacho asíncrono posterior no pasa por el filtro y no pide otro turno.
+ *
+ * Va después de IdempotencyFilter, para que un duplicado que espera a la
+ * primera ejecución no ocupe un turno. Con 0 o menos el límite se desactiva.
+ * Sin valor configurado solo se activa en modo de hilos virtuales (con
+ * LIMITE_HILOS_VIRTUALES); con hilos de plataforma ya limita el pool de Tomcat
+ * y el semáforo solo añadiría respuestas 503.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String REINTENTAR_EN_SEGUNDOS = "1";
+    private static final int LIMITE_HILOS_VIRTUALES = 40;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${concurrencia.api.max-peticiones:#{null}}")
+    private Integer maxPeticiones;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    @Value("${concurrencia.api.espera-ms:5000}")
+    private long esperaMs;
+
+    private Semaphore turnos;
+
+    @PostConstruct
+    public void iniciar() {
+        if (maxPeticiones == null) {
+            maxPeticiones = hilosVirtuales ? LIMITE_HILOS_VIRTUALES : 0;
+        }
+        turnos = maxPeticiones > 0 ? new Semaphore(maxPeticiones, true) : null;
+        if (turnos != null) {
+            log.info("Concurrencia de la API limitada a {} peticiones simultáneas", maxPeticiones);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (turnos == null) {
+            return true;
+        }
+        // Solo la API REST: el endpoint STOMP/SockJS mantiene conexiones largas que no usan JDBC
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        return !ruta.startsWith(ApiConstants.API_BASE_PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        boolean obtenido;
+        try {
+            obtenido = turnos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+        }
+
+        if (!obtenido) {
+            log.warn("Petición {} {} rechazada: {} peticiones en curso", request.getMethod(),
+                    request.getRequestURI(), maxPeticiones);
+            escribirError(response);
+            return;
+        }
+        boolean asincrona = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new LiberarAlTerminar());
+                asincrona = true;
+            }
+        } finally {
+            if (!asincrona) {
+                turnos.release();
+            }
+        }
+    }
+
+    /**
+     * Devuelve el turno una sola vez cuando termina la petición asíncrona. Tras
+     * un error o un timeout el contenedor también llama a onComplete.
+     */
+    private final class LiberarAlTerminar implements AsyncListener {
+
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (liberado.compareAndSet(false, true)) {
+                turnos.release();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Le sigue onComplete
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Le sigue onComplete
+        }
+
+        // Un nuevo startAsync descarta los listeners: se vuelve a registrar para no perder el turno
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private void escribirError(HttpServletResponse response) throws IOException {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        ErrorResponseDto error = ErrorResponseDto.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message("El servidor está atendiendo demasiadas solicitudes; intente de nuevo en un momento")
+                .build();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, REINTENTAR_EN_SEGUNDOS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
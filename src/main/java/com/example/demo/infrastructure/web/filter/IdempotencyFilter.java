@@ -0,0 +1,260 @@
+package com.example.demo.infrastructure.web.filter;
+
+import com.example.demo.shared.constants.ApiConstants;
+import com.example.demo.shared.exception.ErrorResponseDto;
+import com.example.demo.shared.util.HashUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Hace idempotentes los POST de comandas y detalles, y el PUT de ajuste de
+ * líneas (un delta de unidades, que repetido se aplicaría dos veces), que
+ * traen la cabecera Idempotency-Key. La primera ejecución guarda la respuesta; los reintentos
+ * con la misma clave (por usuario y ruta) reciben la respuesta
+ * guardada sin llegar al controlador. Un duplicado que llega mientras la
+ * primera ejecución sigue en curso espera su resultado en lugar de competir.
+ *
+ * Solo se guardan respuestas con estado menor a 500: ante un error del
+ * servidor la clave se libera y el cliente puede reintentar.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final List<String> RUTAS_PROTEGIDAS = List.of(
+            ApiConstants.API_BASE_PATH + ApiConstants.COMANDAS_PATH,
+            ApiConstants.API_BASE_PATH + "/detalles-comanda");
+    private static final Pattern AJUSTE_LINEA = Pattern.compile(
+            Pattern.quote(ApiConstants.API_BASE_PATH + ApiConstants.COMANDAS_PATH) + "/\\d+/lineas/\\d+");
+    private static final int MAX_LONGITUD_CLAVE = 255;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotencia.ttl:PT1H}")
+    private Duration ttl;
+
+    @Value("${idempotencia.max-entradas:10000}")
+    private int maxEntradas;
+
+    @Value("${idempotencia.espera-ms:30000}")
+    private long esperaMs;
+
+    // Orden de inserción: la entrada más antigua es la primera en expirar. Protegido por cerrojo, un
+    // ReentrantLock y no un monitor, porque con hilos virtuales la espera en un synchronized fija el hilo portador
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>();
+    private final ReentrantLock cerrojo = new ReentrantLock();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!StringUtils.hasText(request.getHeader(ApiConstants.IDEMPOTENCY_KEY_HEADER))) {
+            return true;
+        }
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        if (HttpMethod.PUT.matches(request.getMethod())) {
+            return !AJUSTE_LINEA.matcher(ruta).matches();
+        }
+        return !HttpMethod.POST.matches(request.getMethod()) || RUTAS_PROTEGIDAS.stream().noneMatch(ruta::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String clave = request.getHeader(ApiConstants.IDEMPOTENCY_KEY_HEADER);
+        if (clave.length() > MAX_LONGITUD_CLAVE) {
+            escribirError(response, HttpStatus.BAD_REQUEST, "La cabecera Idempotency-Key es demasiado larga");
+            return;
+        }
+        String claveCompleta = usuarioActual() + ' ' + request.getRequestURI() + ' ' + clave;
+
+        while (true) {
+            Entrada nueva = new Entrada(System.nanoTime());
+            Entrada existente = reservar(claveCompleta, nueva);
+
+            if (existente == null) {
+                ejecutar(claveCompleta, nueva, request, response, filterChain);
+                return;
+            }
+
+            RespuestaGuardada guardada;
+            try {
+                guardada = existente.resultado.get(esperaMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                escribirError(response, HttpStatus.CONFLICT,
+                        "Ya hay una solicitud en curso con la misma Idempotency-Key");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            } catch (ExecutionException e) {
+                throw new ServletException(e.getCause());
+            }
+
+            // La primera ejecución falló sin respuesta reutilizable: se vuelve a intentar
+            if (guardada == null) {
+                continue;
+            }
+
+            if (!Arrays.equals(guardada.huellaCuerpo(), HashUtil.sha256(request.getInputStream().readAllBytes()))) {
+                escribirError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "La Idempotency-Key ya se usó con un cuerpo de solicitud distinto");
+                return;
+            }
+            repetir(guardada, response);
+            return;
+        }
+    }
+
+    private void ejecutar(String claveCompleta, Entrada entrada, HttpServletRequest request,
+            HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        ContentCachingRequestWrapper peticion = new ContentCachingRequestWrapper(request);
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        RespuestaGuardada guardada = null;
+        try {
+            filterChain.doFilter(peticion, respuesta);
+
+            if (respuesta.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                guardada = new RespuestaGuardada(
+                        respuesta.getStatus(),
+                        respuesta.getContentType(),
+                        respuesta.getContentAsByteArray(),
+                        HashUtil.sha256(peticion.getContentAsByteArray()));
+            }
+            respuesta.copyBodyToResponse();
+        } finally {
+            if (guardada == null) {
+                liberar(claveCompleta, entrada);
+            }
+            entrada.resultado.complete(guardada);
+        }
+    }
+
+    private void repetir(RespuestaGuardada guardada, HttpServletResponse response) throws IOException {
+        log.debug("Repitiendo respuesta guardada para Idempotency-Key (status {})", guardada.status());
+        response.setStatus(guardada.status());
+        if (guardada.contentType() != null) {
+            response.setContentType(guardada.contentType());
+        }
+        response.setHeader(ApiConstants.IDEMPOTENT_REPLAYED_HEADER, "true");
+        response.setContentLength(guardada.cuerpo().length);
+        response.getOutputStream().write(guardada.cuerpo());
+    }
+
+    /**
+     * Registra la entrada si la clave no existe (o expiró) y devuelve null;
+     * si ya existe una vigente, la devuelve sin modificar el mapa.
+     */
+    private Entrada reservar(String clave, Entrada nueva) {
+        cerrojo.lock();
+        try {
+            long ahora = System.nanoTime();
+            purgarExpiradas(ahora);
+
+            Entrada existente = entradas.get(clave);
+            if (existente != null) {
+                return existente;
+            }
+            entradas.put(clave, nueva);
+            // Solo se desalojan respuestas ya guardadas: quitar una ejecución en curso dejaría pasar a sus
+            // duplicados. Si todas están en curso el mapa crece por encima del máximo hasta que terminen
+            Iterator<Entrada> it = entradas.values().iterator();
+            while (entradas.size() > maxEntradas && it.hasNext()) {
+                if (it.next().resultado.isDone()) {
+                    it.remove();
+                }
+            }
+            return null;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private void liberar(String clave, Entrada entrada) {
+        cerrojo.lock();
+        try {
+            entradas.remove(clave, entrada);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private void purgarExpiradas(long ahora) {
+        long ttlNanos = ttl.toNanos();
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (ahora - entrada.creada < ttlNanos) {
+                break;
+            }
+            if (entrada.resultado.isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private String usuarioActual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() ? auth.getName() : "anonimo";
+    }
+
+    private void escribirError(HttpServletResponse response, HttpStatus status, String mensaje) throws IOException {
+        ErrorResponseDto error = ErrorResponseDto.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(mensaje)
+                .build();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static final class Entrada {
+        private final long creada;
+        private final CompletableFuture<RespuestaGuardada> resultado = new CompletableFuture<>();
+
+        private Entrada(long creada) {
+            this.creada = creada;
+        }
+    }
+
+    private record RespuestaGuardada(int status, String contentType, byte[] cuerpo, byte[] huellaCuerpo) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.infrastructure.websocket;
+
+import com.example.demo.application.service.ReferenceDataRegistry;
+import com.example.demo.domain.entity.Rol;
+import com.example.demo.domain.entity.Usuario;
+import com.example.demo.infrastructure.config.JwtTokenProvider;
+import com.example.demo.infrastructure.persistence.repository.UsuarioRepository;
+import com.example.demo.shared.constants.ApiConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * Autentica la sesión STOMP con el JWT enviado en la cabecera Authorization
+ * del frame CONNECT. El usuario de la sesión se identifica por su ID de
+ * usuario (no por el email), de modo que /user/queue/comandas llega al mesero
+ * asignado en la comanda. ID y rol salen de los claims del token. Sin
+ * cabecera la sesión queda anónima y solo puede usar los destinos /topic.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final UsuarioRepository usuarioRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String bearerToken = accessor.getFirstNativeHeader(ApiConstants.AUTHORIZATION_HEADER);
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith(ApiConstants.BEARER_PREFIX)) {
+            return message;
+        }
+
+        String token = bearerToken.substring(ApiConstants.BEARER_PREFIX.length());
+        JwtTokenProvider.TokenClaims claims = jwtTokenProvider.parseClaims(token)
+                .orElseThrow(() -> new MessageDeliveryException("Token JWT inválido en la conexión STOMP"));
+        String idUsuario = claims.idUsuario();
+        String rolToken = claims.rol();
+        if (idUsuario != null && rolToken != null) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken(
+                    idUsuario, null, List.of(new SimpleGrantedAuthority("ROLE_" + rolToken))));
+            log.debug("Sesión STOMP {} autenticada como {}", accessor.getSessionId(), idUsuario);
+            return message;
+        }
+
+        // Tokens emitidos antes de llevar ID y rol: se resuelven por email
+        String email = claims.email();
+        Usuario usuario = usuarioRepository.findByEmail(email)
+                .orElseThrow(() -> new MessageDeliveryException("Usuario no encontrado: " + email));
+
+        // El proxy de rol solo expone su ID; el nombre sale del catálogo en memoria
+        String rol = referenceDataRegistry.findRol(usuario.getRol().getIdRol())
+                .map(Rol::getNombre)
+                .orElse("");
+        accessor.setUser(new UsernamePasswordAuthenticationToken(
+                usuario.getIdUsuario(), null, List.of(new SimpleGrantedAuthority("ROLE_" + rol))));
+        log.debug("Sesión STOMP {} autenticada como {}", accessor.getSessionId(), usuario.getIdUsuario());
+        return message;
+    }
+}
@@ -1,19 +1,88 @@
 package com.example.demo.infrastructure.websocket;
 
+import com.example.demo.shared.constants.WebSocketConstants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.*;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
+    // Pool de mensajes entrantes (frames de los clientes)
+    @Value("${websocket.inbound.core-pool:4}")
+    private int inboundCorePool;
+
+    @Value("${websocket.inbound.max-pool:8}")
+    private int inboundMaxPool;
+
+    @Value("${websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    // Pool de mensajes salientes (difusión del broker a cada sesión)
+    @Value("${websocket.outbound.core-pool:8}")
+    private int outboundCorePool;
+
+    @Value("${websocket.outbound.max-pool:16}")
+    private int outboundMaxPool;
+
+    @Value("${websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    // Un cliente lento se desconecta al superar cualquiera de los dos límites de envío
+    @Value("${websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${websocket.time-to-first-message-ms:30000}")
+    private int timeToFirstMessageMs;
+
+    @Value("${websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${websocket.subscription-cache-limit:2048}")
+    private int subscriptionCacheLimit;
+
+    // Modo de hilos virtuales: los canales usan hilos virtuales con los mismos límites de hilos y de cola
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Prefijo para los destinos que pueden suscribirse los clientes
-        config.enableSimpleBroker("/topic");
+        // Prefijos para los destinos que pueden suscribirse los clientes: /topic
+        // (comandas, estaciones de cocina) y /queue (colas por usuario vía /user)
+        config.enableSimpleBroker(WebSocketConstants.TOPIC_PREFIX, WebSocketConstants.QUEUE_PREFIX)
+                .setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                .setTaskScheduler(messageBrokerTaskScheduler);
         // Prefijo para los mensajes que envían los clientes al servidor
-        config.setApplicationDestinationPrefixes("/app");
+        config.setApplicationDestinationPrefixes(WebSocketConstants.APP_PREFIX);
+        config.setUserDestinationPrefix(WebSocketConstants.USER_PREFIX);
+        // Destinos resueltos en caché: evita recorrer todas las suscripciones en cada envío
+        config.setCacheLimit(subscriptionCacheLimit);
+        // Los mensajes de una misma sesión salen en el orden en que se publicaron
+        config.setPreservePublishOrder(true);
     }
 
     @Override
@@ -21,4 +90,50 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Endpoint al que se conectan los clientes (por ejemplo, el frontend)
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
+        if (hilosVirtuales) {
+            registration.taskExecutor(ejecutorVirtual("ws-inbound-", inboundMaxPool, inboundQueueCapacity));
+            return;
+        }
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePool)
+                .maxPoolSize(inboundMaxPool)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (hilosVirtuales) {
+            registration.taskExecutor(ejecutorVirtual("ws-outbound-", outboundMaxPool, outboundQueueCapacity));
+            return;
+        }
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePool)
+                .maxPoolSize(outboundMaxPool)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .setTimeToFirstMessage(timeToFirstMessageMs);
+    }
+
+    // Un hilo virtual es barato: todos los hilos del canal se crean al llegar trabajo (núcleo = máximo)
+    // y se liberan al quedar ociosos. La cola acotada sigue frenando a un productor desbocado.
+    private static ThreadPoolTaskExecutor ejecutorVirtual(String prefijo, int hilos, int capacidadCola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefijo);
+        executor.setVirtualThreads(true);
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(capacidadCola);
+        return executor;
+    }
 }
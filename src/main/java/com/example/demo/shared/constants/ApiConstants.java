@@ -31,10 +31,22 @@ public final class ApiConstants {
     // JWT
     public static final String BEARER_PREFIX = "Bearer ";
     public static final String AUTHORIZATION_HEADER = "Authorization";
+    // Claims propios del token: ID de usuario, rol (sin el prefijo ROLE_) y época de emisión
+    public static final String JWT_CLAIM_USUARIO = "uid";
+    public static final String JWT_CLAIM_ROL = "rol";
+    public static final String JWT_CLAIM_EPOCA = "epoca";
 
     // Paginación por defecto
     public static final int DEFAULT_PAGE_SIZE = 10;
     public static final int DEFAULT_PAGE_NUMBER = 0;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Cabecera con el cursor de la siguiente página (paginación por keyset)
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Reintentos seguros de POST y del ajuste de líneas: clave enviada por el cliente y marca de respuesta repetida
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
 
     // Límites
     public static final int MAX_NOMBRE_LENGTH = 50;
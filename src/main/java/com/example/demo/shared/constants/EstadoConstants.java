@@ -25,6 +25,10 @@ public final class EstadoConstants {
     public static final Integer PENDIENTE_ID = 3;
     public static final Integer ACTIVO_ID = 4;
 
+    // IDs de estados de comanda usados por la lógica de negocio
+    public static final Integer COMANDA_PENDIENTE_ID = 1;
+    public static final Integer COMANDA_PAGADA_ID = 5;
+
     private EstadoConstants() {
         // Constructor privado para evitar instanciación
     }
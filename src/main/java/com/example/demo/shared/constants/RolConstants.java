@@ -8,6 +8,9 @@ public final class RolConstants {
     public static final Integer COCINERO_ID = 3;
     public static final Integer CAJERO_ID = 4;
 
+    // Rol asignado en el registro público (AuthService.register)
+    public static final Integer REGISTRO_POR_DEFECTO_ID = ADMIN_ID;
+
     // Nombres de roles
     public static final String ADMIN = "ADMIN";
     public static final String MESERO = "MESERO";
@@ -0,0 +1,29 @@
+package com.example.demo.shared.constants;
+
+public final class WebSocketConstants {
+
+    // Prefijos del broker y de la aplicación
+    public static final String TOPIC_PREFIX = "/topic";
+    public static final String QUEUE_PREFIX = "/queue";
+    public static final String APP_PREFIX = "/app";
+    public static final String USER_PREFIX = "/user";
+
+    // Cambios de comandas: un mensaje por comanda y ventana de agrupación
+    public static final String TOPIC_COMANDAS = "/topic/comandas";
+    public static final String TOPIC_COMANDAS_NUEVA = "/topic/comandas/nueva";
+    public static final String TOPIC_COMANDAS_ESTADO = "/topic/comandas/estado";
+
+    // Líneas de cada estación de cocina: /topic/cocina/{estacion}
+    public static final String TOPIC_COCINA = "/topic/cocina/";
+    public static final String ESTACION_GENERAL = "general";
+
+    // Plano del salón: un mensaje por mesa que cambia de estado o de comanda activa
+    public static final String TOPIC_MESAS = "/topic/mesas";
+
+    // Comandas del mesero asignado; el cliente se suscribe a /user/queue/comandas
+    public static final String QUEUE_COMANDAS = "/queue/comandas";
+
+    private WebSocketConstants() {
+        // Constructor privado para evitar instanciación
+    }
+}
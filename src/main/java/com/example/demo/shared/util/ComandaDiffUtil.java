@@ -0,0 +1,142 @@
+package com.example.demo.shared.util;
+
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.ComandaNotificacionDTO;
+import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Calcula el mensaje de cambio de una comanda a partir de su instantánea
+ * anterior y la actual. Los valores son absolutos (nunca incrementos), de modo
+ * que aplicar dos veces el mismo cambio deja al cliente en el mismo estado:
+ * - campos: atributos de la comanda que cambiaron, con su valor nuevo.
+ * - lineas: detalles nuevos o modificados, completos.
+ * - lineasQuitadas: IDs de los detalles que ya no existen.
+ * Sin instantánea anterior se envía la comanda completa.
+ */
+public final class ComandaDiffUtil {
+
+    // Atributos escalares de ComandaDTO que viajan en "campos"
+    private static final Map<String, Function<ComandaDTO, Object>> CAMPOS = new LinkedHashMap<>();
+
+    static {
+        CAMPOS.put("fecha", ComandaDTO::getFecha);
+        CAMPOS.put("mesaId", ComandaDTO::getMesaId);
+        CAMPOS.put("mesaUbicacion", ComandaDTO::getMesaUbicacion);
+        CAMPOS.put("meseroId", ComandaDTO::getMeseroId);
+        CAMPOS.put("meseroNombre", ComandaDTO::getMeseroNombre);
+        CAMPOS.put("cocineroId", ComandaDTO::getCocineroId);
+        CAMPOS.put("cocineroNombre", ComandaDTO::getCocineroNombre);
+        CAMPOS.put("estadoId", ComandaDTO::getEstadoId);
+        CAMPOS.put("estadoNombre", ComandaDTO::getEstadoNombre);
+        CAMPOS.put("total", ComandaDTO::getTotal);
+        CAMPOS.put("cantidadLineas", ComandaDTO::getCantidadLineas);
+    }
+
+    /**
+     * Campos que se comparan en la vista de una estación de cocina: sin los
+     * agregados de toda la comanda (total, cantidadLineas), que cambian con
+     * las líneas de cualquier otra estación.
+     */
+    public static final Set<String> CAMPOS_ESTACION = Set.of("fecha", "mesaId", "mesaUbicacion", "meseroId",
+            "meseroNombre", "cocineroId", "cocineroNombre", "estadoId", "estadoNombre");
+
+    private ComandaDiffUtil() {
+        // Clase de utilidad
+    }
+
+    public static ComandaNotificacionDTO cambio(Integer idComanda, long version, ComandaCambiadaEvent.Tipo tipo,
+            ComandaDTO anterior, ComandaDTO actual) {
+        return cambio(idComanda, version, tipo, anterior, actual, CAMPOS.keySet());
+    }
+
+    /**
+     * Igual que {@link #cambio(Integer, long, ComandaCambiadaEvent.Tipo, ComandaDTO, ComandaDTO)}, pero
+     * solo compara los campos indicados; el resto no genera cambio aunque difiera.
+     */
+    public static ComandaNotificacionDTO cambio(Integer idComanda, long version, ComandaCambiadaEvent.Tipo tipo,
+            ComandaDTO anterior, ComandaDTO actual, Set<String> comparados) {
+
+        ComandaNotificacionDTO.ComandaNotificacionDTOBuilder mensaje = ComandaNotificacionDTO.builder()
+                .idComanda(idComanda)
+                .version(version)
+                .tipo(tipo);
+        if (actual == null) {
+            return mensaje.build();
+        }
+        if (anterior == null) {
+            return mensaje.comanda(actual).build();
+        }
+        return mensaje
+                .campos(campos(anterior, actual, comparados))
+                .lineas(lineasCambiadas(anterior.getDetalles(), actual.getDetalles()))
+                .lineasQuitadas(lineasQuitadas(anterior.getDetalles(), actual.getDetalles()))
+                .build();
+    }
+
+    private static Map<String, Object> campos(ComandaDTO anterior, ComandaDTO actual, Set<String> comparados) {
+        // LinkedHashMap: admite null para campos que se vaciaron (p. ej. cocinero desasignado)
+        Map<String, Object> campos = new LinkedHashMap<>();
+        CAMPOS.forEach((nombre, getter) -> {
+            if (!comparados.contains(nombre)) {
+                return;
+            }
+            Object valor = getter.apply(actual);
+            if (!iguales(getter.apply(anterior), valor)) {
+                campos.put(nombre, valor);
+            }
+        });
+        return campos;
+    }
+
+    private static List<DetalleComandaDTO> lineasCambiadas(List<DetalleComandaDTO> anteriores,
+            List<DetalleComandaDTO> actuales) {
+        Map<Integer, DetalleComandaDTO> previas = porId(anteriores);
+        List<DetalleComandaDTO> cambiadas = new ArrayList<>();
+        for (DetalleComandaDTO linea : valor(actuales)) {
+            if (!linea.equals(previas.get(linea.getIdDetalleComanda()))) {
+                // El ID de la comanda ya va en el mensaje
+                cambiadas.add(linea.toBuilder().comandaId(null).build());
+            }
+        }
+        return cambiadas;
+    }
+
+    private static List<Integer> lineasQuitadas(List<DetalleComandaDTO> anteriores,
+            List<DetalleComandaDTO> actuales) {
+        Map<Integer, DetalleComandaDTO> vigentes = porId(actuales);
+        return valor(anteriores).stream()
+                .map(DetalleComandaDTO::getIdDetalleComanda)
+                .filter(id -> !vigentes.containsKey(id))
+                .toList();
+    }
+
+    private static Map<Integer, DetalleComandaDTO> porId(List<DetalleComandaDTO> lineas) {
+        Map<Integer, DetalleComandaDTO> porId = new LinkedHashMap<>();
+        for (DetalleComandaDTO linea : valor(lineas)) {
+            porId.put(linea.getIdDetalleComanda(), linea);
+        }
+        return porId;
+    }
+
+    // BigDecimal se compara por valor: 10.0 y 10.00 no son un cambio
+    private static boolean iguales(Object a, Object b) {
+        if (a instanceof BigDecimal x && b instanceof BigDecimal y) {
+            return x.compareTo(y) == 0;
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static <T> List<T> valor(List<T> lista) {
+        return lista != null ? lista : List.of();
+    }
+}
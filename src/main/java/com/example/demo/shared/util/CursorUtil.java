@@ -0,0 +1,83 @@
+package com.example.demo.shared.util;
+
+import com.example.demo.shared.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Codifica y decodifica los cursores opacos de la paginación por keyset.
+ * Un cursor de comanda es la pareja (fecha, idComanda) de la última fila
+ * devuelta; uno de detalle es solo su ID.
+ */
+public final class CursorUtil {
+
+    // Posición anterior a cualquier fila real: equivale a "primera página"
+    public static final LocalDateTime FECHA_INICIAL = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final String SEPARADOR = "|";
+
+    public record ComandaCursor(LocalDateTime fecha, Integer idComanda) {
+    }
+
+    public static String encode(LocalDateTime fecha, Integer idComanda) {
+        return encodeTexto(fecha + SEPARADOR + idComanda);
+    }
+
+    public static String encode(Integer id) {
+        return encodeTexto(String.valueOf(id));
+    }
+
+    /**
+     * Decodifica un cursor de comanda. Sin cursor se devuelve la posición inicial.
+     */
+    public static ComandaCursor decodeComanda(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new ComandaCursor(FECHA_INICIAL, Integer.MAX_VALUE);
+        }
+        String texto = decodeTexto(cursor);
+        int separador = texto.lastIndexOf(SEPARADOR);
+        if (separador < 0) {
+            throw new BadRequestException("Cursor de paginación inválido");
+        }
+        try {
+            return new ComandaCursor(
+                    LocalDateTime.parse(texto.substring(0, separador)),
+                    Integer.valueOf(texto.substring(separador + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new BadRequestException("Cursor de paginación inválido", e);
+        }
+    }
+
+    /**
+     * Decodifica un cursor de ID. Sin cursor se devuelve la posición inicial.
+     */
+    public static Integer decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            return Integer.valueOf(decodeTexto(cursor));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Cursor de paginación inválido", e);
+        }
+    }
+
+    private static String encodeTexto(String texto) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeTexto(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursor de paginación inválido", e);
+        }
+    }
+
+    private CursorUtil() {
+        // Constructor privado para evitar instanciación
+    }
+}
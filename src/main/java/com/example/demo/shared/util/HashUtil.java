@@ -0,0 +1,32 @@
+package com.example.demo.shared.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Huellas SHA-256 de tokens y cuerpos de petición: permiten guardar o
+ * comparar un valor sin conservar el original.
+ */
+public final class HashUtil {
+
+    private HashUtil() {
+        // Clase de utilidad
+    }
+
+    public static byte[] sha256(byte[] datos) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(datos);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Huella en hexadecimal (64 caracteres) del texto en UTF-8.
+     */
+    public static String sha256Hex(String texto) {
+        return HexFormat.of().formatHex(sha256(texto.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.shared.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Acciones ligadas al resultado de la transacción en curso, para que los
+ * índices y cachés en memoria solo reflejen lo confirmado.
+ */
+public final class TransaccionUtil {
+
+    private TransaccionUtil() {
+        // Clase de utilidad
+    }
+
+    /**
+     * Ejecuta la acción tras el commit de la transacción en curso, o en el
+     * acto si no hay transacción. Si la transacción se revierte no se ejecuta.
+     */
+    public static void trasCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la acción si la transacción en curso termina en rollback. Sin
+     * transacción no hay nada que compensar y no se ejecuta.
+     */
+    public static void siRevierte(Runnable compensacion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensacion.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package auth.application.service;
+
+import com.example.demo.application.service.ReferenceDataRegistry;
+import com.example.demo.application.service.RefreshTokenService;
+import com.example.demo.domain.entity.RefreshToken;
+import com.example.demo.domain.entity.Usuario;
+import com.example.demo.infrastructure.persistence.repository.RefreshTokenRepository;
+import com.example.demo.infrastructure.persistence.repository.UsuarioRepository;
+import com.example.demo.shared.exception.InvalidRefreshTokenException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para RefreshTokenService")
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    @Test
+    @DisplayName("Refrescar consume el token y emite otro de la misma sesión sin leer el usuario")
+    void rotar_DeberiaEmitirOtroTokenDeLaMismaFamilia() {
+        // Given
+        when(usuarioRepository.getReferenceById("U001")).thenReturn(new Usuario());
+        String token = refreshTokenService.emitir("U001", "mesero@restaurante.com", "MESERO");
+        when(refreshTokenRepository.marcarUsado(anyString())).thenReturn(1);
+
+        // When
+        RefreshTokenService.Rotacion rotacion = refreshTokenService.rotar(token);
+
+        // Then
+        assertThat(rotacion.token()).isNotEqualTo(token);
+        assertThat(rotacion.sesion().email()).isEqualTo("mesero@restaurante.com");
+        assertThat(rotacion.sesion().rol()).isEqualTo("MESERO");
+
+        ArgumentCaptor<RefreshToken> guardados = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository, times(2)).save(guardados.capture());
+        RefreshToken primero = guardados.getAllValues().get(0);
+        RefreshToken segundo = guardados.getAllValues().get(1);
+        assertThat(segundo.getFamilia()).isEqualTo(primero.getFamilia());
+        // Solo se guarda la huella, nunca el token
+        assertThat(primero.getHash()).hasSize(64).isNotEqualTo(token);
+        verify(usuarioRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Presentar un token ya rotado revoca la sesión completa")
+    void rotar_TokenReutilizado_DeberiaRevocarLaFamilia() {
+        // Given
+        when(usuarioRepository.getReferenceById("U001")).thenReturn(new Usuario());
+        String token = refreshTokenService.emitir("U001", "mesero@restaurante.com", "MESERO");
+        when(refreshTokenRepository.marcarUsado(anyString())).thenReturn(1);
+        String siguiente = refreshTokenService.rotar(token).token();
+
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotar(token))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verify(refreshTokenRepository).eliminarFamilia(anyString());
+        assertThatThrownBy(() -> refreshTokenService.rotar(siguiente))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+    }
+
+    @Test
+    @DisplayName("Un token desconocido se rechaza sin consultar la base de datos")
+    void rotar_TokenDesconocido_DeberiaLanzarExcepcion() {
+        assertThatThrownBy(() -> refreshTokenService.rotar("no-existe"))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verifyNoInteractions(refreshTokenRepository, usuarioRepository);
+    }
+}
@@ -0,0 +1,127 @@
+package auth.infrastructure.config;
+
+import com.example.demo.application.service.TokenEpochRegistry;
+import com.example.demo.infrastructure.config.JwtTokenProvider;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Tests para JwtTokenProvider")
+class JwtTokenProviderTest {
+
+    private static final String SECRETO = "claveDePruebaSuficientementeLargaParaFirmarConHS256";
+
+    private TokenEpochRegistry tokenEpochRegistry;
+    private JwtTokenProvider jwtTokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        tokenEpochRegistry = new TokenEpochRegistry();
+        jwtTokenProvider = new JwtTokenProvider(tokenEpochRegistry);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationInMs", 60_000);
+        ReflectionTestUtils.setField(jwtTokenProvider, "maxEntradas", 2);
+        jwtTokenProvider.iniciar();
+    }
+
+    private String tokenPara(String email) {
+        return tokenPara(email, null);
+    }
+
+    private String tokenPara(String email, String idUsuario) {
+        User usuario = new User(email, "secreta", List.of(new SimpleGrantedAuthority("ROLE_MESERO")));
+        return jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities()), idUsuario);
+    }
+
+    @Test
+    @DisplayName("Un token válido se parsea una vez y después se sirve desde la caché")
+    void parseClaims_DeberiaReutilizarLosClaimsValidados() {
+        // Given
+        String token = tokenPara("mesero@restaurante.com");
+
+        // When
+        Optional<JwtTokenProvider.TokenClaims> primero = jwtTokenProvider.parseClaims(token);
+        Optional<JwtTokenProvider.TokenClaims> segundo = jwtTokenProvider.parseClaims(token);
+
+        // Then
+        assertThat(primero).isPresent();
+        assertThat(primero.get().email()).isEqualTo("mesero@restaurante.com");
+        assertThat(segundo.get()).isSameAs(primero.get());
+        assertThat(jwtTokenProvider.validateToken(token)).isTrue();
+        assertThat(jwtTokenProvider.getUsernameFromToken(token)).isEqualTo("mesero@restaurante.com");
+    }
+
+    @Test
+    @DisplayName("Un token con la firma alterada o expirado no es válido")
+    void parseClaims_TokenInvalido_DeberiaRetornarVacio() {
+        // Given
+        String token = tokenPara("mesero@restaurante.com");
+        // Un carácter intermedio de la firma: el último solo lleva bits de relleno
+        int posicion = token.length() - 5;
+        char original = token.charAt(posicion);
+        String alterado = token.substring(0, posicion) + (original == 'A' ? 'B' : 'A') + token.substring(posicion + 1);
+        String expirado = Jwts.builder()
+                .setSubject("mesero@restaurante.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(SECRETO.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        // When & Then
+        assertThat(jwtTokenProvider.parseClaims(alterado)).isEmpty();
+        assertThat(jwtTokenProvider.parseClaims(expirado)).isEmpty();
+        assertThat(jwtTokenProvider.parseClaims(" ")).isEmpty();
+        assertThatThrownBy(() -> jwtTokenProvider.getUsernameFromToken(alterado))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    @DisplayName("La caché está acotada: el token guardado hace más tiempo se vuelve a verificar")
+    void parseClaims_CacheLlena_DeberiaDescartarElMasAntiguo() {
+        // Given
+        String primero = tokenPara("uno@restaurante.com");
+        JwtTokenProvider.TokenClaims claimsPrimero = jwtTokenProvider.parseClaims(primero).orElseThrow();
+        jwtTokenProvider.parseClaims(tokenPara("dos@restaurante.com"));
+        jwtTokenProvider.parseClaims(tokenPara("tres@restaurante.com"));
+
+        // When
+        JwtTokenProvider.TokenClaims otraVez = jwtTokenProvider.parseClaims(primero).orElseThrow();
+
+        // Then
+        assertThat(otraVez).isNotSameAs(claimsPrimero);
+        assertThat(otraVez.email()).isEqualTo("uno@restaurante.com");
+    }
+
+    @Test
+    @DisplayName("El token lleva ID y rol, y al revocar al usuario deja de valer aunque esté en caché")
+    void parseClaims_UsuarioRevocado_DeberiaRetornarVacio() {
+        // Given
+        String token = tokenPara("mesero@restaurante.com", "U001");
+        JwtTokenProvider.TokenClaims claims = jwtTokenProvider.parseClaims(token).orElseThrow();
+
+        // When
+        tokenEpochRegistry.revocar("U001");
+        String nuevo = tokenPara("mesero@restaurante.com", "U001");
+
+        // Then
+        assertThat(claims.idUsuario()).isEqualTo("U001");
+        assertThat(claims.rol()).isEqualTo("MESERO");
+        assertThat(jwtTokenProvider.parseClaims(token)).isEmpty();
+        assertThat(jwtTokenProvider.parseClaims(nuevo)).isPresent();
+    }
+}
@@ -0,0 +1,81 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.ComandaBoard;
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.entity.Comanda;
+import com.example.demo.domain.mapper.ComandaMapper;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.shared.constants.EstadoConstants;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para ComandaBoard")
+class ComandaBoardTest {
+
+    @Mock
+    private ComandaRepository comandaRepository;
+
+    @Mock
+    private ComandaMapper comandaMapper;
+
+    @InjectMocks
+    private ComandaBoard comandaBoard;
+
+    @BeforeEach
+    void setUp() {
+        Comanda comanda = new Comanda();
+        comanda.setIdComanda(1);
+        ComandaDTO dto = ComandaDTO.builder()
+                .idComanda(1)
+                .fecha(LocalDateTime.of(2024, 5, 6, 13, 0))
+                .estadoId(1)
+                .meseroId("mesero1")
+                .detalles(new ArrayList<>(List.of(
+                        DetalleComandaDTO.builder().idDetalleComanda(10).productoId(1).cantidad(2).build())))
+                .build();
+        when(comandaRepository.findConRelacionesByEstadoIdEstadoNot(EstadoConstants.COMANDA_PAGADA_ID))
+                .thenReturn(List.of(comanda));
+        when(comandaMapper.toDto(comanda)).thenReturn(dto);
+        comandaBoard.cargar();
+    }
+
+    @Test
+    @DisplayName("Modificar una comanda leída del tablero no altera la del tablero")
+    void lecturas_DeberianDevolverCopias() {
+        // Given
+        ComandaDTO leida = comandaBoard.get(1).orElseThrow();
+
+        // When
+        leida.setMeseroId("otro");
+        leida.getDetalles().get(0).setCantidad(99);
+        leida.getDetalles().clear();
+        comandaBoard.activas().get(0).setEstadoId(4);
+        comandaBoard.porMesero("mesero1").get(0).getDetalles().get(0).setProductoId(7);
+
+        // Then
+        ComandaDTO otraVez = comandaBoard.get(1).orElseThrow();
+        assertThat(otraVez).isNotSameAs(leida);
+        assertThat(otraVez.getMeseroId()).isEqualTo("mesero1");
+        assertThat(otraVez.getEstadoId()).isEqualTo(1);
+        assertThat(otraVez.getDetalles()).singleElement().satisfies(d -> {
+            assertThat(d.getCantidad()).isEqualTo(2);
+            assertThat(d.getProductoId()).isEqualTo(1);
+        });
+        assertThat(comandaBoard.porEstado(1)).extracting(ComandaDTO::getIdComanda).containsExactly(1);
+    }
+}
@@ -0,0 +1,394 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.ComandaBoard;
+import com.example.demo.application.service.ComandaNotificationService;
+import com.example.demo.application.service.ComandaService;
+import com.example.demo.application.service.ReferenceDataRegistry;
+import com.example.demo.domain.dto.CambiosComandaDTO;
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.ComandaNotificacionDTO;
+import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.entity.Categoria;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.example.demo.shared.constants.WebSocketConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para ComandaNotificationService")
+class ComandaNotificationServiceTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private ComandaBoard comandaBoard;
+
+    @Mock
+    private ComandaService comandaService;
+
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @InjectMocks
+    private ComandaNotificationService notificationService;
+
+    private ComandaDTO comanda;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(notificationService, "ventanaMs", 200L);
+        ReflectionTestUtils.setField(notificationService, "capacidad", 100);
+        ReflectionTestUtils.setField(notificationService, "tamanoHistorial", 16);
+        notificationService.iniciar();
+
+        comanda = new ComandaDTO();
+        comanda.setIdComanda(1);
+        comanda.setEstadoId(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationService.detener();
+    }
+
+    @Test
+    @DisplayName("Una ráfaga de cambios de la misma comanda se envía como un único mensaje")
+    void rafaga_DeberiaAgruparseEnUnMensaje() {
+        // Given
+        when(comandaBoard.get(1)).thenReturn(Optional.of(comanda));
+
+        // When
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.CREADA);
+        for (int i = 0; i < 29; i++) {
+            notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+        }
+
+        // Then
+        ArgumentCaptor<ComandaNotificacionDTO> captor = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, timeout(2000))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), captor.capture());
+        verify(messagingTemplate, after(300).times(1))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), any(Object.class));
+        verify(comandaBoard, times(1)).get(1);
+        assertThat(captor.getValue().getTipo()).isEqualTo(ComandaCambiadaEvent.Tipo.CREADA);
+        assertThat(captor.getValue().getComanda()).isSameAs(comanda);
+    }
+
+    @Test
+    @DisplayName("Una eliminación prevalece sobre los cambios pendientes y no consulta la comanda")
+    void eliminacion_DeberiaPrevalecer() {
+        // When
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ELIMINADA);
+
+        // Then
+        ArgumentCaptor<ComandaNotificacionDTO> captor = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, timeout(2000))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), captor.capture());
+        assertThat(captor.getValue().getTipo()).isEqualTo(ComandaCambiadaEvent.Tipo.ELIMINADA);
+        assertThat(captor.getValue().getComanda()).isNull();
+        verifyNoInteractions(comandaBoard, comandaService);
+    }
+
+    @Test
+    @DisplayName("Cada estación recibe solo sus líneas y el mesero asignado recibe la comanda")
+    void enrutamiento_PorEstacionYMesero() {
+        // Given
+        DetalleComandaDTO gaseosa = DetalleComandaDTO.builder().idDetalleComanda(10).productoId(1).categoriaId(1)
+                .cantidad(1).build();
+        DetalleComandaDTO lomo = DetalleComandaDTO.builder().idDetalleComanda(11).productoId(2).categoriaId(2)
+                .cantidad(1).build();
+        comanda.setMeseroId("user1");
+        comanda.setDetalles(List.of(gaseosa, lomo));
+        ComandaDTO conMasGaseosas = comanda.toBuilder()
+                .detalles(List.of(DetalleComandaDTO.builder().idDetalleComanda(10).productoId(1).categoriaId(1)
+                        .cantidad(3).build(), lomo))
+                .build();
+        when(comandaBoard.get(1)).thenReturn(Optional.of(comanda), Optional.of(conMasGaseosas));
+        when(referenceDataRegistry.findCategoria(1)).thenReturn(Optional.of(new Categoria(1, "Bebidas", List.of())));
+        when(referenceDataRegistry.findCategoria(2))
+                .thenReturn(Optional.of(new Categoria(2, "Platos Fuertes", List.of())));
+
+        // When
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.CREADA);
+        verify(messagingTemplate, timeout(2000))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), any(Object.class));
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+
+        // Then
+        ArgumentCaptor<ComandaNotificacionDTO> bar = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, timeout(2000).times(2)).convertAndSend(eq("/topic/cocina/bebidas"), bar.capture());
+        assertThat(bar.getAllValues().get(1).getComanda()).isNull();
+        assertThat(bar.getAllValues().get(1).getLineas())
+                .singleElement()
+                .extracting(DetalleComandaDTO::getCantidad)
+                .isEqualTo(3);
+        verify(messagingTemplate, after(300).times(1))
+                .convertAndSend(eq("/topic/cocina/platos-fuertes"), any(Object.class));
+        verify(messagingTemplate, times(2)).convertAndSendToUser(eq("user1"), eq(WebSocketConstants.QUEUE_COMANDAS),
+                any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Una estación recibe las reasignaciones y sus versiones siguen siendo consecutivas")
+    void estacion_Reasignacion_DeberiaLlegarConVersionesConsecutivas() {
+        // Given
+        DetalleComandaDTO gaseosa = DetalleComandaDTO.builder().idDetalleComanda(10).productoId(1).categoriaId(1)
+                .cantidad(1).build();
+        DetalleComandaDTO lomo = DetalleComandaDTO.builder().idDetalleComanda(11).productoId(2).categoriaId(2)
+                .cantidad(1).build();
+        comanda.setMeseroId("user1");
+        comanda.setDetalles(List.of(gaseosa, lomo));
+        ComandaDTO reasignada = comanda.toBuilder().meseroId("user2").cocineroId("chef1").cocineroNombre("Ana")
+                .build();
+        ComandaDTO conMasGaseosas = reasignada.toBuilder()
+                .detalles(List.of(gaseosa.toBuilder().cantidad(3).build(), lomo))
+                .build();
+        when(comandaBoard.get(1))
+                .thenReturn(Optional.of(comanda), Optional.of(reasignada), Optional.of(conMasGaseosas));
+        when(referenceDataRegistry.findCategoria(1)).thenReturn(Optional.of(new Categoria(1, "Bebidas", List.of())));
+        when(referenceDataRegistry.findCategoria(2))
+                .thenReturn(Optional.of(new Categoria(2, "Platos Fuertes", List.of())));
+
+        // When
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.CREADA);
+        verify(messagingTemplate, timeout(2000).times(1))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), any(Object.class));
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+        verify(messagingTemplate, timeout(2000).times(2))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), any(Object.class));
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+
+        // Then
+        ArgumentCaptor<ComandaNotificacionDTO> bar = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, timeout(2000).times(3)).convertAndSend(eq("/topic/cocina/bebidas"), bar.capture());
+        assertThat(bar.getAllValues())
+                .extracting(ComandaNotificacionDTO::getVersion)
+                .containsExactly(1L, 2L, 3L);
+        assertThat(bar.getAllValues().get(1).getCampos())
+                .containsOnlyKeys("meseroId", "cocineroId", "cocineroNombre")
+                .containsEntry("cocineroId", "chef1");
+        assertThat(bar.getAllValues().get(2).getLineas())
+                .singleElement()
+                .extracting(DetalleComandaDTO::getCantidad)
+                .isEqualTo(3);
+        // El cambio de gaseosas no toca la cocina: recibió la creación y la reasignación
+        ArgumentCaptor<ComandaNotificacionDTO> cocina = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, after(300).times(2))
+                .convertAndSend(eq("/topic/cocina/platos-fuertes"), cocina.capture());
+        assertThat(cocina.getAllValues())
+                .extracting(ComandaNotificacionDTO::getVersion)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Una línea nueva en una estación no envía nada a las demás aunque cambien total y líneas")
+    void lineaEnOtraEstacion_NoDeberiaNotificarPorAgregados() {
+        // Given
+        DetalleComandaDTO gaseosa = DetalleComandaDTO.builder().idDetalleComanda(10).productoId(1).categoriaId(1)
+                .cantidad(1).build();
+        DetalleComandaDTO lomo = DetalleComandaDTO.builder().idDetalleComanda(11).productoId(2).categoriaId(2)
+                .cantidad(1).build();
+        DetalleComandaDTO jugo = DetalleComandaDTO.builder().idDetalleComanda(12).productoId(3).categoriaId(1)
+                .cantidad(2).build();
+        comanda.setDetalles(List.of(gaseosa, lomo));
+        comanda.setTotal(new BigDecimal("30.00"));
+        comanda.setCantidadLineas(2);
+        ComandaDTO conJugo = comanda.toBuilder()
+                .detalles(List.of(gaseosa, lomo, jugo))
+                .total(new BigDecimal("40.00"))
+                .cantidadLineas(3)
+                .build();
+        when(comandaBoard.get(1)).thenReturn(Optional.of(comanda), Optional.of(conJugo));
+        when(referenceDataRegistry.findCategoria(1)).thenReturn(Optional.of(new Categoria(1, "Bebidas", List.of())));
+        when(referenceDataRegistry.findCategoria(2))
+                .thenReturn(Optional.of(new Categoria(2, "Platos Fuertes", List.of())));
+
+        // When
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.CREADA);
+        verify(messagingTemplate, timeout(2000))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), any(Object.class));
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+
+        // Then
+        ArgumentCaptor<ComandaNotificacionDTO> global = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, timeout(2000).times(2))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), global.capture());
+        assertThat(global.getAllValues().get(1).getCampos()).containsOnlyKeys("total", "cantidadLineas");
+
+        ArgumentCaptor<ComandaNotificacionDTO> bar = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, timeout(2000).times(2)).convertAndSend(eq("/topic/cocina/bebidas"), bar.capture());
+        assertThat(bar.getAllValues().get(1).getCampos()).isEmpty();
+        assertThat(bar.getAllValues().get(1).getLineas())
+                .extracting(DetalleComandaDTO::getIdDetalleComanda)
+                .containsExactly(12);
+        verify(messagingTemplate, after(300).times(1))
+                .convertAndSend(eq("/topic/cocina/platos-fuertes"), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Un cambio de estado viaja como diferencia, sin la comanda completa")
+    void cambioEstado_DeberiaEnviarSoloCamposCambiados() {
+        // Given
+        comanda.setEstadoNombre("PENDIENTE");
+        ComandaDTO enPreparacion = comanda.toBuilder().estadoId(2).estadoNombre("EN PREPARACION").build();
+        when(comandaBoard.get(1)).thenReturn(Optional.of(comanda), Optional.of(enPreparacion));
+
+        // When
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.CREADA);
+        verify(messagingTemplate, timeout(2000))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS_NUEVA), any(Object.class));
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+
+        // Then
+        ArgumentCaptor<ComandaNotificacionDTO> captor = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, timeout(2000))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS_ESTADO), captor.capture());
+        ComandaNotificacionDTO cambio = captor.getValue();
+        assertThat(cambio.getVersion()).isEqualTo(2L);
+        assertThat(cambio.getComanda()).isNull();
+        assertThat(cambio.getCampos()).containsOnlyKeys("estadoId", "estadoNombre");
+        assertThat(cambio.getCampos()).containsEntry("estadoId", 2);
+        assertThat(cambio.getLineas()).isEmpty();
+        assertThat(cambio.getLineasQuitadas()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Una reconexión recibe solo los cambios posteriores a su secuencia")
+    void cambiosDesde_DeberiaDevolverSoloLosPerdidos() {
+        // Given
+        ArgumentCaptor<ComandaNotificacionDTO> captor = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        for (int id = 1; id <= 3; id++) {
+            notificationService.encolar(id, ComandaCambiadaEvent.Tipo.ELIMINADA);
+        }
+        verify(messagingTemplate, timeout(2000).times(3))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), captor.capture());
+        Long primera = captor.getAllValues().get(0).getSecuencia();
+
+        // When
+        CambiosComandaDTO cambios = notificationService.cambiosDesde(primera);
+
+        // Then
+        assertThat(cambios.isCompleto()).isFalse();
+        assertThat(cambios.getUltimaSecuencia()).isEqualTo(primera + 2);
+        assertThat(cambios.getCambios())
+                .extracting(ComandaNotificacionDTO::getIdComanda)
+                .containsExactly(2, 3);
+    }
+
+    @Test
+    @DisplayName("Una secuencia fuera del historial recibe todas las comandas activas")
+    void cambiosDesde_FueraDelHistorial_DeberiaDevolverInstantanea() {
+        // Given
+        when(comandaService.findComandasActivas()).thenReturn(List.of(comanda));
+
+        // When
+        CambiosComandaDTO cambios = notificationService.cambiosDesde(0L);
+
+        // Then
+        assertThat(cambios.isCompleto()).isTrue();
+        assertThat(cambios.getCambios()).isNull();
+        assertThat(cambios.getComandas()).containsExactly(comanda);
+    }
+
+    @Test
+    @DisplayName("Una tablet que pierde tramas de su estación se resincroniza con las versiones de la estación")
+    void cambiosDesde_Estacion_DeberiaDevolverLosMensajesDeSuTopic() {
+        // Given
+        DetalleComandaDTO gaseosa = DetalleComandaDTO.builder().idDetalleComanda(10).productoId(1).categoriaId(1)
+                .cantidad(1).build();
+        DetalleComandaDTO lomo = DetalleComandaDTO.builder().idDetalleComanda(11).productoId(2).categoriaId(2)
+                .cantidad(1).build();
+        comanda.setDetalles(List.of(gaseosa, lomo));
+        ComandaDTO conMasLomo = comanda.toBuilder()
+                .detalles(List.of(gaseosa, lomo.toBuilder().cantidad(2).build()))
+                .build();
+        ComandaDTO conMasGaseosas = conMasLomo.toBuilder()
+                .detalles(List.of(gaseosa.toBuilder().cantidad(3).build(), lomo.toBuilder().cantidad(2).build()))
+                .build();
+        when(comandaBoard.get(1))
+                .thenReturn(Optional.of(comanda), Optional.of(conMasLomo), Optional.of(conMasGaseosas));
+        when(referenceDataRegistry.findCategoria(1)).thenReturn(Optional.of(new Categoria(1, "Bebidas", List.of())));
+        when(referenceDataRegistry.findCategoria(2))
+                .thenReturn(Optional.of(new Categoria(2, "Platos Fuertes", List.of())));
+
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.CREADA);
+        verify(messagingTemplate, timeout(2000).times(1))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), any(Object.class));
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+        verify(messagingTemplate, timeout(2000).times(2))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_COMANDAS), any(Object.class));
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.ACTUALIZADA);
+        ArgumentCaptor<ComandaNotificacionDTO> bar = ArgumentCaptor.forClass(ComandaNotificacionDTO.class);
+        verify(messagingTemplate, timeout(2000).times(2)).convertAndSend(eq("/topic/cocina/bebidas"), bar.capture());
+        // La tablet del bar solo recibió la creación; la segunda trama se perdió
+        Long recibida = bar.getAllValues().get(0).getSecuencia();
+
+        // When
+        CambiosComandaDTO cambios = notificationService.cambiosDesde(recibida, "bebidas");
+
+        // Then
+        assertThat(cambios.isCompleto()).isFalse();
+        assertThat(cambios.getUltimaSecuencia()).isEqualTo(recibida + 2);
+        assertThat(cambios.getCambios()).singleElement().satisfies(cambio -> {
+            assertThat(cambio.getVersion()).isEqualTo(2L);
+            assertThat(cambio.getLineas())
+                    .singleElement()
+                    .extracting(DetalleComandaDTO::getCantidad)
+                    .isEqualTo(3);
+        });
+        verifyNoInteractions(comandaService);
+    }
+
+    @Test
+    @DisplayName("Una estación fuera de su historial recibe solo sus comandas y líneas con su versión")
+    void cambiosDesde_EstacionFueraDelHistorial_DeberiaDevolverInstantaneaDeLaEstacion() {
+        // Given
+        DetalleComandaDTO gaseosa = DetalleComandaDTO.builder().idDetalleComanda(10).productoId(1).categoriaId(1)
+                .cantidad(1).build();
+        DetalleComandaDTO lomo = DetalleComandaDTO.builder().idDetalleComanda(11).productoId(2).categoriaId(2)
+                .cantidad(1).build();
+        comanda.setDetalles(List.of(gaseosa, lomo));
+        ComandaDTO soloCocina = new ComandaDTO();
+        soloCocina.setIdComanda(2);
+        soloCocina.setDetalles(List.of(lomo.toBuilder().idDetalleComanda(12).build()));
+        when(comandaBoard.get(1)).thenReturn(Optional.of(comanda));
+        when(comandaService.findComandasActivas()).thenReturn(List.of(comanda, soloCocina));
+        when(referenceDataRegistry.findCategoria(1)).thenReturn(Optional.of(new Categoria(1, "Bebidas", List.of())));
+        when(referenceDataRegistry.findCategoria(2))
+                .thenReturn(Optional.of(new Categoria(2, "Platos Fuertes", List.of())));
+        notificationService.encolar(1, ComandaCambiadaEvent.Tipo.CREADA);
+        verify(messagingTemplate, timeout(2000)).convertAndSend(eq("/topic/cocina/bebidas"), any(Object.class));
+
+        // When
+        CambiosComandaDTO cambios = notificationService.cambiosDesde(0L, "bebidas");
+
+        // Then
+        assertThat(cambios.isCompleto()).isTrue();
+        assertThat(cambios.getComandas()).singleElement().satisfies(vista -> {
+            assertThat(vista.getIdComanda()).isEqualTo(1);
+            assertThat(vista.getDetalles()).containsExactly(gaseosa);
+        });
+        assertThat(cambios.getVersiones()).containsExactly(entry(1, 1L));
+    }
+}
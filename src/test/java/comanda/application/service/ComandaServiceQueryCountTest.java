@@ -0,0 +1,177 @@
+package comanda.application.service;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.application.service.ComandaBoard;
+import com.example.demo.application.service.ComandaService;
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.entity.Categoria;
+import com.example.demo.domain.entity.Comanda;
+import com.example.demo.domain.entity.DetalleComanda;
+import com.example.demo.domain.entity.Estado;
+import com.example.demo.domain.entity.Mesa;
+import com.example.demo.domain.entity.Producto;
+import com.example.demo.domain.entity.Rol;
+import com.example.demo.domain.entity.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = DemoApplication.class, properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional
+@DisplayName("Tests de número de consultas para ComandaService")
+class ComandaServiceQueryCountTest {
+
+    private static final int COMANDAS = 50;
+    private static final int DETALLES_POR_COMANDA = 3;
+
+    @Autowired
+    private ComandaService comandaService;
+
+    @Autowired
+    private ComandaBoard comandaBoard;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Rol rol = new Rol();
+        rol.setIdRol(2);
+        rol.setNombre("MESERO");
+        entityManager.persist(rol);
+
+        Estado pendiente = new Estado();
+        pendiente.setNombre("PENDIENTE");
+        entityManager.persist(pendiente);
+
+        Categoria categoria = new Categoria();
+        categoria.setNombre("BEBIDAS");
+        entityManager.persist(categoria);
+
+        Producto[] productos = new Producto[DETALLES_POR_COMANDA];
+        for (int p = 0; p < DETALLES_POR_COMANDA; p++) {
+            Producto producto = new Producto();
+            producto.setNombre("PRODUCTO " + p);
+            producto.setCategoria(categoria);
+            producto.setPrecio(new BigDecimal("5.50"));
+            producto.setStock(1000);
+            producto.setEstado(true);
+            entityManager.persist(producto);
+            productos[p] = producto;
+        }
+
+        for (int i = 0; i < COMANDAS; i++) {
+            Mesa mesa = new Mesa();
+            mesa.setCapacidad(4);
+            mesa.setUbicacion("SALON");
+            mesa.setEstado(pendiente);
+            entityManager.persist(mesa);
+
+            Usuario mesero = Usuario.builder()
+                    .idUsuario("mesero" + i)
+                    .nombre("Mesero " + i)
+                    .email("mesero" + i + "@mail.com")
+                    .password("x")
+                    .rol(rol)
+                    .build();
+            entityManager.persist(mesero);
+
+            Comanda comanda = new Comanda();
+            comanda.setFecha(LocalDateTime.now());
+            comanda.setMesa(mesa);
+            comanda.setMesero(mesero);
+            comanda.setEstado(pendiente);
+            for (Producto producto : productos) {
+                DetalleComanda detalle = new DetalleComanda();
+                detalle.setProducto(producto);
+                detalle.setCantidad(2);
+                detalle.setPrecioUnitario(producto.getPrecio());
+                detalle.setSubtotal(new BigDecimal("11.00"));
+                comanda.addDetalle(detalle);
+            }
+            entityManager.persist(comanda);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    // El tablero es compartido por todo el contexto: se recarga sin los datos revertidos de la prueba
+    @AfterTransaction
+    void restaurarTablero() {
+        comandaBoard.cargar();
+    }
+
+    @Test
+    @DisplayName("Listar comandas activas ejecuta un número constante de consultas")
+    void findComandasActivas_NumeroConstanteDeConsultas() {
+        // Given: el tablero se cargó vacío al arrancar; sin él se mide la ruta de base de datos
+        ReflectionTestUtils.setField(comandaBoard, "cargado", false);
+
+        // When
+        List<ComandaDTO> response = comandaService.findComandasActivas();
+
+        // Then
+        assertThat(response).hasSize(COMANDAS);
+        assertThat(response).allSatisfy(c -> {
+            assertThat(c.getMeseroNombre()).isNotNull();
+            assertThat(c.getDetalles()).hasSize(DETALLES_POR_COMANDA);
+            assertThat(c.getDetalles()).allSatisfy(d -> assertThat(d.getProductoNombre()).isNotNull());
+        });
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Cargar el tablero de comandas activas ejecuta un número constante de consultas")
+    void cargarTablero_NumeroConstanteDeConsultas() {
+        // When
+        comandaBoard.cargar();
+        List<ComandaDTO> response = comandaBoard.activas();
+
+        // Then
+        assertThat(response).hasSize(COMANDAS);
+        assertThat(response).allSatisfy(c -> assertThat(c.getDetalles()).hasSize(DETALLES_POR_COMANDA));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Listar comandas por fecha ejecuta un número constante de consultas")
+    void findByFechaBetween_NumeroConstanteDeConsultas() {
+        // When
+        List<ComandaDTO> response = comandaService.findByFechaBetween(
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+
+        // Then
+        assertThat(response).hasSize(COMANDAS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+}
@@ -1,6 +1,11 @@
 package comanda.application.service;
 
+import com.example.demo.application.service.ComandaBoard;
 import com.example.demo.application.service.ComandaService;
+import com.example.demo.application.service.ReferenceDataRegistry;
+import com.example.demo.application.service.SalesTimeSeries;
+import com.example.demo.application.service.StockLedger;
+import com.example.demo.application.service.VentasDiariasService;
 import com.example.demo.domain.entity.Categoria;
 import com.example.demo.domain.entity.Comanda;
 import com.example.demo.domain.entity.DetalleComanda;
@@ -11,6 +16,7 @@ import com.example.demo.domain.entity.Rol;
 import com.example.demo.domain.entity.Usuario;
 import com.example.demo.domain.dto.ComandaDTO;
 import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.dto.PaginaCursorDTO;
 import com.example.demo.domain.mapper.ComandaMapper;
 import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
 import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
@@ -21,6 +27,7 @@ import com.example.demo.infrastructure.persistence.repository.UsuarioRepository;
 import com.example.demo.shared.exception.BadRequestException;
 import com.example.demo.shared.exception.InsufficientStockException;
 import com.example.demo.shared.exception.ResourceNotFoundException;
+import com.example.demo.shared.util.CursorUtil;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -29,17 +36,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -64,9 +77,27 @@ class ComandaServiceTest {
     @Mock
     private EstadoRepository estadoRepository;
 
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
     @Mock
     private ComandaMapper comandaMapper;
 
+    @Mock
+    private ComandaBoard comandaBoard;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private VentasDiariasService ventasDiariasService;
+
+    @Mock
+    private SalesTimeSeries salesTimeSeries;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ComandaService comandaService;
 
@@ -149,8 +180,8 @@ class ComandaServiceTest {
     void save_Exitoso() {
         // Given
         when(mesaRepository.findById(1)).thenReturn(Optional.of(mesa));
-        when(usuarioRepository.findById("user1")).thenReturn(Optional.of(usuario));
-        when(estadoRepository.findById(1)).thenReturn(Optional.of(estado));
+        when(usuarioRepository.findAllById(Set.of("user1"))).thenReturn(List.of(usuario));
+        when(referenceDataRegistry.findEstado(1)).thenReturn(Optional.of(estado));
         when(comandaMapper.toEntity(requestDto)).thenReturn(comanda);
         when(comandaRepository.save(any(Comanda.class))).thenReturn(comanda);
         when(comandaMapper.toDto(comanda)).thenReturn(requestDto);
@@ -174,7 +205,7 @@ class ComandaServiceTest {
         estadoOcupada.setNombre("OCUPADA");
         mesa.setEstado(estadoOcupada);
         when(mesaRepository.findById(1)).thenReturn(Optional.of(mesa));
-        when(usuarioRepository.findById("user1")).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.findAllById(Set.of("user1"))).thenReturn(List.of(usuario));
         when(comandaMapper.toEntity(requestDto)).thenReturn(comanda);
 
         // When & Then
@@ -204,8 +235,8 @@ class ComandaServiceTest {
         // Given
         requestDto.setDetalles(Collections.emptyList());
         when(mesaRepository.findById(1)).thenReturn(Optional.of(mesa));
-        when(usuarioRepository.findById("user1")).thenReturn(Optional.of(usuario));
-        when(estadoRepository.findById(1)).thenReturn(Optional.of(estado));
+        when(usuarioRepository.findAllById(Set.of("user1"))).thenReturn(List.of(usuario));
+        when(referenceDataRegistry.findEstado(1)).thenReturn(Optional.of(estado));
         when(comandaMapper.toEntity(requestDto)).thenReturn(comanda);
 
         // When & Then
@@ -221,9 +252,9 @@ class ComandaServiceTest {
         // Given
         producto.setStock(1); // Solo hay 1 en stock pero se piden 2
         when(mesaRepository.findById(1)).thenReturn(Optional.of(mesa));
-        when(usuarioRepository.findById("user1")).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.findAllById(Set.of("user1"))).thenReturn(List.of(usuario));
         when(productoRepository.findById(1)).thenReturn(Optional.of(producto));
-        when(estadoRepository.findById(1)).thenReturn(Optional.of(estado));
+        when(referenceDataRegistry.findEstado(1)).thenReturn(Optional.of(estado));
         when(comandaMapper.toEntity(requestDto)).thenReturn(comanda);
 
         // When & Then
@@ -233,6 +264,27 @@ class ComandaServiceTest {
         verify(comandaRepository, never()).save(any(Comanda.class));
     }
 
+    @Test
+    @DisplayName("Actualizar comanda sin cambiar relaciones no las consulta")
+    void update_RelacionesSinCambios_NoDeberiaConsultarlas() {
+        // Given
+        comanda.setMesa(mesa);
+        comanda.setMesero(usuario);
+        comanda.setEstado(estado);
+        when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
+        when(comandaRepository.save(any(Comanda.class))).thenReturn(comanda);
+        when(comandaMapper.toDto(comanda)).thenReturn(requestDto);
+
+        // When
+        ComandaDTO response = comandaService.update(1, requestDto);
+
+        // Then
+        assertThat(response).isNotNull();
+        verify(mesaRepository, never()).findById(any());
+        verify(usuarioRepository, never()).findAllById(any());
+        verify(referenceDataRegistry, never()).findEstado(any());
+    }
+
     @Test
     @DisplayName("Actualizar estado de comanda exitosamente")
     void cambiarEstado_Exitoso() {
@@ -242,7 +294,7 @@ class ComandaServiceTest {
         estadoPreparacion.setNombre("EN PREPARACION");
 
         when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
-        when(estadoRepository.findById(2)).thenReturn(Optional.of(estadoPreparacion));
+        when(referenceDataRegistry.findEstado(2)).thenReturn(Optional.of(estadoPreparacion));
         when(comandaRepository.save(any(Comanda.class))).thenReturn(comanda);
         when(comandaMapper.toDto(comanda)).thenReturn(requestDto);
 
@@ -275,7 +327,7 @@ class ComandaServiceTest {
     @DisplayName("Obtener comanda por ID exitosamente")
     void findById_Exitoso() {
         // Given
-        when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
+        when(comandaRepository.findConRelacionesByIdComanda(1)).thenReturn(Optional.of(comanda));
         when(comandaMapper.toDto(comanda)).thenReturn(requestDto);
 
         // When
@@ -291,7 +343,7 @@ class ComandaServiceTest {
     @DisplayName("Obtener comanda inexistente debe lanzar excepción")
     void findById_NoExiste_DeberiaLanzarExcepcion() {
         // Given
-        when(comandaRepository.findById(1)).thenReturn(Optional.empty());
+        when(comandaRepository.findConRelacionesByIdComanda(1)).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> comandaService.findById(1))
@@ -303,7 +355,7 @@ class ComandaServiceTest {
     @DisplayName("Listar todas las comandas")
     void findAll_DeberiaRetornarLista() {
         // Given
-        when(comandaRepository.findAll()).thenReturn(Arrays.asList(comanda));
+        when(comandaRepository.findAllConRelaciones()).thenReturn(Arrays.asList(comanda));
         when(comandaMapper.toDtoList(Arrays.asList(comanda))).thenReturn(Arrays.asList(requestDto));
 
         // When
@@ -318,7 +370,7 @@ class ComandaServiceTest {
     @DisplayName("Obtener comandas por estado")
     void findByEstadoId_DeberiaRetornarLista() {
         // Given
-        when(comandaRepository.findByEstadoIdEstado(1)).thenReturn(Arrays.asList(comanda));
+        when(comandaRepository.findConRelacionesByEstadoIdEstado(1)).thenReturn(Arrays.asList(comanda));
         when(comandaMapper.toDtoList(Arrays.asList(comanda))).thenReturn(Arrays.asList(requestDto));
 
         // When
@@ -329,11 +381,91 @@ class ComandaServiceTest {
         assertThat(response.get(0).getEstadoId()).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("Obtener comandas por estado no final desde el tablero")
+    void findByEstadoId_EstadoNoFinal_DeberiaUsarTablero() {
+        // Given
+        when(comandaBoard.cubreEstado(1)).thenReturn(true);
+        when(comandaBoard.porEstado(1)).thenReturn(Arrays.asList(requestDto));
+
+        // When
+        List<ComandaDTO> response = comandaService.findByEstadoId(1);
+
+        // Then
+        assertThat(response).hasSize(1);
+        verify(comandaRepository, never()).findConRelacionesByEstadoIdEstado(any());
+    }
+
+    private static ComandaDTO comandaEn(int id, LocalDateTime fecha) {
+        ComandaDTO dto = new ComandaDTO();
+        dto.setIdComanda(id);
+        dto.setFecha(fecha);
+        return dto;
+    }
+
+    @Test
+    @DisplayName("Paginar desde el tablero recorre todas las comandas y desempata por ID a igual fecha")
+    void findPaginaByEstadoId_Tablero_DeberiaDesempatarPorId() {
+        // Given: ya en ORDEN_RECIENTE; 8 y 7 comparten fecha
+        LocalDateTime t = LocalDateTime.of(2024, 5, 6, 13, 0);
+        List<ComandaDTO> ordenadas = List.of(
+                comandaEn(9, t.plusMinutes(2)), comandaEn(8, t.plusMinutes(1)),
+                comandaEn(7, t.plusMinutes(1)), comandaEn(5, t));
+        when(comandaBoard.cubreEstado(1)).thenReturn(true);
+        when(comandaBoard.porEstado(1)).thenReturn(ordenadas);
+
+        // When
+        PaginaCursorDTO<ComandaDTO> primera = comandaService.findPaginaByEstadoId(1, null, 2);
+        PaginaCursorDTO<ComandaDTO> segunda = comandaService.findPaginaByEstadoId(1, primera.getNextCursor(), 2);
+
+        // Then
+        assertThat(primera.getItems()).extracting(ComandaDTO::getIdComanda).containsExactly(9, 8);
+        assertThat(CursorUtil.decodeComanda(primera.getNextCursor()))
+                .isEqualTo(new CursorUtil.ComandaCursor(t.plusMinutes(1), 8));
+        assertThat(segunda.getItems()).extracting(ComandaDTO::getIdComanda).containsExactly(7, 5);
+        assertThat(segunda.getNextCursor()).isNull();
+        verifyNoInteractions(comandaRepository);
+    }
+
+    @Test
+    @DisplayName("Paginar en base de datos pide una fila de más para saber si hay página siguiente")
+    void findPagina_DeberiaDevolverCursorDeLaUltimaFila() {
+        // Given
+        Comanda segunda = new Comanda();
+        segunda.setIdComanda(2);
+        segunda.setFecha(comanda.getFecha().minusMinutes(5));
+        Comanda sobrante = new Comanda();
+        sobrante.setIdComanda(3);
+        sobrante.setFecha(comanda.getFecha().minusMinutes(10));
+        when(comandaRepository.findPagina(CursorUtil.FECHA_INICIAL, Integer.MAX_VALUE, PageRequest.ofSize(3)))
+                .thenReturn(new ArrayList<>(List.of(comanda, segunda, sobrante)));
+        when(comandaMapper.toDtoList(List.of(comanda, segunda))).thenReturn(List.of(requestDto, requestDto));
+
+        // When
+        PaginaCursorDTO<ComandaDTO> pagina = comandaService.findPagina(null, 2);
+
+        // Then
+        assertThat(pagina.getItems()).hasSize(2);
+        assertThat(CursorUtil.decodeComanda(pagina.getNextCursor()))
+                .isEqualTo(new CursorUtil.ComandaCursor(segunda.getFecha(), 2));
+        verify(comandaRepository).findConDetallesByIdComandaIn(List.of(1, 2));
+    }
+
+    @Test
+    @DisplayName("Un límite fuera de rango se rechaza antes de consultar")
+    void findPagina_LimiteInvalido_DeberiaLanzarExcepcion() {
+        assertThatThrownBy(() -> comandaService.findPagina(null, 0))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> comandaService.findPagina(null, 501))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(comandaRepository);
+    }
+
     @Test
     @DisplayName("Obtener comandas por mesa")
     void findByMesaId_DeberiaRetornarLista() {
         // Given
-        when(comandaRepository.findByMesaIdMesa(1)).thenReturn(Arrays.asList(comanda));
+        when(comandaRepository.findConRelacionesByMesaIdMesa(1)).thenReturn(Arrays.asList(comanda));
         when(comandaMapper.toDtoList(Arrays.asList(comanda))).thenReturn(Arrays.asList(requestDto));
 
         // When
@@ -362,8 +494,8 @@ class ComandaServiceTest {
         estadoDisponible.setNombre("DISPONIBLE");
 
         when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
-        when(estadoRepository.findById(5)).thenReturn(Optional.of(estadoCompletada));
-        when(estadoRepository.findByNombreIgnoreCase("DISPONIBLE")).thenReturn(Optional.of(estadoDisponible));
+        when(referenceDataRegistry.findEstado(5)).thenReturn(Optional.of(estadoCompletada));
+        when(referenceDataRegistry.findEstadoByNombre("DISPONIBLE")).thenReturn(Optional.of(estadoDisponible));
         when(comandaRepository.save(any(Comanda.class))).thenReturn(comanda);
         when(mesaRepository.save(any(Mesa.class))).thenReturn(mesa);
         when(comandaMapper.toDto(comanda)).thenReturn(requestDto);
@@ -375,4 +507,53 @@ class ComandaServiceTest {
         assertThat(result).isNotNull();
         verify(mesaRepository, times(1)).save(any(Mesa.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Crear comanda con detalles en lote exitosamente")
+    void saveConDetalles_Exitoso() {
+        // Given
+        when(comandaMapper.toEntity(requestDto)).thenReturn(comanda);
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto));
+        when(mesaRepository.findById(1)).thenReturn(Optional.of(mesa));
+        when(usuarioRepository.findAllById(Set.of("user1"))).thenReturn(List.of(usuario));
+        when(referenceDataRegistry.findEstado(1)).thenReturn(Optional.of(estado));
+        when(comandaRepository.save(any(Comanda.class))).thenReturn(comanda);
+        comanda.setDetalles(new java.util.ArrayList<>());
+        when(detalleComandaRepository.findByComandaIdComanda(1)).thenReturn(List.of());
+        when(comandaMapper.toDto(comanda)).thenReturn(requestDto);
+        when(stockLedger.disponible(producto)).thenReturn(50);
+        when(stockLedger.descontar(producto.getIdProducto(), 2)).thenReturn(true);
+
+        // When
+        ComandaDTO response = comandaService.saveConDetalles(requestDto);
+
+        // Then
+        assertThat(response).isNotNull();
+        verify(stockLedger, times(1)).descontar(producto.getIdProducto(), 2);
+        verify(productoRepository, times(1)).findAllById(any());
+        verify(productoRepository, never()).findById(any());
+        verify(detalleComandaRepository, times(1)).insertarEnLote(argThat(l -> l.size() == 1));
+        verify(ventasDiariasService, times(1)).registrar(argThat((List<DetalleComanda> l) -> l.size() == 1), eq(1));
+        verify(salesTimeSeries, times(1)).registrarComanda(any(), eq(1));
+    }
+
+    @Test
+    @DisplayName("Crear comanda en lote con stock insuficiente no inserta nada")
+    void saveConDetalles_StockInsuficiente_DeberiaLanzarExcepcion() {
+        // Given
+        producto.setStock(1);
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto));
+        when(mesaRepository.findById(1)).thenReturn(Optional.of(mesa));
+        when(usuarioRepository.findAllById(Set.of("user1"))).thenReturn(List.of(usuario));
+        when(referenceDataRegistry.findEstado(1)).thenReturn(Optional.of(estado));
+        when(comandaMapper.toEntity(requestDto)).thenReturn(comanda);
+
+        // When & Then
+        assertThatThrownBy(() -> comandaService.saveConDetalles(requestDto))
+                .isInstanceOf(InsufficientStockException.class)
+                .hasMessageContaining("Stock insuficiente");
+        verify(comandaRepository, never()).save(any(Comanda.class));
+        verify(detalleComandaRepository, never()).insertarEnLote(any());
+        verifyNoInteractions(ventasDiariasService, salesTimeSeries);
+    }
+}
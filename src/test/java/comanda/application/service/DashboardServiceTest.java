@@ -0,0 +1,125 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.DashboardService;
+import com.example.demo.application.service.LiveSalesCounters;
+import com.example.demo.application.service.MesaStateIndex;
+import com.example.demo.application.service.RankingVentasService;
+import com.example.demo.application.service.ReferenceDataRegistry;
+import com.example.demo.application.service.SalesTimeSeries;
+import com.example.demo.domain.entity.Estado;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.MesaRepository;
+import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
+import com.example.demo.infrastructure.persistence.repository.UsuarioRepository;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaRepository;
+import com.example.demo.infrastructure.web.dto.EstadisticasDTO;
+import com.example.demo.shared.exception.BadRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para DashboardService")
+class DashboardServiceTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private MesaRepository mesaRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private ComandaRepository comandaRepository;
+
+    @Mock
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @Mock
+    private LiveSalesCounters liveSalesCounters;
+
+    @Mock
+    private MesaStateIndex mesaStateIndex;
+
+    @Mock
+    private SalesTimeSeries salesTimeSeries;
+
+    @Mock
+    private RankingVentasService rankingVentasService;
+
+    @InjectMocks
+    private DashboardService dashboardService;
+
+    private final LocalDate lunes = LocalDate.of(2024, 5, 6);
+    private final LocalDate domingo = LocalDate.of(2024, 5, 12);
+
+    private static ComandaRepository.ConteoPorEstado conteo(int idEstado, long cantidad) {
+        ComandaRepository.ConteoPorEstado conteo = mock(ComandaRepository.ConteoPorEstado.class);
+        when(conteo.getIdEstado()).thenReturn(idEstado);
+        when(conteo.getCantidad()).thenReturn(cantidad);
+        return conteo;
+    }
+
+    private static Estado estado(int id, String nombre) {
+        Estado estado = new Estado();
+        estado.setIdEstado(id);
+        estado.setNombre(nombre);
+        return estado;
+    }
+
+    @Test
+    @DisplayName("Las estadísticas de un rango combinan el acumulado de ventas con los conteos de comandas")
+    void getEstadisticas_DeberiaCombinarVentasYConteos() {
+        // Given
+        when(comandaRepository.contarEntre(lunes.atStartOfDay(), domingo.plusDays(1).atStartOfDay()))
+                .thenReturn(4L);
+        VentaDiariaRepository.ResumenVentas ventas = mock(VentaDiariaRepository.ResumenVentas.class);
+        when(ventas.getCantidad()).thenReturn(12L);
+        when(ventas.getImporte()).thenReturn(new BigDecimal("100.00"));
+        when(ventaDiariaRepository.resumirEntre(lunes, domingo)).thenReturn(ventas);
+        List<ComandaRepository.ConteoPorEstado> conteos = List.of(conteo(1, 1), conteo(4, 3));
+        when(comandaRepository.contarPorEstadoEntre(lunes.atStartOfDay(), domingo.plusDays(1).atStartOfDay()))
+                .thenReturn(conteos);
+        when(referenceDataRegistry.findEstado(1)).thenReturn(Optional.of(estado(1, "PENDIENTE")));
+        when(referenceDataRegistry.findEstado(4)).thenReturn(Optional.empty());
+
+        // When
+        EstadisticasDTO estadisticas = dashboardService.getEstadisticas(lunes, domingo);
+
+        // Then
+        assertThat(estadisticas.getTotalComandas()).isEqualTo(4L);
+        assertThat(estadisticas.getProductosVendidos()).isEqualTo(12L);
+        assertThat(estadisticas.getVentasTotales()).isEqualByComparingTo("100.00");
+        assertThat(estadisticas.getPromedioVentas()).isEqualByComparingTo("25.00");
+        // Un estado desconocido se informa por su ID
+        assertThat(estadisticas.getComandasPorEstado())
+                .containsExactly(entry("PENDIENTE", 1L), entry("4", 3L));
+        verify(comandaRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Un rango invertido se rechaza sin consultar la base de datos")
+    void getEstadisticas_RangoInvertido_DeberiaRechazar() {
+        assertThatThrownBy(() -> dashboardService.getEstadisticas(domingo, lunes))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(comandaRepository, ventaDiariaRepository);
+    }
+}
@@ -0,0 +1,232 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.DetalleComandaService;
+import com.example.demo.application.service.StockLedger;
+import com.example.demo.application.service.VentasDiariasService;
+import com.example.demo.domain.dto.AjusteLineaDTO;
+import com.example.demo.domain.dto.DetalleComandaDTO;
+import com.example.demo.domain.entity.Comanda;
+import com.example.demo.domain.entity.DetalleComanda;
+import com.example.demo.domain.entity.Producto;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.example.demo.domain.mapper.DetalleComandaMapper;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
+import com.example.demo.shared.exception.BadRequestException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para DetalleComandaService")
+class DetalleComandaServiceTest {
+
+    @Mock
+    private DetalleComandaRepository detalleComandaRepository;
+
+    @Mock
+    private DetalleComandaMapper detalleComandaMapper;
+
+    @Mock
+    private ComandaRepository comandaRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private VentasDiariasService ventasDiariasService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private DetalleComandaService detalleComandaService;
+
+    private Comanda comanda;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        comanda = new Comanda();
+        comanda.setIdComanda(1);
+        comanda.setFecha(LocalDateTime.now());
+        comanda.setTotal(new BigDecimal("20.00"));
+        comanda.setCantidadLineas(2);
+
+        producto = new Producto();
+        producto.setIdProducto(1);
+        producto.setNombre("COCA COLA");
+        producto.setPrecio(new BigDecimal("5.50"));
+        producto.setStock(50);
+        producto.setEstado(true);
+    }
+
+    private static ComandaRepository.TotalesComanda totales(String total, int lineas) {
+        ComandaRepository.TotalesComanda totales = mock(ComandaRepository.TotalesComanda.class);
+        when(totales.getTotal()).thenReturn(new BigDecimal(total));
+        when(totales.getCantidadLineas()).thenReturn(lineas);
+        return totales;
+    }
+
+    private DetalleComanda linea(int id, int cantidad, String precio) {
+        DetalleComanda linea = new DetalleComanda();
+        linea.setIdDetalleComanda(id);
+        linea.setComanda(comanda);
+        linea.setProducto(producto);
+        linea.setCantidad(cantidad);
+        linea.setPrecioUnitario(new BigDecimal(precio));
+        linea.setSubtotal(new BigDecimal(precio).multiply(BigDecimal.valueOf(cantidad)).setScale(2));
+        return linea;
+    }
+
+    @Test
+    @DisplayName("Crear un detalle suma su subtotal y una línea a la comanda, y la entidad cargada queda al día")
+    void save_DeberiaAjustarTotalesPorDelta() {
+        // Given
+        DetalleComandaDTO dto = DetalleComandaDTO.builder().comandaId(1).productoId(1).cantidad(2).build();
+        when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
+        when(productoRepository.findById(1)).thenReturn(Optional.of(producto));
+        when(stockLedger.disponible(producto)).thenReturn(50);
+        when(detalleComandaMapper.toEntity(dto)).thenReturn(new DetalleComanda());
+        when(stockLedger.descontar(1, 2)).thenReturn(true);
+        when(detalleComandaRepository.save(any(DetalleComanda.class))).thenAnswer(i -> i.getArgument(0));
+        ComandaRepository.TotalesComanda enBase = totales("31.00", 3);
+        when(comandaRepository.findTotalesByIdComanda(1)).thenReturn(Optional.of(enBase));
+
+        // When
+        detalleComandaService.save(dto);
+
+        // Then
+        verify(comandaRepository).ajustarTotales(1, new BigDecimal("11.00"), 1);
+        assertThat(comanda.getTotal()).isEqualByComparingTo("31.00");
+        assertThat(comanda.getCantidadLineas()).isEqualTo(3);
+        verify(eventPublisher).publishEvent(new ComandaCambiadaEvent(1));
+    }
+
+    @Test
+    @DisplayName("Eliminar un detalle resta su subtotal y una línea, y devuelve el stock")
+    void deleteById_DeberiaRestarTotalesPorDelta() {
+        // Given
+        DetalleComanda detalle = linea(7, 2, "5.50");
+        when(detalleComandaRepository.findById(7)).thenReturn(Optional.of(detalle));
+        ComandaRepository.TotalesComanda enBase = totales("9.00", 1);
+        when(comandaRepository.findTotalesByIdComanda(1)).thenReturn(Optional.of(enBase));
+
+        // When
+        detalleComandaService.deleteById(7);
+
+        // Then
+        verify(stockLedger).reponer(1, 2);
+        verify(comandaRepository).ajustarTotales(1, new BigDecimal("-11.00"), -1);
+        assertThat(comanda.getTotal()).isEqualByComparingTo("9.00");
+        assertThat(comanda.getCantidadLineas()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ajustar un producto que no estaba en la comanda crea la línea y suma una línea al total")
+    void ajustarLinea_LineaNueva_DeberiaCrearla() {
+        // Given
+        when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
+        when(productoRepository.findById(1)).thenReturn(Optional.of(producto));
+        when(detalleComandaRepository.findCantidad(1, 1)).thenReturn(Optional.empty());
+        when(stockLedger.descontar(1, 2)).thenReturn(true);
+        DetalleComanda linea = linea(9, 2, "5.50");
+        when(detalleComandaRepository.findByComandaIdComandaAndProductoIdProducto(1, 1)).thenReturn(Optional.of(linea));
+        ComandaRepository.TotalesComanda enBase = totales("31.00", 3);
+        when(comandaRepository.findTotalesByIdComanda(1)).thenReturn(Optional.of(enBase));
+        DetalleComandaDTO dto = DetalleComandaDTO.builder().comandaId(1).productoId(1).cantidad(2).build();
+        when(detalleComandaMapper.toDto(linea)).thenReturn(dto);
+
+        // When
+        DetalleComandaDTO resultado =
+                detalleComandaService.ajustarLinea(1, 1, AjusteLineaDTO.builder().delta(2).build());
+
+        // Then
+        assertThat(resultado).isSameAs(dto);
+        verify(detalleComandaRepository).sumarCantidad(1, 1, new BigDecimal("5.50"), 2);
+        verify(comandaRepository).ajustarTotales(1, new BigDecimal("11.00"), 1);
+        verify(ventasDiariasService).registrar(comanda, 1, 2, new BigDecimal("11.00"));
+        verify(eventPublisher).publishEvent(new ComandaCambiadaEvent(1));
+    }
+
+    @Test
+    @DisplayName("Sumar unidades a una línea existente no cambia el número de líneas")
+    void ajustarLinea_LineaExistente_NoDeberiaSumarLineas() {
+        // Given
+        when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
+        when(productoRepository.findById(1)).thenReturn(Optional.of(producto));
+        when(detalleComandaRepository.findCantidad(1, 1)).thenReturn(Optional.of(3));
+        when(stockLedger.descontar(1, 2)).thenReturn(true);
+        DetalleComanda linea = linea(9, 5, "5.50");
+        when(detalleComandaRepository.findByComandaIdComandaAndProductoIdProducto(1, 1)).thenReturn(Optional.of(linea));
+        ComandaRepository.TotalesComanda enBase = totales("31.00", 2);
+        when(comandaRepository.findTotalesByIdComanda(1)).thenReturn(Optional.of(enBase));
+
+        // When
+        detalleComandaService.ajustarLinea(1, 1, AjusteLineaDTO.builder().delta(2).build());
+
+        // Then
+        verify(comandaRepository).ajustarTotales(1, new BigDecimal("11.00"), 0);
+        verify(detalleComandaRepository, never()).delete(any(DetalleComanda.class));
+    }
+
+    @Test
+    @DisplayName("Una línea que queda en cero se elimina, resta una línea y devuelve null (204)")
+    void ajustarLinea_QuedaEnCero_DeberiaEliminarla() {
+        // Given
+        when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
+        when(productoRepository.findById(1)).thenReturn(Optional.of(producto));
+        when(detalleComandaRepository.findCantidad(1, 1)).thenReturn(Optional.of(2));
+        when(detalleComandaRepository.restarCantidad(1, 1, 2)).thenReturn(1);
+        DetalleComanda linea = linea(9, 0, "5.50");
+        when(detalleComandaRepository.findByComandaIdComandaAndProductoIdProducto(1, 1)).thenReturn(Optional.of(linea));
+        ComandaRepository.TotalesComanda enBase = totales("9.00", 1);
+        when(comandaRepository.findTotalesByIdComanda(1)).thenReturn(Optional.of(enBase));
+
+        // When
+        DetalleComandaDTO resultado =
+                detalleComandaService.ajustarLinea(1, 1, AjusteLineaDTO.builder().delta(-2).build());
+
+        // Then
+        assertThat(resultado).isNull();
+        verify(stockLedger).reponer(1, 2);
+        verify(detalleComandaRepository).delete(linea);
+        verify(comandaRepository).ajustarTotales(1, new BigDecimal("-11.00"), -1);
+        verify(detalleComandaMapper, never()).toDto(any(DetalleComanda.class));
+    }
+
+    @Test
+    @DisplayName("Superar las 100 unidades se rechaza antes de mover stock o escribir la línea")
+    void ajustarLinea_SuperaMaximo_DeberiaRechazarSinEscribir() {
+        // Given
+        when(comandaRepository.findById(1)).thenReturn(Optional.of(comanda));
+        when(productoRepository.findById(1)).thenReturn(Optional.of(producto));
+        when(detalleComandaRepository.findCantidad(1, 1)).thenReturn(Optional.of(99));
+
+        // When & Then
+        assertThatThrownBy(() -> detalleComandaService.ajustarLinea(1, 1, AjusteLineaDTO.builder().delta(2).build()))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(stockLedger, ventasDiariasService, eventPublisher);
+        verify(detalleComandaRepository, never()).sumarCantidad(any(), any(), any(), any());
+        verify(comandaRepository, never()).ajustarTotales(any(), any(), anyInt());
+    }
+}
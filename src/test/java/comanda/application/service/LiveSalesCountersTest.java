@@ -0,0 +1,136 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.ComandaBoard;
+import com.example.demo.application.service.LiveSalesCounters;
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.entity.VentaDiariaId;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaBatchRepository.Movimiento;
+import com.example.demo.shared.constants.EstadoConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para LiveSalesCounters")
+class LiveSalesCountersTest {
+
+    @Mock
+    private ComandaRepository comandaRepository;
+
+    @Mock
+    private DetalleComandaRepository detalleComandaRepository;
+
+    @Mock
+    private ComandaBoard comandaBoard;
+
+    @InjectMocks
+    private LiveSalesCounters liveSalesCounters;
+
+    private LocalDate hoy;
+
+    @BeforeEach
+    void setUp() {
+        hoy = LocalDate.now();
+
+        DetalleComandaRepository.VentaPorProductoYMesero venta =
+                mock(DetalleComandaRepository.VentaPorProductoYMesero.class);
+        when(venta.getIdProducto()).thenReturn(10);
+        when(venta.getIdMesero()).thenReturn("M1");
+        when(venta.getCantidad()).thenReturn(3L);
+        when(venta.getImporte()).thenReturn(new BigDecimal("30.00"));
+        when(detalleComandaRepository.resumirPorProductoYMeseroEntre(any(), any())).thenReturn(List.of(venta));
+
+        ComandaRepository.EstadoDeComanda comanda = mock(ComandaRepository.EstadoDeComanda.class);
+        when(comanda.getIdComanda()).thenReturn(1);
+        when(comanda.getIdEstado()).thenReturn(EstadoConstants.COMANDA_PENDIENTE_ID);
+        when(comandaRepository.findEstadosEntre(any(), any())).thenReturn(List.of(comanda));
+
+        liveSalesCounters.reconstruir();
+    }
+
+    @Test
+    @DisplayName("La reconstrucción carga ventas y estados de la jornada desde la base de datos")
+    void reconstruir_DeberiaCargarLaJornada() {
+        // When
+        LiveSalesCounters.Resumen resumen = liveSalesCounters.resumen();
+
+        // Then
+        assertThat(resumen.jornada()).isEqualTo(hoy);
+        assertThat(resumen.unidades()).isEqualTo(3);
+        assertThat(resumen.importe()).isEqualByComparingTo("30.00");
+        assertThat(resumen.comandas()).isEqualTo(1);
+        assertThat(resumen.comandasPorEstado()).containsEntry(EstadoConstants.COMANDA_PENDIENTE_ID, 1L);
+        assertThat(resumen.unidadesPorProducto()).containsEntry(10, 3L);
+        assertThat(resumen.importePorMesero()).containsEntry("M1", new BigDecimal("30.00"));
+    }
+
+    @Test
+    @DisplayName("Los movimientos de la jornada se suman y los de otra jornada se descartan")
+    void registrarVentas_DeberiaSumarSoloLaJornadaActual() {
+        // When
+        liveSalesCounters.registrarVentas(Map.of(
+                new VentaDiariaId(hoy, 10, "M2"), new Movimiento(2, new BigDecimal("20.00")),
+                new VentaDiariaId(hoy, 11, "M1"), new Movimiento(-1, new BigDecimal("-4.50")),
+                new VentaDiariaId(hoy.minusDays(1), 10, "M1"), new Movimiento(5, new BigDecimal("50.00"))));
+
+        // Then
+        LiveSalesCounters.Resumen resumen = liveSalesCounters.resumen();
+        assertThat(resumen.unidades()).isEqualTo(4);
+        assertThat(resumen.importe()).isEqualByComparingTo("45.50");
+        assertThat(resumen.unidadesPorProducto()).containsEntry(10, 5L).containsEntry(11, -1L);
+        assertThat(resumen.importePorMesero())
+                .containsEntry("M1", new BigDecimal("25.50"))
+                .containsEntry("M2", new BigDecimal("20.00"));
+    }
+
+    @Test
+    @DisplayName("Los cambios de estado mueven la comanda entre contadores y la eliminación la retira")
+    void onComandaCambiada_DeberiaActualizarLosEstados() {
+        // Given
+        ComandaDTO nueva = new ComandaDTO();
+        nueva.setIdComanda(2);
+        nueva.setFecha(LocalDateTime.now());
+        nueva.setEstadoId(2);
+        when(comandaBoard.get(2)).thenReturn(Optional.of(nueva));
+        when(comandaBoard.get(1)).thenReturn(Optional.empty());
+        when(comandaBoard.estaCargado()).thenReturn(true);
+
+        // When
+        liveSalesCounters.onComandaCambiada(new ComandaCambiadaEvent(2, ComandaCambiadaEvent.Tipo.CREADA));
+        // La comanda 1 sale del tablero: quedó pagada
+        liveSalesCounters.onComandaCambiada(new ComandaCambiadaEvent(1));
+
+        // Then
+        LiveSalesCounters.Resumen resumen = liveSalesCounters.resumen();
+        assertThat(resumen.comandas()).isEqualTo(2);
+        assertThat(resumen.comandasPorEstado())
+                .containsEntry(2, 1L)
+                .containsEntry(EstadoConstants.COMANDA_PAGADA_ID, 1L)
+                .doesNotContainKey(EstadoConstants.COMANDA_PENDIENTE_ID);
+
+        // When
+        liveSalesCounters.onComandaCambiada(new ComandaCambiadaEvent(2, ComandaCambiadaEvent.Tipo.ELIMINADA));
+
+        // Then
+        assertThat(liveSalesCounters.resumen().comandasPorEstado())
+                .containsOnlyKeys(EstadoConstants.COMANDA_PAGADA_ID);
+    }
+}
@@ -0,0 +1,134 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.RankingVentasService;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaRepository;
+import com.example.demo.infrastructure.web.dto.ItemRankingDTO;
+import com.example.demo.infrastructure.web.dto.RankingVentasDTO;
+import com.example.demo.shared.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para RankingVentasService")
+class RankingVentasServiceTest {
+
+    @Mock
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private RankingVentasService rankingVentasService;
+
+    private final LocalDate lunes = LocalDate.of(2024, 5, 6);
+    private final LocalDate domingo = LocalDate.of(2024, 5, 12);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rankingVentasService, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(rankingVentasService, "maxEntradas", 16);
+    }
+
+    private static VentaDiariaRepository.VentaPorProducto venta(int id, int categoria, boolean activo,
+            long cantidad, String importe) {
+        VentaDiariaRepository.VentaPorProducto venta = mock(VentaDiariaRepository.VentaPorProducto.class);
+        when(venta.getIdProducto()).thenReturn(id);
+        when(venta.getNombre()).thenReturn("Producto " + id);
+        when(venta.getIdCategoria()).thenReturn(categoria);
+        when(venta.getCategoria()).thenReturn("Categoria " + categoria);
+        when(venta.getActivo()).thenReturn(activo);
+        when(venta.getCantidad()).thenReturn(cantidad);
+        when(venta.getImporte()).thenReturn(new BigDecimal(importe));
+        return venta;
+    }
+
+    @Test
+    @DisplayName("Selecciona los K más y menos vendidos y agrega por categoría")
+    void ranking_DeberiaSeleccionarTopKYAgregarCategorias() {
+        // Given
+        Stream<VentaDiariaRepository.VentaPorProducto> ventas = Stream.of(
+                venta(1, 10, true, 50, "500.00"),
+                venta(2, 10, true, 5, "75.00"),
+                venta(3, 20, true, 30, "90.00"),
+                venta(4, 20, false, 0, "0"),
+                venta(5, 20, true, 0, "0"));
+        when(ventaDiariaRepository.streamVentasPorProductoEntre(lunes, domingo, null)).thenReturn(ventas);
+
+        // When
+        RankingVentasDTO ranking = rankingVentasService.ranking(lunes, domingo, 2, null, null);
+
+        // Then
+        assertThat(ranking.getMasVendidos()).extracting(ItemRankingDTO::getId).containsExactly(1, 3);
+        // El producto 4 está dado de baja: no entra entre los que menos venden
+        assertThat(ranking.getMenosVendidos()).extracting(ItemRankingDTO::getId).containsExactly(5, 2);
+        assertThat(ranking.getCategorias()).extracting(ItemRankingDTO::getId).containsExactly(10, 20);
+        assertThat(ranking.getCategorias().get(0).getCantidad()).isEqualTo(55);
+        assertThat(ranking.getCategorias().get(1).getImporte()).isEqualByComparingTo("90.00");
+        assertThat(ranking.getCriterio()).isEqualTo("cantidad");
+    }
+
+    @Test
+    @DisplayName("El criterio por importe ordena por ventas en lugar de unidades")
+    void ranking_PorImporte_DeberiaOrdenarPorVentas() {
+        // Given
+        Stream<VentaDiariaRepository.VentaPorProducto> ventas = Stream.of(
+                venta(3, 20, true, 30, "90.00"),
+                venta(6, 20, true, 4, "120.00"));
+        when(ventaDiariaRepository.streamVentasPorProductoEntre(lunes, domingo, 20)).thenReturn(ventas);
+
+        // When
+        RankingVentasDTO ranking = rankingVentasService.ranking(lunes, domingo, 1, 20, "importe");
+
+        // Then
+        assertThat(ranking.getMasVendidos()).extracting(ItemRankingDTO::getId).containsExactly(6);
+        assertThat(ranking.getMenosVendidos()).extracting(ItemRankingDTO::getId).containsExactly(3);
+    }
+
+    @Test
+    @DisplayName("Una petición repetida dentro del TTL se sirve de la caché")
+    void ranking_Repetido_DeberiaUsarCache() {
+        // Given
+        VentaDiariaRepository.VentaPorProducto venta = venta(1, 10, true, 50, "500.00");
+        when(ventaDiariaRepository.streamVentasPorProductoEntre(any(), any(), isNull()))
+                .thenAnswer(invocation -> Stream.of(venta));
+
+        // When
+        RankingVentasDTO primero = rankingVentasService.ranking(lunes, domingo, 20, null, null);
+        RankingVentasDTO segundo = rankingVentasService.ranking(lunes, domingo, 20, null, null);
+        rankingVentasService.ranking(lunes, domingo, 10, null, null);
+
+        // Then
+        assertThat(segundo).isSameAs(primero);
+        verify(ventaDiariaRepository, times(2)).streamVentasPorProductoEntre(any(), any(), isNull());
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+
+    @Test
+    @DisplayName("Un K fuera de rango o un rango invertido lanzan BadRequestException")
+    void ranking_ParametrosInvalidos_DeberiaLanzarExcepcion() {
+        assertThatThrownBy(() -> rankingVentasService.ranking(lunes, domingo, 0, null, null))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> rankingVentasService.ranking(domingo, lunes, 20, null, null))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(ventaDiariaRepository, transactionManager);
+    }
+}
@@ -0,0 +1,152 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.SalesTimeSeries;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaBatchRepository.Movimiento;
+import com.example.demo.shared.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para SalesTimeSeries")
+class SalesTimeSeriesTest {
+
+    @Mock
+    private ComandaRepository comandaRepository;
+
+    @Mock
+    private DetalleComandaRepository detalleComandaRepository;
+
+    @InjectMocks
+    private SalesTimeSeries salesTimeSeries;
+
+    private LocalDateTime ayer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(salesTimeSeries, "historicoDias", 30);
+        ayer = LocalDate.now().minusDays(1).atStartOfDay();
+    }
+
+    private void cargarAyer() {
+        // Tramos 4 y 5 (01:00-01:30) y 40 (10:00-10:15) del día anterior
+        DetalleComandaRepository.VentaPorTramo primero = venta(4L, 2L, "10.00");
+        DetalleComandaRepository.VentaPorTramo segundo = venta(5L, 1L, "5.50");
+        DetalleComandaRepository.VentaPorTramo tercero = venta(40L, 3L, "30.00");
+        when(detalleComandaRepository.resumirPorTramoEntre(any(), any()))
+                .thenReturn(List.of(primero, segundo, tercero));
+
+        ComandaRepository.ComandasPorTramo comandas = mock(ComandaRepository.ComandasPorTramo.class);
+        when(comandas.getTramo()).thenReturn(4L);
+        when(comandas.getCantidad()).thenReturn(2L);
+        when(comandaRepository.contarPorTramoEntre(any(), any())).thenReturn(List.of(comandas));
+
+        salesTimeSeries.recargar(ayer.toLocalDate(), ayer.toLocalDate().plusDays(1));
+    }
+
+    private static DetalleComandaRepository.VentaPorTramo venta(Long tramo, Long cantidad, String importe) {
+        DetalleComandaRepository.VentaPorTramo venta = mock(DetalleComandaRepository.VentaPorTramo.class);
+        when(venta.getTramo()).thenReturn(tramo);
+        when(venta.getCantidad()).thenReturn(cantidad);
+        when(venta.getImporte()).thenReturn(new BigDecimal(importe));
+        return venta;
+    }
+
+    @Test
+    @DisplayName("Los tramos cargados se agregan por hora y por día")
+    void serie_DeberiaAgregarTramosPorGranularidad() {
+        // Given
+        cargarAyer();
+
+        // When
+        SalesTimeSeries.Serie porHora = salesTimeSeries.serie(
+                SalesTimeSeries.Granularidad.HORA, ayer, ayer.plusHours(12));
+        SalesTimeSeries.Serie porDia = salesTimeSeries.serie(
+                SalesTimeSeries.Granularidad.de("1d"), ayer.plusHours(3), ayer.plusDays(1));
+
+        // Then
+        assertThat(porHora.centimos()).hasSize(12);
+        assertThat(porHora.centimos()[1]).isEqualTo(1550);
+        assertThat(porHora.unidades()[1]).isEqualTo(3);
+        assertThat(porHora.comandas()[1]).isEqualTo(2);
+        assertThat(porHora.centimos()[10]).isEqualTo(3000);
+        assertThat(porDia.desde()).isEqualTo(ayer);
+        assertThat(porDia.centimos()).containsExactly(4550);
+        assertThat(porDia.unidades()).containsExactly(6);
+    }
+
+    @Test
+    @DisplayName("Los deltas en tiempo real amplían los arrays y se suman a su tramo")
+    void registrar_DeberiaSumarEnTiempoReal() {
+        // Given
+        cargarAyer();
+        LocalDateTime ahora = SalesTimeSeries.tramo(LocalDateTime.now()).plusMinutes(1);
+
+        // When
+        salesTimeSeries.registrarVentas(Map.of(
+                SalesTimeSeries.tramo(ahora), new Movimiento(4, new BigDecimal("12.25"))));
+        salesTimeSeries.registrarComanda(ahora, 1);
+
+        // Then
+        SalesTimeSeries.Serie serie = salesTimeSeries.serie(
+                SalesTimeSeries.Granularidad.CUARTO_HORA, ahora, ahora.plusMinutes(10));
+        assertThat(serie.desde()).isEqualTo(SalesTimeSeries.tramo(ahora));
+        assertThat(serie.centimos()).containsExactly(1225);
+        assertThat(serie.unidades()).containsExactly(4);
+        assertThat(serie.comandas()).containsExactly(1);
+    }
+
+    @Test
+    @DisplayName("Los deltas que llegan durante una recarga no se pierden al copiar los tramos recalculados")
+    void recargar_DeltasDuranteLaConsulta_DeberianConservarse() {
+        // Given
+        cargarAyer();
+        LocalDateTime tramo = ayer.plusHours(1);
+        DetalleComandaRepository.VentaPorTramo venta = venta(4L, 2L, "10.00");
+        // La consulta ya leyó la base de datos cuando confirma una venta nueva en el mismo tramo
+        when(detalleComandaRepository.resumirPorTramoEntre(any(), any())).thenAnswer(invocacion -> {
+            salesTimeSeries.registrarVentas(Map.of(tramo, new Movimiento(1, new BigDecimal("3.00"))));
+            salesTimeSeries.registrarComanda(tramo.plusMinutes(5), 1);
+            return List.of(venta);
+        });
+
+        // When
+        salesTimeSeries.recargar(ayer.toLocalDate(), ayer.toLocalDate().plusDays(1));
+
+        // Then
+        SalesTimeSeries.Serie serie = salesTimeSeries.serie(
+                SalesTimeSeries.Granularidad.CUARTO_HORA, tramo, tramo.plusMinutes(15));
+        assertThat(serie.centimos()).containsExactly(1300);
+        assertThat(serie.unidades()).containsExactly(3);
+        assertThat(serie.comandas()).containsExactly(3);
+    }
+
+    @Test
+    @DisplayName("Un rango con demasiados puntos o una granularidad desconocida se rechazan")
+    void serie_DeberiaRechazarPeticionesInvalidas() {
+        assertThatThrownBy(() -> salesTimeSeries.serie(
+                SalesTimeSeries.Granularidad.CUARTO_HORA, ayer.minusYears(2), ayer))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> SalesTimeSeries.Granularidad.de("semana"))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(comandaRepository, detalleComandaRepository);
+    }
+}
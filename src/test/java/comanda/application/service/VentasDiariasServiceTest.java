@@ -0,0 +1,135 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.LiveSalesCounters;
+import com.example.demo.application.service.SalesTimeSeries;
+import com.example.demo.application.service.VentasDiariasService;
+import com.example.demo.domain.entity.Comanda;
+import com.example.demo.domain.entity.DetalleComanda;
+import com.example.demo.domain.entity.Producto;
+import com.example.demo.domain.entity.Usuario;
+import com.example.demo.domain.entity.VentaDiariaId;
+import com.example.demo.infrastructure.persistence.repository.DetalleComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaBatchRepository.Movimiento;
+import com.example.demo.infrastructure.persistence.repository.VentaDiariaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para VentasDiariasService")
+class VentasDiariasServiceTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2024, 5, 6, 13, 20);
+    private static final LocalDate DIA = FECHA.toLocalDate();
+
+    @Mock
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Mock
+    private DetalleComandaRepository detalleComandaRepository;
+
+    @Mock
+    private LiveSalesCounters liveSalesCounters;
+
+    @Mock
+    private SalesTimeSeries salesTimeSeries;
+
+    @InjectMocks
+    private VentasDiariasService ventasDiariasService;
+
+    private Comanda comanda;
+
+    @BeforeEach
+    void setUp() {
+        comanda = new Comanda();
+        comanda.setIdComanda(1);
+        comanda.setFecha(FECHA);
+        comanda.setMesero(mesero("U001"));
+        when(liveSalesCounters.jornadaDe(FECHA)).thenReturn(DIA);
+    }
+
+    private static Usuario mesero(String id) {
+        Usuario mesero = new Usuario();
+        mesero.setIdUsuario(id);
+        return mesero;
+    }
+
+    /**
+     * Ejecuta el cuerpo con sincronización de transacción activa y devuelve
+     * las sincronizaciones registradas, para simular el commit a mano.
+     */
+    private static List<TransactionSynchronization> enTransaccion(Runnable cuerpo) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cuerpo.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Los deltas de una transacción se agrupan en un único batch antes del commit")
+    void registrar_EnTransaccion_DeberiaAcumularYEscribirUnaVez() {
+        // Given
+        List<TransactionSynchronization> sincronizaciones = enTransaccion(() -> {
+            ventasDiariasService.registrar(comanda, 1, 2, new BigDecimal("11.00"));
+            ventasDiariasService.registrar(comanda, 1, 1, new BigDecimal("5.50"));
+            ventasDiariasService.registrar(comanda, 2, 1, new BigDecimal("8.00"));
+        });
+        verifyNoInteractions(ventaDiariaRepository, salesTimeSeries);
+
+        // When
+        sincronizaciones.forEach(s -> s.beforeCommit(false));
+        verify(liveSalesCounters, never()).registrarVentas(any());
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        Map<VentaDiariaId, Movimiento> esperados = Map.of(
+                new VentaDiariaId(DIA, 1, "U001"), new Movimiento(3, new BigDecimal("16.50")),
+                new VentaDiariaId(DIA, 2, "U001"), new Movimiento(1, new BigDecimal("8.00")));
+        verify(ventaDiariaRepository, times(1)).acumularEnLote(esperados);
+        verify(liveSalesCounters, times(1)).registrarVentas(esperados);
+        verify(salesTimeSeries, times(1)).registrarVentas(
+                Map.of(SalesTimeSeries.tramo(FECHA), new Movimiento(4, new BigDecimal("24.50"))));
+    }
+
+    @Test
+    @DisplayName("Reasignar la comanda pasa sus ventas del mesero anterior al nuevo")
+    void cambiarMesero_DeberiaMoverVentasEntreMeseros() {
+        // Given
+        Producto producto = new Producto();
+        producto.setIdProducto(1);
+        DetalleComanda detalle = new DetalleComanda();
+        detalle.setComanda(comanda);
+        detalle.setProducto(producto);
+        detalle.setCantidad(2);
+        detalle.setSubtotal(new BigDecimal("11.00"));
+        comanda.setMesero(mesero("U002"));
+
+        // When
+        List<TransactionSynchronization> sincronizaciones =
+                enTransaccion(() -> ventasDiariasService.cambiarMesero(comanda, "U001", List.of(detalle)));
+        sincronizaciones.forEach(s -> s.beforeCommit(false));
+
+        // Then
+        verify(ventaDiariaRepository).acumularEnLote(Map.of(
+                new VentaDiariaId(DIA, 1, "U001"), new Movimiento(-2, new BigDecimal("-11.00")),
+                new VentaDiariaId(DIA, 1, "U002"), new Movimiento(2, new BigDecimal("11.00"))));
+    }
+}
@@ -0,0 +1,94 @@
+package comanda.application.service;
+
+import com.example.demo.application.service.VerificacionTotalesService;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para VerificacionTotalesService")
+class VerificacionTotalesServiceTest {
+
+    @Mock
+    private ComandaRepository comandaRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private VerificacionTotalesService verificacionTotalesService;
+
+    @Test
+    @DisplayName("Las comandas con deriva se recalculan desde sus detalles")
+    void verificarTotales_ConDeriva_DeberiaRecalcular() {
+        // Given
+        when(comandaRepository.findMaxIdComanda()).thenReturn(Optional.of(10));
+        when(comandaRepository.findIdsConTotalesDesincronizados(1, 10)).thenReturn(List.of(3, 8));
+        when(comandaRepository.recalcularTotales(List.of(3, 8))).thenReturn(2);
+
+        // When
+        verificacionTotalesService.verificarTotales();
+
+        // Then
+        verify(comandaRepository).recalcularTotales(List.of(3, 8));
+    }
+
+    @Test
+    @DisplayName("Sin deriva no se escribe nada")
+    void verificarTotales_SinDeriva_NoDeberiaEscribir() {
+        // Given
+        when(comandaRepository.findMaxIdComanda()).thenReturn(Optional.of(10));
+        when(comandaRepository.findIdsConTotalesDesincronizados(1, 10)).thenReturn(List.of());
+
+        // When
+        verificacionTotalesService.verificarTotales();
+
+        // Then
+        verify(comandaRepository, never()).recalcularTotales(any());
+    }
+
+    @Test
+    @DisplayName("La verificación recorre la tabla por tramos de IDs, cada uno en su transacción")
+    void verificarTotales_DeberiaIrPorTramos() {
+        // Given
+        ReflectionTestUtils.setField(verificacionTotalesService, "lote", 4);
+        when(comandaRepository.findMaxIdComanda()).thenReturn(Optional.of(10));
+        when(comandaRepository.findIdsConTotalesDesincronizados(anyInt(), anyInt())).thenReturn(List.of());
+        when(comandaRepository.findIdsConTotalesDesincronizados(5, 8)).thenReturn(List.of(6));
+        when(comandaRepository.recalcularTotales(List.of(6))).thenReturn(1);
+
+        // When
+        verificacionTotalesService.verificarTotales();
+
+        // Then
+        verify(comandaRepository).findIdsConTotalesDesincronizados(1, 4);
+        verify(comandaRepository).findIdsConTotalesDesincronizados(5, 8);
+        verify(comandaRepository).findIdsConTotalesDesincronizados(9, 10);
+        verify(comandaRepository).recalcularTotales(List.of(6));
+        verify(transactionManager, times(3)).getTransaction(any());
+    }
+
+    @Test
+    @DisplayName("Al arrancar no se verifica nada salvo que el relleno esté activado")
+    void rellenarAlArrancar_Desactivado_NoDeberiaConsultar() {
+        // When
+        verificacionTotalesService.rellenarAlArrancar();
+
+        // Then
+        verifyNoInteractions(comandaRepository, transactionManager);
+    }
+}
@@ -0,0 +1,82 @@
+package comanda.infrastructure.web;
+
+import com.example.demo.application.service.ComandaNotificationService;
+import com.example.demo.application.service.ComandaService;
+import com.example.demo.application.service.DetalleComandaService;
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.infrastructure.web.controller.ComandaController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para la exportación NDJSON de comandas")
+class ComandaExportTest {
+
+    @Mock
+    private ComandaService comandaService;
+
+    @Mock
+    private DetalleComandaService detalleComandaService;
+
+    @Mock
+    private ComandaNotificationService comandaNotificationService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private static ComandaDTO comanda(int id, LocalDateTime fecha) {
+        ComandaDTO dto = new ComandaDTO();
+        dto.setIdComanda(id);
+        dto.setFecha(fecha);
+        return dto;
+    }
+
+    @Test
+    @DisplayName("Cada comanda ocupa exactamente una línea, sin espacios entre valores")
+    @SuppressWarnings("unchecked")
+    void exportByFecha_DeberiaEscribirUnaComandaPorLinea() throws Exception {
+        // Given
+        LocalDateTime inicio = LocalDateTime.of(2024, 5, 6, 0, 0);
+        LocalDateTime fin = inicio.plusDays(1);
+        doAnswer(invocation -> {
+            Consumer<ComandaDTO> consumidor = invocation.getArgument(2);
+            consumidor.accept(comanda(1, inicio.plusHours(12)));
+            consumidor.accept(comanda(2, inicio.plusHours(13)));
+            consumidor.accept(comanda(3, inicio.plusHours(14)));
+            return null;
+        }).when(comandaService).exportarPorFecha(eq(inicio), eq(fin), any(Consumer.class));
+        ComandaController controller = new ComandaController(
+                comandaService, detalleComandaService, comandaNotificationService, objectMapper);
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = controller.exportByFecha(inicio, fin);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        response.getBody().writeTo(salida);
+
+        // Then
+        String ndjson = salida.toString(StandardCharsets.UTF_8);
+        assertThat(ndjson).endsWith("\n");
+        String[] lineas = ndjson.split("\n");
+        assertThat(lineas).hasSize(3);
+        for (int i = 0; i < lineas.length; i++) {
+            assertThat(lineas[i]).startsWith("{").endsWith("}");
+            assertThat(objectMapper.readTree(lineas[i]).get("idComanda").asInt()).isEqualTo(i + 1);
+        }
+        assertThat(response.getHeaders().getContentType()).hasToString("application/x-ndjson");
+    }
+}
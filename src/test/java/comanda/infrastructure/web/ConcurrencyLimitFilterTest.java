@@ -0,0 +1,164 @@
+package comanda.infrastructure.web;
+
+import com.example.demo.infrastructure.web.filter.ConcurrencyLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests para ConcurrencyLimitFilter")
+class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimitFilter filter;
+    private AtomicInteger ejecuciones;
+
+    @BeforeEach
+    void setUp() {
+        // Con el módulo de fechas, como el ObjectMapper de Spring: la respuesta 503 lleva un LocalDateTime
+        filter = new ConcurrencyLimitFilter(new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(filter, "maxPeticiones", 1);
+        ReflectionTestUtils.setField(filter, "esperaMs", 50L);
+        filter.iniciar();
+        ejecuciones = new AtomicInteger();
+    }
+
+    private static MockHttpServletRequest peticion(String ruta) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", ruta);
+        request.setRequestURI(ruta);
+        return request;
+    }
+
+    private FilterChain controlador(CountDownLatch enCurso, CountDownLatch liberar) {
+        return (req, res) -> {
+            ejecuciones.incrementAndGet();
+            if (enCurso != null) {
+                enCurso.countDown();
+                try {
+                    liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private MockHttpServletResponse ejecutar(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Sin turno libre dentro de la espera la petición recibe 503 y el turno se devuelve al terminar")
+    void sinTurno_DeberiaResponder503() throws Exception {
+        // Given
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<MockHttpServletResponse> primera =
+                    executor.submit(() -> ejecutar(peticion("/api/comandas"), controlador(enCurso, liberar)));
+            assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            MockHttpServletResponse rechazada = ejecutar(peticion("/api/mesas"), controlador(null, null));
+            liberar.countDown();
+            primera.get(5, TimeUnit.SECONDS);
+            MockHttpServletResponse siguiente = ejecutar(peticion("/api/mesas"), controlador(null, null));
+
+            // Then
+            assertThat(rechazada.getStatus()).isEqualTo(503);
+            assertThat(rechazada.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+            assertThat(siguiente.getStatus()).isEqualTo(200);
+            assertThat(ejecuciones.get()).isEqualTo(2);
+        } finally {
+            liberar.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Una petición asíncrona conserva su turno hasta que termina la respuesta")
+    void peticionAsincrona_DeberiaConservarElTurnoHastaCompletar() throws Exception {
+        // Given
+        MockHttpServletRequest exportacion = peticion("/api/comandas/export");
+        exportacion.setAsyncSupported(true);
+        FilterChain asincrono = (req, res) -> {
+            ejecuciones.incrementAndGet();
+            req.startAsync();
+        };
+
+        // When
+        MockHttpServletResponse primera = ejecutar(exportacion, asincrono);
+        MockHttpServletResponse mientrasExporta = ejecutar(peticion("/api/mesas"), controlador(null, null));
+        ((MockAsyncContext) exportacion.getAsyncContext()).complete();
+        MockHttpServletResponse alTerminar = ejecutar(peticion("/api/mesas"), controlador(null, null));
+
+        // Then
+        assertThat(primera.getStatus()).isEqualTo(200);
+        assertThat(mientrasExporta.getStatus()).isEqualTo(503);
+        assertThat(alTerminar.getStatus()).isEqualTo(200);
+        assertThat(ejecuciones.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Fuera de /api o con el límite desactivado no se pide turno")
+    void fueraDeLaApi_NoDeberiaLimitar() throws Exception {
+        // Given
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> ejecutar(peticion("/api/comandas"), controlador(enCurso, liberar)));
+            assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            MockHttpServletResponse websocket = ejecutar(peticion("/ws/info"), controlador(null, null));
+            ConcurrencyLimitFilter desactivado = new ConcurrencyLimitFilter(new ObjectMapper());
+            ReflectionTestUtils.setField(desactivado, "maxPeticiones", 0);
+            desactivado.iniciar();
+            MockHttpServletResponse sinLimite = new MockHttpServletResponse();
+            desactivado.doFilter(peticion("/api/mesas"), sinLimite, controlador(null, null));
+
+            // Then
+            assertThat(websocket.getStatus()).isEqualTo(200);
+            assertThat(sinLimite.getStatus()).isEqualTo(200);
+        } finally {
+            liberar.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Sin límite configurado solo se limita la concurrencia en modo de hilos virtuales")
+    void sinConfigurar_DeberiaLimitarSoloConHilosVirtuales() {
+        // Given
+        ConcurrencyLimitFilter plataforma = new ConcurrencyLimitFilter(new ObjectMapper());
+        ConcurrencyLimitFilter virtual = new ConcurrencyLimitFilter(new ObjectMapper());
+        ReflectionTestUtils.setField(virtual, "hilosVirtuales", true);
+
+        // When
+        plataforma.iniciar();
+        virtual.iniciar();
+
+        // Then
+        assertThat(ReflectionTestUtils.getField(plataforma, "turnos")).isNull();
+        assertThat(ReflectionTestUtils.getField(virtual, "turnos")).isNotNull();
+        assertThat(ReflectionTestUtils.getField(virtual, "maxPeticiones")).isEqualTo(40);
+    }
+}
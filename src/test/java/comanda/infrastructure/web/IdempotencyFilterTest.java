@@ -0,0 +1,195 @@
+package comanda.infrastructure.web;
+
+import com.example.demo.infrastructure.web.filter.IdempotencyFilter;
+import com.example.demo.shared.constants.ApiConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests para IdempotencyFilter")
+class IdempotencyFilterTest {
+
+    private static final String CUERPO = "{\"mesaId\":1}";
+
+    private IdempotencyFilter filter;
+    private AtomicInteger ejecuciones;
+
+    @BeforeEach
+    void setUp() {
+        filter = new IdempotencyFilter(new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "ttl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(filter, "maxEntradas", 100);
+        ReflectionTestUtils.setField(filter, "esperaMs", 5000L);
+        ejecuciones = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Un reintento con la misma clave devuelve la respuesta guardada sin ejecutar de nuevo")
+    void reintento_DeberiaRepetirRespuesta() throws Exception {
+        // Given
+        FilterChain chain = controlador(null);
+
+        // When
+        MockHttpServletResponse primera = ejecutar(peticion("clave-1", CUERPO), chain);
+        MockHttpServletResponse segunda = ejecutar(peticion("clave-1", CUERPO), chain);
+
+        // Then
+        assertThat(ejecuciones.get()).isEqualTo(1);
+        assertThat(segunda.getStatus()).isEqualTo(201);
+        assertThat(segunda.getContentAsString()).isEqualTo(primera.getContentAsString());
+        assertThat(segunda.getHeader(ApiConstants.IDEMPOTENT_REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @DisplayName("Reutilizar la clave con otro cuerpo se rechaza")
+    void reintento_CuerpoDistinto_DeberiaRechazar() throws Exception {
+        // Given
+        FilterChain chain = controlador(null);
+        ejecutar(peticion("clave-2", CUERPO), chain);
+
+        // When
+        MockHttpServletResponse respuesta = ejecutar(peticion("clave-2", "{\"mesaId\":2}"), chain);
+
+        // Then
+        assertThat(respuesta.getStatus()).isEqualTo(422);
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Duplicados concurrentes esperan a la primera ejecución")
+    void duplicadosConcurrentes_DeberianEjecutarUnaVez() throws Exception {
+        // Given
+        CountDownLatch enCurso = new CountDownLatch(1);
+        FilterChain chain = controlador(enCurso);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // When
+        Future<MockHttpServletResponse> primera = executor.submit(() -> ejecutar(peticion("clave-3", CUERPO), chain));
+        Future<MockHttpServletResponse> segunda = executor.submit(() -> ejecutar(peticion("clave-3", CUERPO), chain));
+        Thread.sleep(100);
+        enCurso.countDown();
+
+        // Then
+        assertThat(primera.get().getStatus()).isEqualTo(201);
+        assertThat(segunda.get().getStatus()).isEqualTo(201);
+        assertThat(ejecuciones.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Un error del servidor libera la clave para reintentar")
+    void errorServidor_DeberiaPermitirReintento() throws Exception {
+        // Given
+        FilterChain falla = (req, res) -> {
+            ejecuciones.incrementAndGet();
+            ((jakarta.servlet.http.HttpServletResponse) res).setStatus(500);
+        };
+
+        // When
+        ejecutar(peticion("clave-4", CUERPO), falla);
+        ejecutar(peticion("clave-4", CUERPO), falla);
+
+        // Then
+        assertThat(ejecuciones.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("El PUT de ajuste de líneas con clave se aplica una sola vez; otros PUT no se interceptan")
+    void ajusteLinea_DeberiaAplicarseUnaVez() throws Exception {
+        // Given
+        FilterChain chain = controlador(null);
+        String cuerpo = "{\"delta\":2}";
+
+        // When
+        ejecutar(peticion("PUT", "/api/comandas/7/lineas/3", "clave-8", cuerpo), chain);
+        MockHttpServletResponse repetida =
+                ejecutar(peticion("PUT", "/api/comandas/7/lineas/3", "clave-8", cuerpo), chain);
+        ejecutar(peticion("PUT", "/api/comandas/7", "clave-9", CUERPO), chain);
+        ejecutar(peticion("PUT", "/api/comandas/7", "clave-9", CUERPO), chain);
+
+        // Then
+        assertThat(repetida.getHeader(ApiConstants.IDEMPOTENT_REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(ejecuciones.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Superado el máximo solo se desalojan respuestas guardadas, nunca ejecuciones en curso")
+    void maximoSuperado_NoDeberiaDesalojarEjecucionesEnCurso() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(filter, "maxEntradas", 1);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> lenta =
+                    executor.submit(() -> ejecutar(peticion("clave-5", CUERPO), controlador(enCurso)));
+            Thread.sleep(100);
+            ejecutar(peticion("clave-6", CUERPO), controlador(null));
+            ejecutar(peticion("clave-7", CUERPO), controlador(null));
+
+            // When
+            Future<MockHttpServletResponse> duplicada =
+                    executor.submit(() -> ejecutar(peticion("clave-5", CUERPO), controlador(null)));
+            Thread.sleep(100);
+            enCurso.countDown();
+
+            // Then
+            assertThat(lenta.get().getStatus()).isEqualTo(201);
+            assertThat(duplicada.get().getStatus()).isEqualTo(201);
+            assertThat(duplicada.get().getHeader(ApiConstants.IDEMPOTENT_REPLAYED_HEADER)).isEqualTo("true");
+            assertThat(ejecuciones.get()).isEqualTo(3);
+        } finally {
+            enCurso.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private FilterChain controlador(CountDownLatch enCurso) {
+        return (req, res) -> {
+            ejecuciones.incrementAndGet();
+            req.getInputStream().readAllBytes();
+            if (enCurso != null) {
+                try {
+                    enCurso.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            ((jakarta.servlet.http.HttpServletResponse) res).setStatus(201);
+            res.setContentType("application/json");
+            res.getOutputStream().write(("{\"idComanda\":" + ejecuciones.get() + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private MockHttpServletRequest peticion(String clave, String cuerpo) {
+        return peticion("POST", "/api/comandas", clave, cuerpo);
+    }
+
+    private MockHttpServletRequest peticion(String metodo, String ruta, String clave, String cuerpo) {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, ruta);
+        request.addHeader(ApiConstants.IDEMPOTENCY_KEY_HEADER, clave);
+        request.setContentType("application/json");
+        request.setContent(cuerpo.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse ejecutar(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
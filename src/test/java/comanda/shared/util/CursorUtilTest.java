@@ -0,0 +1,61 @@
+package comanda.shared.util;
+
+import com.example.demo.shared.exception.BadRequestException;
+import com.example.demo.shared.util.CursorUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Tests para CursorUtil")
+class CursorUtilTest {
+
+    @Test
+    @DisplayName("Un cursor de comanda decodifica la misma fecha e ID con que se codificó")
+    void comandaCursor_DeberiaIrYVolver() {
+        // Given
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 6, 13, 45, 12, 345_000_000);
+
+        // When
+        CursorUtil.ComandaCursor cursor = CursorUtil.decodeComanda(CursorUtil.encode(fecha, 42));
+
+        // Then
+        assertThat(cursor.fecha()).isEqualTo(fecha);
+        assertThat(cursor.idComanda()).isEqualTo(42);
+        assertThat(CursorUtil.decodeId(CursorUtil.encode(7))).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Sin cursor se parte de la posición inicial, anterior a cualquier fila")
+    void sinCursor_DeberiaDevolverPosicionInicial() {
+        CursorUtil.ComandaCursor inicial = CursorUtil.decodeComanda(null);
+
+        assertThat(inicial.fecha()).isEqualTo(CursorUtil.FECHA_INICIAL);
+        assertThat(inicial.idComanda()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(CursorUtil.decodeComanda(" ")).isEqualTo(inicial);
+        assertThat(CursorUtil.decodeId("")).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Un cursor manipulado o mal formado se rechaza como petición inválida")
+    void cursorInvalido_DeberiaLanzarBadRequest() {
+        String sinSeparador = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2024-05-06T13:00".getBytes(StandardCharsets.UTF_8));
+        String fechaInvalida = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("ayer|5".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> CursorUtil.decodeComanda("%%no-es-base64%%"))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> CursorUtil.decodeComanda(sinSeparador))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> CursorUtil.decodeComanda(fechaInvalida))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> CursorUtil.decodeId(CursorUtil.encode(LocalDateTime.now(), 1)))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -1,13 +1,17 @@
 package mesa.application.service;
 
 import com.example.demo.application.service.MesaService;
+import com.example.demo.application.service.MesaStateIndex;
+import com.example.demo.application.service.ReferenceDataRegistry;
 import com.example.demo.domain.entity.Estado;
 import com.example.demo.domain.entity.Mesa;
 import com.example.demo.domain.mapper.MesaMapper;
 import com.example.demo.infrastructure.persistence.repository.MesaRepository;
 import com.example.demo.infrastructure.persistence.repository.EstadoRepository;
 import com.example.demo.domain.dto.MesaDTO;
+import com.example.demo.domain.dto.MesaPlanoDTO;
 import com.example.demo.domain.entity.Comanda;
+import com.example.demo.domain.event.MesaCambiadaEvent;
 import com.example.demo.shared.exception.BadRequestException;
 import com.example.demo.shared.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +21,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -37,9 +42,18 @@ class MesaServiceTest {
     @Mock
     private EstadoRepository estadoRepository;
 
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
     @Mock
     private MesaMapper mesaMapper;
 
+    @Mock
+    private MesaStateIndex mesaStateIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MesaService mesaService;
 
@@ -72,7 +86,7 @@ class MesaServiceTest {
         estado.setIdEstado(1);
         estado.setNombre("DISPONIBLE");
 
-        when(estadoRepository.findByNombreIgnoreCase("DISPONIBLE")).thenReturn(Optional.of(estado));
+        when(referenceDataRegistry.findEstadoByNombre("DISPONIBLE")).thenReturn(Optional.of(estado));
         when(mesaMapper.toEntity(requestDto)).thenReturn(mesa);
         when(mesaRepository.save(any(Mesa.class))).thenReturn(mesa);
         when(mesaMapper.toDto(mesa)).thenReturn(requestDto);
@@ -182,7 +196,7 @@ class MesaServiceTest {
         estadoOcupada.setNombre("OCUPADA");
 
         when(mesaRepository.findById(1)).thenReturn(Optional.of(mesa));
-        when(estadoRepository.findById(2)).thenReturn(Optional.of(estadoOcupada));
+        when(referenceDataRegistry.findEstado(2)).thenReturn(Optional.of(estadoOcupada));
         when(mesaRepository.save(any(Mesa.class))).thenReturn(mesa);
         when(mesaMapper.toDto(mesa)).thenReturn(requestDto);
 
@@ -192,6 +206,7 @@ class MesaServiceTest {
         // Then
         assertThat(response).isNotNull();
         verify(mesaRepository, times(1)).save(any(Mesa.class));
+        verify(eventPublisher).publishEvent(new MesaCambiadaEvent(1, 4, "TERRAZA", 2, false));
     }
 
     @Test
@@ -206,6 +221,7 @@ class MesaServiceTest {
 
         // Then
         verify(mesaRepository, times(1)).deleteById(1);
+        verify(eventPublisher).publishEvent(MesaCambiadaEvent.eliminada(1));
     }
 
     @Test
@@ -226,7 +242,7 @@ class MesaServiceTest {
     @DisplayName("Obtener mesas por estado")
     void findByEstado_DeberiaRetornarLista() {
         // Given
-        when(estadoRepository.existsById(1)).thenReturn(true);
+        when(referenceDataRegistry.findEstado(1)).thenReturn(Optional.of(new Estado()));
         when(mesaRepository.findByEstadoIdEstado(1)).thenReturn(Arrays.asList(mesa));
         when(mesaMapper.toDtoList(Arrays.asList(mesa))).thenReturn(Arrays.asList(requestDto));
 
@@ -245,7 +261,7 @@ class MesaServiceTest {
         estadoDisponible.setIdEstado(1);
         estadoDisponible.setNombre("DISPONIBLE");
 
-        when(estadoRepository.findByNombreIgnoreCase("DISPONIBLE")).thenReturn(Optional.of(estadoDisponible));
+        when(referenceDataRegistry.findEstadoByNombre("DISPONIBLE")).thenReturn(Optional.of(estadoDisponible));
         when(mesaRepository.findByEstadoIdEstado(1)).thenReturn(Arrays.asList(mesa));
         when(mesaMapper.toDtoList(Arrays.asList(mesa))).thenReturn(Arrays.asList(requestDto));
 
@@ -255,4 +271,20 @@ class MesaServiceTest {
         // Then
         assertThat(response).hasSize(1);
     }
+
+    @Test
+    @DisplayName("La disponibilidad se responde desde el plano de mesas sin consultar la base de datos")
+    void estaDisponible_DesdePlano() {
+        // Given
+        when(mesaStateIndex.estaCargado()).thenReturn(true);
+        when(mesaStateIndex.get(1)).thenReturn(Optional.of(
+                MesaPlanoDTO.builder().idMesa(1).estadoId(1).estadoNombre("DISPONIBLE").build()));
+        when(mesaStateIndex.get(2)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThat(mesaService.estaDisponible(1)).isTrue();
+        assertThatThrownBy(() -> mesaService.estaDisponible(2))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(mesaRepository);
+    }
 }
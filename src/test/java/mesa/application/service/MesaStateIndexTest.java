@@ -0,0 +1,176 @@
+package mesa.application.service;
+
+import com.example.demo.application.service.ComandaBoard;
+import com.example.demo.application.service.MesaStateIndex;
+import com.example.demo.application.service.ReferenceDataRegistry;
+import com.example.demo.domain.dto.ComandaDTO;
+import com.example.demo.domain.dto.MesaPlanoDTO;
+import com.example.demo.domain.entity.Estado;
+import com.example.demo.domain.entity.Mesa;
+import com.example.demo.domain.event.ComandaCambiadaEvent;
+import com.example.demo.domain.event.MesaCambiadaEvent;
+import com.example.demo.infrastructure.persistence.repository.ComandaRepository;
+import com.example.demo.infrastructure.persistence.repository.MesaRepository;
+import com.example.demo.shared.constants.WebSocketConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para MesaStateIndex")
+class MesaStateIndexTest {
+
+    @Mock
+    private MesaRepository mesaRepository;
+
+    @Mock
+    private ComandaRepository comandaRepository;
+
+    @Mock
+    private ComandaBoard comandaBoard;
+
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private MesaStateIndex mesaStateIndex;
+
+    private final LocalDateTime llegada = LocalDateTime.of(2024, 5, 6, 13, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(mesaStateIndex, "capacidad", 100);
+        mesaStateIndex.iniciar();
+
+        Estado disponible = estado(1, "DISPONIBLE");
+        when(referenceDataRegistry.findEstado(1)).thenReturn(Optional.of(disponible));
+        when(mesaRepository.findAll()).thenReturn(List.of(
+                mesa(1, "TERRAZA", disponible), mesa(2, "SALON", disponible), mesa(3, "SALON", disponible)));
+
+        // La mesa 1 tiene dos comandas abiertas: la primera marca la hora de llegada
+        ComandaRepository.ComandaDeMesa primera = comandaDeMesa(10, 1, llegada);
+        ComandaRepository.ComandaDeMesa segunda = comandaDeMesa(11, 1, llegada.plusMinutes(40));
+        when(comandaRepository.findComandasDeMesaByEstadoIdEstadoNot(any()))
+                .thenReturn(List.of(primera, segunda));
+
+        mesaStateIndex.cargar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mesaStateIndex.detener();
+    }
+
+    private static Estado estado(int id, String nombre) {
+        Estado estado = new Estado();
+        estado.setIdEstado(id);
+        estado.setNombre(nombre);
+        return estado;
+    }
+
+    private static Mesa mesa(int id, String ubicacion, Estado estado) {
+        Mesa mesa = new Mesa();
+        mesa.setIdMesa(id);
+        mesa.setCapacidad(4);
+        mesa.setUbicacion(ubicacion);
+        mesa.setEstado(estado);
+        return mesa;
+    }
+
+    private static ComandaRepository.ComandaDeMesa comandaDeMesa(int idComanda, int idMesa, LocalDateTime fecha) {
+        ComandaRepository.ComandaDeMesa comanda = mock(ComandaRepository.ComandaDeMesa.class);
+        when(comanda.getIdComanda()).thenReturn(idComanda);
+        when(comanda.getIdMesa()).thenReturn(idMesa);
+        when(comanda.getFecha()).thenReturn(fecha);
+        return comanda;
+    }
+
+    @Test
+    @DisplayName("La carga agrupa las mesas por ubicación con su comanda activa y hora de llegada")
+    void cargar_DeberiaAgruparPorUbicacion() {
+        // When
+        Map<String, List<MesaPlanoDTO>> plano = mesaStateIndex.porUbicacion();
+
+        // Then
+        assertThat(plano).containsOnlyKeys("SALON", "TERRAZA");
+        assertThat(plano.get("SALON")).extracting(MesaPlanoDTO::getIdMesa).containsExactly(2, 3);
+
+        MesaPlanoDTO terraza = plano.get("TERRAZA").get(0);
+        assertThat(terraza.getIdComandaActiva()).isEqualTo(11);
+        assertThat(terraza.getComandasActivas()).isEqualTo(2);
+        assertThat(terraza.getOcupadaDesde()).isEqualTo(llegada);
+        assertThat(terraza.getEstadoNombre()).isEqualTo("DISPONIBLE");
+        assertThat(MesaStateIndex.estaOcupada(terraza)).isTrue();
+        assertThat(MesaStateIndex.estaOcupada(plano.get("SALON").get(0))).isFalse();
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    @DisplayName("Abrir y pagar una comanda ocupa y libera su mesa y publica cada cambio")
+    void onComandaCambiada_DeberiaOcuparYLiberarLaMesa() {
+        // Given
+        ComandaDTO comanda = new ComandaDTO();
+        comanda.setIdComanda(20);
+        comanda.setMesaId(2);
+        comanda.setFecha(llegada.plusHours(1));
+        when(comandaBoard.estaCargado()).thenReturn(true);
+        when(comandaBoard.get(20)).thenReturn(Optional.of(comanda), Optional.empty());
+
+        // When
+        mesaStateIndex.onComandaCambiada(new ComandaCambiadaEvent(20, ComandaCambiadaEvent.Tipo.CREADA));
+        MesaPlanoDTO ocupada = mesaStateIndex.get(2).orElseThrow();
+        // Sale del tablero sin eliminarse: quedó pagada
+        mesaStateIndex.onComandaCambiada(new ComandaCambiadaEvent(20));
+
+        // Then
+        assertThat(ocupada.getIdComandaActiva()).isEqualTo(20);
+        assertThat(ocupada.getOcupadaDesde()).isEqualTo(llegada.plusHours(1));
+        assertThat(mesaStateIndex.get(2).orElseThrow().getIdComandaActiva()).isNull();
+
+        ArgumentCaptor<Object> publicadas = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, timeout(2000).times(2))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_MESAS), publicadas.capture());
+        assertThat(publicadas.getAllValues()).containsExactly(ocupada, mesaStateIndex.get(2).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Un cambio de mesa la mueve de ubicación y una eliminación la retira del plano")
+    void onMesaCambiada_DeberiaMoverYEliminar() {
+        // Given
+        when(referenceDataRegistry.findEstado(3)).thenReturn(Optional.of(estado(3, "RESERVADA")));
+
+        // When
+        mesaStateIndex.onMesaCambiada(new MesaCambiadaEvent(2, 6, "TERRAZA", 3, false));
+        mesaStateIndex.onMesaCambiada(MesaCambiadaEvent.eliminada(3));
+
+        // Then
+        Map<String, List<MesaPlanoDTO>> plano = mesaStateIndex.porUbicacion();
+        assertThat(plano).containsOnlyKeys("TERRAZA");
+        assertThat(plano.get("TERRAZA")).extracting(MesaPlanoDTO::getIdMesa).containsExactly(1, 2);
+        assertThat(mesaStateIndex.get(2).orElseThrow().getEstadoNombre()).isEqualTo("RESERVADA");
+        assertThat(mesaStateIndex.get(3)).isEmpty();
+        verify(messagingTemplate, timeout(2000).times(2))
+                .convertAndSend(eq(WebSocketConstants.TOPIC_MESAS), any(Object.class));
+    }
+}
@@ -1,6 +1,7 @@
 package producto.application.service;
 
 import com.example.demo.application.service.ProductoService;
+import com.example.demo.application.service.ReferenceDataRegistry;
 import com.example.demo.domain.dto.ProductoDTO;
 import com.example.demo.domain.entity.Categoria;
 import com.example.demo.domain.entity.Producto;
@@ -37,6 +38,9 @@ class ProductoServiceTest {
     @Mock
     private CategoriaRepository categoriaRepository;
 
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
     @Mock
     private ProductoMapper productoMapper;
 
@@ -74,7 +78,7 @@ class ProductoServiceTest {
     @Test
     @DisplayName("Crear producto exitosamente")
     void save_Exitoso() {
-        when(categoriaRepository.findById(1)).thenReturn(Optional.of(categoria));
+        when(referenceDataRegistry.findCategoria(1)).thenReturn(Optional.of(categoria));
         when(productoRepository.existsByNombreIgnoreCase(anyString())).thenReturn(false);
         when(productoMapper.toEntity(requestDto)).thenReturn(producto);
         when(productoRepository.save(any(Producto.class))).thenReturn(producto);
@@ -91,7 +95,7 @@ class ProductoServiceTest {
     @Test
     @DisplayName("Crear producto con nombre duplicado debe lanzar excepción")
     void save_NombreDuplicado_DeberiaLanzarExcepcion() {
-        when(categoriaRepository.findById(1)).thenReturn(Optional.of(categoria));
+        when(referenceDataRegistry.findCategoria(1)).thenReturn(Optional.of(categoria));
         when(productoRepository.existsByNombreIgnoreCase(anyString())).thenReturn(true);
 
         assertThatThrownBy(() -> productoService.save(requestDto))
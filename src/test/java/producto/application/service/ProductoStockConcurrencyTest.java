@@ -0,0 +1,113 @@
+package producto.application.service;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.application.service.ProductoService;
+import com.example.demo.domain.entity.Categoria;
+import com.example.demo.domain.entity.Producto;
+import com.example.demo.infrastructure.persistence.repository.CategoriaRepository;
+import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
+import com.example.demo.shared.exception.InsufficientStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = DemoApplication.class, properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@DisplayName("Tests de concurrencia sobre el stock de productos")
+class ProductoStockConcurrencyTest {
+
+    private static final int HILOS = 64;
+    private static final int INTENTOS_POR_HILO = 10;
+    private static final int STOCK_INICIAL = 200;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private Categoria categoria;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        categoria = new Categoria();
+        categoria.setNombre("Concurrencia");
+        categoria = categoriaRepository.save(categoria);
+
+        producto = new Producto();
+        producto.setNombre("Producto concurrido");
+        producto.setCategoria(categoria);
+        producto.setPrecio(new BigDecimal("5.00"));
+        producto.setStock(STOCK_INICIAL);
+        producto.setEstado(true);
+        producto = productoRepository.save(producto);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteById(producto.getIdProducto());
+        categoriaRepository.deleteById(categoria.getIdCategoria());
+    }
+
+    @Test
+    @DisplayName("64 hilos reduciendo stock a la vez no venden más de lo disponible")
+    void reducirStock_Concurrente_NoSobrevende() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger exitos = new AtomicInteger();
+        AtomicInteger rechazos = new AtomicInteger();
+        Integer idProducto = producto.getIdProducto();
+
+        // When
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                for (int j = 0; j < INTENTOS_POR_HILO; j++) {
+                    try {
+                        productoService.reducirStock(idProducto, 1);
+                        exitos.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rechazos.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        executor.shutdown();
+
+        // Then
+        Producto actualizado = productoRepository.findById(idProducto).orElseThrow();
+        assertThat(exitos.get()).isEqualTo(STOCK_INICIAL);
+        assertThat(rechazos.get()).isEqualTo(HILOS * INTENTOS_POR_HILO - STOCK_INICIAL);
+        assertThat(actualizado.getStock()).isZero();
+    }
+}
@@ -0,0 +1,201 @@
+package producto.application.service;
+
+import com.example.demo.application.service.StockLedger;
+import com.example.demo.domain.entity.Producto;
+import com.example.demo.infrastructure.persistence.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para StockLedger")
+class StockLedgerTest {
+
+    private static final int HILOS = 64;
+    private static final int INTENTOS_POR_HILO = 5;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private StockLedger stockLedger;
+
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        producto = new Producto();
+        producto.setIdProducto(1);
+        producto.setNombre("Gaseosa de la casa");
+        producto.setStock(100);
+        producto.setEstado(true);
+    }
+
+    @Test
+    @DisplayName("Deshabilitado delega en el UPDATE condicional")
+    void descontar_Deshabilitado_DeberiaUsarRepositorio() {
+        // Given
+        when(productoRepository.descontarStock(1, 2)).thenReturn(1);
+
+        // When
+        boolean resultado = stockLedger.descontar(1, 2);
+
+        // Then
+        assertThat(resultado).isTrue();
+        verify(productoRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Descuentos concurrentes no sobrevenden y se vuelcan como un único delta")
+    void descontar_Concurrente_NoSobrevende() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(stockLedger, "habilitado", true);
+        when(productoRepository.findAll()).thenReturn(List.of(producto));
+        stockLedger.cargar();
+
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger exitos = new AtomicInteger();
+
+        // When
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                for (int j = 0; j < INTENTOS_POR_HILO; j++) {
+                    if (stockLedger.descontar(1, 1)) {
+                        exitos.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        executor.shutdown();
+        stockLedger.volcar();
+
+        // Then
+        assertThat(exitos.get()).isEqualTo(100);
+        assertThat(stockLedger.disponible(producto)).isZero();
+        verify(productoRepository, times(1)).ajustarStockEnLote(Map.of(1, -100));
+        verify(productoRepository, never()).descontarStock(any(), any());
+    }
+
+    @Test
+    @DisplayName("Un volcado fallido conserva los deltas para el siguiente")
+    void volcar_Fallido_DeberiaReintentar() {
+        // Given
+        ReflectionTestUtils.setField(stockLedger, "habilitado", true);
+        when(productoRepository.findAll()).thenReturn(List.of(producto));
+        stockLedger.cargar();
+        stockLedger.descontar(1, 3);
+        doThrow(new RuntimeException("Conexión perdida"))
+                .doNothing()
+                .when(productoRepository).ajustarStockEnLote(any());
+
+        // When
+        stockLedger.volcar();
+        stockLedger.volcar();
+
+        // Then
+        verify(productoRepository, times(2)).ajustarStockEnLote(Map.of(1, -3));
+    }
+
+    @Test
+    @DisplayName("Una edición durante un volcado espera a que termine y no cuenta el delta dos veces")
+    void fijar_DuranteVolcado_DeberiaEsperarAlVolcado() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(stockLedger, "habilitado", true);
+        when(productoRepository.findAll()).thenReturn(List.of(producto));
+        stockLedger.cargar();
+        stockLedger.descontar(1, 3);
+
+        CountDownLatch enVolcado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        doAnswer(invocacion -> {
+            enVolcado.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(productoRepository).ajustarStockEnLote(anyMap());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> volcado = executor.submit(stockLedger::volcar);
+            assertThat(enVolcado.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            Future<?> edicion = executor.submit(() -> stockLedger.fijar(1, 50));
+            Thread.sleep(100);
+            boolean terminoAntesDelVolcado = edicion.isDone();
+            liberar.countDown();
+            volcado.get(5, TimeUnit.SECONDS);
+            edicion.get(5, TimeUnit.SECONDS);
+            stockLedger.volcar();
+
+            // Then
+            assertThat(terminoAntesDelVolcado).isFalse();
+            assertThat(stockLedger.disponible(producto)).isEqualTo(50);
+            verify(productoRepository, times(1)).ajustarStockEnLote(Map.of(1, -3));
+        } finally {
+            liberar.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Una edición que termina en rollback no toca el libro ni descarta deltas pendientes")
+    void fijar_Rollback_DeberiaConservarLibroYDeltas() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(stockLedger, "habilitado", true);
+        when(productoRepository.findAll()).thenReturn(List.of(producto));
+        stockLedger.cargar();
+        stockLedger.descontar(1, 3);
+
+        // When
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> sincronizaciones;
+        try {
+            stockLedger.fijar(1, 50);
+            assertThat(stockLedger.disponible(producto)).isEqualTo(97);
+        } finally {
+            sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then: el cerrojo quedó libre y el delta se vuelca desde otro hilo
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(stockLedger::volcar).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(stockLedger.disponible(producto)).isEqualTo(97);
+        verify(productoRepository).ajustarStockEnLote(Map.of(1, -3));
+    }
+}